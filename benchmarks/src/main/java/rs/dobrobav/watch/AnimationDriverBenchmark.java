@@ -0,0 +1,66 @@
+package rs.dobrobav.watch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one tick of the shared {@link AnimationDriver} against the number
+ * of clocks registered with it. Ticks are driven by hand on a timeline an
+ * hour ahead, so the driver's own timer never fires during a run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationDriverBenchmark {
+
+    private static final long HOUR = 3_600_000_000_000L;
+
+    @Param({"1", "100", "10000"})
+    public int clocks;
+
+    private AnimationDriver driver;
+    private AnimationDriver.Entry[] entries;
+    private long now;
+    private long work;
+
+    @Setup
+    public void setUp() {
+        driver = new AnimationDriver();
+        now = System.nanoTime() + HOUR;
+        entries = new AnimationDriver.Entry[clocks];
+        for (int i = 0; i < clocks; i++) {
+            entries[i] = new AnimationDriver.Entry() {
+                @Override
+                void run(long nowNanos) {
+                    work += nowNanos;
+                }
+            };
+            // Idle until far after the measurement
+            driver.schedule(entries[i], now + HOUR);
+        }
+    }
+
+    /** One clock due, every other one waiting: what a tick costs as more clocks register. */
+    @Benchmark
+    public long oneDue() {
+        now += 1_000_000;
+        driver.schedule(entries[0], now);
+        driver.tick(now);
+        return work;
+    }
+
+    /** Every clock due in the same tick, like faces whose second hands all move on the whole second. */
+    @Benchmark
+    public long allDue() {
+        now += 1_000_000;
+        for (AnimationDriver.Entry entry : entries) {
+            driver.schedule(entry, now);
+        }
+        driver.tick(now);
+        return work;
+    }
+}
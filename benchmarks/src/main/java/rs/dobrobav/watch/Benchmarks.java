@@ -0,0 +1,24 @@
+package rs.dobrobav.watch;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Takes the usual JMH command line and
+ * always adds the GC profiler, so every run also reports allocation per
+ * operation ({@code gc.alloc.rate.norm}).
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Djava.awt.headless=true")
+                .build();
+        new Runner(options).run();
+    }
+}
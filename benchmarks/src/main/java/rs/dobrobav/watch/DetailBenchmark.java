@@ -0,0 +1,91 @@
+package rs.dobrobav.watch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame cost of a small face at each level of detail, with the tier forced
+ * through the thresholds so every size can be measured at every tier. The
+ * sizes are the ones a wall of many faces ends up with.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DetailBenchmark {
+
+    private static final long START = Instant.parse("2024-03-18T10:09:30Z").toEpochMilli();
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+    private static final int FLAGS = WatchRenderer.STOPWATCH_RUNNING | WatchRenderer.SWEEP_SECONDS;
+
+    @Param({"100", "200", "300"})
+    public int size;
+
+    @Param({"FULL", "REDUCED", "MINIMAL"})
+    public WatchRenderer.Detail detail;
+
+    private BufferedImage image;
+    private Graphics2D g2;
+    private WatchRenderer renderer;
+    private WatchState state;
+    private long millis;
+
+    @Setup
+    public void setUp() {
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        g2 = image.createGraphics();
+        renderer = newRenderer();
+        state = new WatchState(Instant.ofEpochMilli(START), TOKYO, "TOKYO", 83_250, true, false, false, true);
+        millis = START;
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    private WatchRenderer newRenderer() {
+        WatchRenderer r = new WatchRenderer();
+        double infinity = Double.POSITIVE_INFINITY;
+        switch (detail) {
+            case FULL:
+                r.setDetailThresholds(0, 0);
+                break;
+            case REDUCED:
+                r.setDetailThresholds(infinity, 0);
+                break;
+            default:
+                r.setDetailThresholds(infinity, infinity);
+        }
+        return r;
+    }
+
+    /** A steady frame with sweeping hands: the cached face, the hands and the reflection if any. */
+    @Benchmark
+    public BufferedImage steadyFrame() {
+        millis += 16;
+        renderer.render(g2, size, size, millis, TOKYO, "TOKYO", millis - START, FLAGS);
+        return image;
+    }
+
+    /** The first frame of a new face, building every layer; what a wall pays per face size it shows. */
+    @Benchmark
+    public BufferedImage firstFrame() {
+        newRenderer().render(g2, size, size, START, TOKYO, "TOKYO", 83_250, FLAGS);
+        return image;
+    }
+
+    /** Every part of the face drawn straight onto the target, nothing cached. */
+    @Benchmark
+    public BufferedImage directFrame() {
+        renderer.renderDirect(g2, size, size, state);
+        return image;
+    }
+}
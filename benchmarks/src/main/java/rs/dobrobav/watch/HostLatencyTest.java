@@ -0,0 +1,123 @@
+package rs.dobrobav.watch;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Compares the two ways of hosting the watch on screen: {@link DoWatch},
+ * painted by Swing on the event thread, and {@link WatchCanvas}, drawn by a
+ * render thread of its own. Each one gets the same clicks on the top
+ * button, posted to the event queue with their timestamps, and the run
+ * reports the input latency each host measured, from the click to the frame
+ * that shows its effect, and how long a task waited for the event thread
+ * meanwhile. Optionally keeps the event thread busy for a few milliseconds
+ * every frame, like a heavy application around the watch would. Needs a
+ * display; {@code xvfb-run} will do.
+ * <pre>java -cp benchmarks/target/benchmarks.jar rs.dobrobav.watch.HostLatencyTest [clicks] [edtLoadMillis]</pre>
+ */
+public class HostLatencyTest {
+
+    private static final int SIZE = 500;
+    private static final long CLICK_INTERVAL_MILLIS = 100;
+    private static final long PROBE_INTERVAL_MILLIS = 5;
+    private static final long SETTLE_MILLIS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        // Every click starts or stops the stopwatch, so an even number leaves it as it was
+        int clicks = (args.length > 0 ? Integer.parseInt(args[0]) : 200) & ~1;
+        int loadMillis = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        System.out.printf(Locale.ROOT, "%d clicks, %d ms of other work on the event thread per 16 ms%n",
+                clicks, loadMillis);
+        run("DoWatch", new DoWatch(), clicks, loadMillis);
+        run("WatchCanvas", new WatchCanvas(), clicks, loadMillis);
+        System.exit(0);
+    }
+
+    private static void run(String name, Component host, int clicks, int loadMillis) throws Exception {
+        FrameMetrics metrics = host instanceof DoWatch
+                ? ((DoWatch) host).getFrameMetrics() : ((WatchCanvas) host).getFrameMetrics();
+        JFrame[] frame = new JFrame[1];
+        SwingUtilities.invokeAndWait(() -> {
+            frame[0] = new JFrame(name);
+            frame[0].add(host);
+            frame[0].setSize(SIZE, SIZE);
+            frame[0].setVisible(true);
+        });
+        Timer load = new Timer(16, e -> busy(loadMillis));
+        if (loadMillis > 0) {
+            load.start();
+        }
+        Thread.sleep(SETTLE_MILLIS);
+        Rectangle2D[] button = new Rectangle2D[1];
+        SwingUtilities.invokeAndWait(() -> button[0] = WatchRenderer.topButtonHitBounds(host.getWidth(),
+                host.getHeight()));
+        int x = (int) button[0].getCenterX();
+        int y = (int) button[0].getCenterY();
+        metrics.reset();
+
+        long[] waits = new long[(int) (clicks * CLICK_INTERVAL_MILLIS / PROBE_INTERVAL_MILLIS) + 1];
+        int[] probed = {0};
+        ScheduledExecutorService probe = Executors.newSingleThreadScheduledExecutor();
+        probe.scheduleAtFixedRate(() -> {
+            long posted = System.nanoTime();
+            EventQueue.invokeLater(() -> {
+                if (probed[0] < waits.length) {
+                    waits[probed[0]++] = System.nanoTime() - posted;
+                }
+            });
+        }, 0, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        EventQueue queue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+        for (int i = 0; i < clicks; i++) {
+            long when = System.currentTimeMillis();
+            queue.postEvent(click(host, MouseEvent.MOUSE_PRESSED, when, x, y));
+            queue.postEvent(click(host, MouseEvent.MOUSE_RELEASED, when, x, y));
+            Thread.sleep(CLICK_INTERVAL_MILLIS);
+        }
+        Thread.sleep(SETTLE_MILLIS);
+
+        probe.shutdown();
+        probe.awaitTermination(1, TimeUnit.SECONDS);
+        int[] count = new int[1];
+        SwingUtilities.invokeAndWait(() -> {
+            load.stop();
+            frame[0].dispose();
+            count[0] = probed[0]; // Written on the event thread, so read there too
+        });
+        long[] all = Arrays.copyOf(waits, count[0]);
+        Arrays.sort(all);
+        System.out.printf(Locale.ROOT, "%-11s input mean %6.2f ms  p99 %6.2f ms  max %6.2f ms  (%d inputs)"
+                        + "  event thread wait p50 %6.2f ms  p99 %6.2f ms%n",
+                name, metrics.getMeanInputLatencyMillis(), metrics.getInputLatencyMillisP99(),
+                metrics.getMaxInputLatencyMillis(), metrics.getInputCount(),
+                percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static AWTEvent click(Component host, int id, long when, int x, int y) {
+        return new MouseEvent(host, id, when, InputEvent.BUTTON1_DOWN_MASK, x, y, 1, false, MouseEvent.BUTTON1);
+    }
+
+    private static void busy(int millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < end) {
+            // Spin
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+}
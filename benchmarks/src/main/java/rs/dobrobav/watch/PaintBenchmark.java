@@ -0,0 +1,135 @@
+package rs.dobrobav.watch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one DoWatch frame, and of each drawing stage on its own, painted
+ * into an offscreen image at several panel sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaintBenchmark {
+
+    private static final Instant INSTANT = Instant.parse("2024-03-18T10:09:30Z");
+
+    @Param({"200", "750", "2000"})
+    public int size;
+
+    private BufferedImage image;
+    private Graphics2D g2;
+    private AffineTransform designSpace;
+    private DoWatch watch;
+    private WatchRenderer renderer;
+    private WatchState state;
+    private ZonedDateTime now;
+
+    @Setup
+    public void setUp() {
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        watch = new DoWatch();
+        watch.setSize(size, size);
+        watch.setClock(Clock.fixed(INSTANT, ZoneOffset.UTC));
+
+        renderer = new WatchRenderer();
+        state = new WatchState(INSTANT, ZoneId.of("Europe/Belgrade"), "BELGRADE", 83_250, false, false, false);
+        now = ZonedDateTime.ofInstant(INSTANT, state.getZone());
+
+        // The stage methods draw in the 750x750 design space
+        Graphics2D probe = image.createGraphics();
+        WatchRenderer.toDesignSpace(probe, size, size);
+        designSpace = probe.getTransform();
+        probe.dispose();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    private Graphics2D stage() {
+        g2.setTransform(designSpace);
+        return g2;
+    }
+
+    /** A steady-state panel repaint, with all cached layers valid. */
+    @Benchmark
+    public BufferedImage paintComponent() {
+        watch.paintComponent(g2);
+        return image;
+    }
+
+    /** A full frame with every stage drawn from scratch, as before layer caching. */
+    @Benchmark
+    public BufferedImage renderDirect() {
+        renderer.renderDirect(g2, size, size, state);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage drawCase() {
+        renderer.drawCase(stage(), WatchRenderer.C, WatchRenderer.C, WatchRenderer.R);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage drawDial() {
+        renderer.drawDial(stage(), WatchRenderer.C, WatchRenderer.C, WatchRenderer.R);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage drawHands() {
+        renderer.drawHands(stage(), WatchRenderer.C, WatchRenderer.C, WatchRenderer.R,
+                now.getHour(), now.getMinute(), now.getSecond());
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage drawStopwatch() {
+        Graphics2D g = stage();
+        renderer.drawStopwatchFace(g, WatchRenderer.C, WatchRenderer.C, WatchRenderer.R);
+        renderer.drawStopwatchHand(g, WatchRenderer.C, WatchRenderer.C, WatchRenderer.R, state.getStopwatchElapsedMillis());
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage draw24hDial() {
+        Graphics2D g = stage();
+        renderer.draw24hDialFace(g, WatchRenderer.C, WatchRenderer.C, WatchRenderer.R);
+        renderer.draw24hHand(g, WatchRenderer.C, WatchRenderer.C, WatchRenderer.R, now.getHour(), now.getMinute());
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage drawStopwatchMinuteDial() {
+        Graphics2D g = stage();
+        renderer.drawStopwatchMinuteDialFace(g, WatchRenderer.C, WatchRenderer.C, WatchRenderer.R);
+        renderer.drawStopwatchMinuteHand(g, WatchRenderer.C, WatchRenderer.C, WatchRenderer.R, state.getStopwatchElapsedMillis());
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage drawCrystalReflection() {
+        renderer.drawCrystalReflection(stage(), WatchRenderer.C, WatchRenderer.C, WatchRenderer.R);
+        return image;
+    }
+}
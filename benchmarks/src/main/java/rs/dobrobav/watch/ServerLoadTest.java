@@ -0,0 +1,106 @@
+package rs.dobrobav.watch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local load test of {@link WatchServer}: client threads request faces as
+ * fast as they get answers, and the run reports requests per second and
+ * latency percentiles. Runs twice, once asking for a few faces the cache
+ * holds, the way status pages do, and once with a new stopwatch reading on
+ * every request, so that each one is rendered and encoded.
+ * <pre>java -cp benchmarks/target/benchmarks.jar rs.dobrobav.watch.ServerLoadTest [clients] [seconds]</pre>
+ */
+public class ServerLoadTest {
+
+    private static final String[] ZONES = {"Europe/Belgrade", "Europe/London", "America/New_York", "Asia/Tokyo"};
+    private static final int[] SIZES = {150, 300};
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        WatchServer.useNoDelay();
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try (WatchServer server = new WatchServer(new InetSocketAddress("127.0.0.1", 0), threads,
+                WatchServer.DEFAULT_CACHE_ENTRIES)) {
+            server.start();
+            System.out.printf(Locale.ROOT, "%d clients, %d server threads, %d s per run%n", clients, threads, seconds);
+            run("warm-up", server, clients, 2, false);
+            run("cached", server, clients, seconds, false);
+            run("uncached", server, clients, seconds, true);
+        }
+    }
+
+    private static void run(String name, WatchServer server, int clients, int seconds, boolean uncached)
+            throws Exception {
+        AtomicLong unique = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<long[]>> results = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            results.add(pool.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                for (int i = 0; System.nanoTime() < end; i++) {
+                    String query = "?zone=" + ZONES[(client + i) % ZONES.length]
+                            + "&size=" + SIZES[(client + i / ZONES.length) % SIZES.length]
+                            + (uncached ? "&stopwatch=" + unique.incrementAndGet() : "");
+                    long start = System.nanoTime();
+                    fetch(server.getPort(), query);
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        long started = System.nanoTime();
+        long[] all = new long[0];
+        for (Future<long[]> result : results) {
+            long[] latencies = result.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        double elapsed = Math.max(seconds, (System.nanoTime() - started) / 1e9);
+        pool.shutdown();
+        Arrays.sort(all);
+        System.out.printf(Locale.ROOT, "%-8s %7.0f req/s  p50 %6.2f ms  p99 %6.2f ms  max %6.2f ms  (%d requests)%n",
+                name, all.length / elapsed, percentile(all, 0.50), percentile(all, 0.99),
+                all.length == 0 ? 0 : all[all.length - 1] / 1e6, all.length);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private static void fetch(int port, String query) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://127.0.0.1:" + port + WatchServer.PATH + query).openConnection();
+        if (connection.getResponseCode() != 200) {
+            throw new IOException("HTTP " + connection.getResponseCode() + " for " + query);
+        }
+        // Reading the body to the end lets the connection be kept alive
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[16 << 10];
+            while (in.read(buffer) > 0) {
+                // Discard
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package rs.dobrobav.watch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How tiled rendering of a full, uncached DoWatch frame scales with the
+ * number of worker threads, at 4K and poster sizes. {@code singleThreaded}
+ * is the plain {@link WatchRenderer#renderDirect} baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.java2d.renderer.clip=false")
+public class TiledBenchmark {
+
+    private static final WatchState STATE = new WatchState(Instant.parse("2024-03-18T10:09:30Z"),
+            ZoneId.of("Europe/Belgrade"), "BELGRADE", 83_250, true, false, false);
+
+    @Param({"2160", "4096"})
+    public int size;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private BufferedImage image;
+    private TiledRenderer tiled;
+    private WatchRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        tiled = new TiledRenderer(threads);
+        renderer = new WatchRenderer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        tiled.close();
+    }
+
+    @Benchmark
+    public BufferedImage tiled() {
+        return tiled.render(image, STATE);
+    }
+
+    @Benchmark
+    public BufferedImage singleThreaded() {
+        Graphics2D g2 = image.createGraphics();
+        try {
+            renderer.renderDirect(g2, size, size, STATE);
+        } finally {
+            g2.dispose();
+        }
+        return image;
+    }
+}
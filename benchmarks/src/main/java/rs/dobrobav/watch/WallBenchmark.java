@@ -0,0 +1,71 @@
+package rs.dobrobav.watch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame time of a {@link WorldClockWall} on a 4K panel against the number of
+ * faces on it, up to every available zone. 60 fps leaves 16.7 ms per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WallBenchmark {
+
+    private static final Instant INSTANT = Instant.parse("2024-03-18T10:09:30Z");
+
+    @Param({"1", "16", "100", "300", "600"})
+    public int faces;
+
+    @Param({"3840x2160"})
+    public String panel;
+
+    // "full" draws every face in full detail, whatever its size
+    @Param({"tiered", "full"})
+    public String detail;
+
+    private BufferedImage image;
+    private Graphics2D g2;
+    private WorldClockWall wall;
+
+    @Setup
+    public void setUp() {
+        int width = Integer.parseInt(panel.substring(0, panel.indexOf('x')));
+        int height = Integer.parseInt(panel.substring(panel.indexOf('x') + 1));
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        g2 = image.createGraphics();
+
+        List<ZoneId> zones = WorldClockWall.availableZones();
+        wall = new WorldClockWall(zones.subList(0, Math.min(faces, zones.size())));
+        wall.setSize(width, height);
+        wall.setClock(Clock.fixed(INSTANT, ZoneOffset.UTC));
+        if (detail.equals("full")) {
+            wall.setDetailThresholds(0, 0);
+        }
+        // Build the backing image outside of the measurement
+        wall.paint(g2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    /** One full frame: the backing image plus the hands of every face. */
+    @Benchmark
+    public BufferedImage paintFrame() {
+        wall.paint(g2);
+        return image;
+    }
+}
@@ -0,0 +1,37 @@
+package rs.dobrobav.watch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-to-search over every available zone: one lookup per key typed, for
+ * short and long prefixes and one that matches nothing. A keystroke has to
+ * stay well under a millisecond to feel instant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneCatalogBenchmark {
+
+    @Param({"a", "new", "america/", "buenos aires", "xyz"})
+    public String query;
+
+    private ZoneCatalog catalog;
+
+    @Setup
+    public void setUp() {
+        // Built once; the index is not part of a lookup
+        catalog = ZoneCatalog.available();
+    }
+
+    /** The matches listed while searching. */
+    @Benchmark
+    public List<ZoneCatalog.Entry> search() {
+        return catalog.search(query, 6);
+    }
+}
@@ -0,0 +1,185 @@
+package rs.dobrobav.watch;
+
+import java.awt.*;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.time.LocalTime;
+
+/**
+ * Draws the {@link AnalogClock} face for a given time onto any
+ * {@code Graphics2D} or {@code BufferedImage}, at any size. It never reads
+ * the wall clock and works under {@code java.awt.headless=true}.
+ *
+ * <p>The dial is drawn once per size and background and blitted after that,
+ * so a repaint clipped to the hands gives the same pixels as a full one:
+ * antialiased shapes crossing the clip would not.
+ */
+public class AnalogClockRenderer {
+
+    private static final BasicStroke HOUR_MARK_STROKE = new BasicStroke(3);
+    private static final BasicStroke MINUTE_MARK_STROKE = new BasicStroke(1);
+
+    private Color background = new Color(30, 30, 30); // Dark background
+    private DialGeometry dial;
+
+    private final CachedLayer faceLayer = new CachedLayer(true);
+    // Size of the face being painted into the layer
+    private int faceWidth;
+    private int faceHeight;
+    private final CachedLayer.Painter facePainter = g2 -> {
+        g2.setColor(background);
+        g2.fillRect(0, 0, faceWidth, faceHeight);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        drawClockFace(g2, faceWidth / 2, faceHeight / 2, radius(faceWidth, faceHeight));
+    };
+
+    public Color getBackground() {
+        return background;
+    }
+
+    public void setBackground(Color background) {
+        this.background = background;
+    }
+
+    /** Renders the clock at {@code time} over the whole of {@code target} and returns it. */
+    public BufferedImage render(BufferedImage target, LocalTime time) {
+        Graphics2D g2 = target.createGraphics();
+        try {
+            render(g2, target.getWidth(), target.getHeight(), time);
+        } finally {
+            g2.dispose();
+        }
+        return target;
+    }
+
+    /** Renders the clock at {@code time} into the {@code width} x {@code height} area at the origin of {@code g}. */
+    public void render(Graphics2D g2d, int width, int height, LocalTime time) {
+        faceWidth = width;
+        faceHeight = height;
+        g2d.drawImage(faceLayer.get(width, height, background.getRGB(), 0, facePainter), 0, 0, null);
+
+        // High quality rendering
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+
+        // Center of the clock
+        int cx = width / 2;
+        int cy = height / 2;
+
+        // Radius is slightly smaller than half the smallest dimension
+        int radius = radius(width, height);
+
+        drawHands(g2d, cx, cy, radius, time);
+        drawCenterPivot(g2d, cx, cy);
+    }
+
+    static int radius(int width, int height) {
+        return Math.min(width, height) / 2 - 20;
+    }
+
+    /** Bounds of the three hands and the pivot at {@code time}, padded for antialiasing. */
+    static Rectangle handsBounds(int width, int height, LocalTime time) {
+        int cx = width / 2;
+        int cy = height / 2;
+        int radius = radius(width, height);
+        double seconds = seconds(time);
+        Rectangle r = new Rectangle(cx - 6, cy - 6, 12, 12); // Center pivot
+        addHandBounds(r, cx, cy, Math.toRadians(30 * (time.getHour() % 12) + 0.5 * time.getMinute() - 90), 0, radius * 0.5, 5);
+        addHandBounds(r, cx, cy, Math.toRadians(6 * time.getMinute() + 0.1 * seconds - 90), 0, radius * 0.75, 4);
+        addHandBounds(r, cx, cy, Math.toRadians(6 * seconds - 90), 20, radius * 0.85, 3);
+        return r;
+    }
+
+    /** Seconds of the minute including the fraction, so a time with nanos puts the second hand between marks. */
+    private static double seconds(LocalTime time) {
+        return time.getSecond() + time.getNano() / 1e9;
+    }
+
+    private static void addHandBounds(Rectangle r, int cx, int cy, double angle, double tail, double length, int pad) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        int x1 = (int) Math.floor(Math.min(cx - cos * tail, cx + cos * length)) - pad;
+        int y1 = (int) Math.floor(Math.min(cy - sin * tail, cy + sin * length)) - pad;
+        int x2 = (int) Math.ceil(Math.max(cx - cos * tail, cx + cos * length)) + pad;
+        int y2 = (int) Math.ceil(Math.max(cy - sin * tail, cy + sin * length)) + pad;
+        r.add(new Rectangle(x1, y1, x2 - x1, y2 - y1));
+    }
+
+    void drawClockFace(Graphics2D g2, int cx, int cy, int radius) {
+        // Draw the outer rim
+        g2.setColor(new Color(50, 50, 50));
+        g2.fillOval(cx - radius, cy - radius, 2 * radius, 2 * radius);
+        
+        g2.setStroke(new BasicStroke(4));
+        g2.setColor(new Color(200, 200, 200));
+        g2.drawOval(cx - radius, cy - radius, 2 * radius, 2 * radius);
+
+        // Draw hour and minute marks, from the geometry cached for this size
+        if (dial == null || !dial.isFor(cx, cy, radius)) {
+            dial = DialGeometry.clockDial(cx, cy, radius);
+        }
+        for (int i = 0; i < dial.count; i++) {
+            if (dial.major[i]) {
+                // Hour mark
+                g2.setColor(Color.WHITE);
+                g2.setStroke(HOUR_MARK_STROKE);
+            } else {
+                // Minute mark
+                g2.setColor(Color.GRAY);
+                g2.setStroke(MINUTE_MARK_STROKE);
+            }
+            g2.drawLine(dial.x1[i], dial.y1[i], dial.x2[i], dial.y2[i]);
+        }
+    }
+
+    void drawHands(Graphics2D g2, int cx, int cy, int radius, LocalTime now) {
+        double second = seconds(now);
+        int minute = now.getMinute();
+        int hour = now.getHour();
+
+        // Calculate angles (subtract 90 degrees to start from 12 o'clock)
+        // Seconds: 6 degrees per second
+        double secondAngle = Math.toRadians(6 * second - 90);
+        
+        // Minutes: 6 degrees per minute + adjust for seconds
+        double minuteAngle = Math.toRadians(6 * minute + 0.1 * second - 90);
+        
+        // Hours: 30 degrees per hour + adjust for minutes
+        double hourAngle = Math.toRadians(30 * (hour % 12) + 0.5 * minute - 90);
+
+        // Draw Hour Hand
+        g2.setColor(Color.WHITE);
+        g2.setStroke(new BasicStroke(6, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        int hourLen = (int) (radius * 0.5);
+        g2.draw(new Line2D.Double(cx, cy, cx + Math.cos(hourAngle) * hourLen, cy + Math.sin(hourAngle) * hourLen));
+
+        // Draw Minute Hand
+        g2.setColor(new Color(220, 220, 220)); // Slightly off-white
+        g2.setStroke(new BasicStroke(4, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        int minuteLen = (int) (radius * 0.75);
+        g2.draw(new Line2D.Double(cx, cy, cx + Math.cos(minuteAngle) * minuteLen, cy + Math.sin(minuteAngle) * minuteLen));
+
+        // Draw Second Hand
+        g2.setColor(new Color(255, 50, 50)); // Red
+        g2.setStroke(new BasicStroke(2));
+        int secondLen = (int) (radius * 0.85);
+        int tailLen = 20; // Short tail in the opposite direction
+        g2.draw(new Line2D.Double(
+            cx - Math.cos(secondAngle) * tailLen, 
+            cy - Math.sin(secondAngle) * tailLen, 
+            cx + Math.cos(secondAngle) * secondLen, 
+            cy + Math.sin(secondAngle) * secondLen
+        ));
+    }
+
+    void drawCenterPivot(Graphics2D g2, int cx, int cy) {
+        g2.setColor(new Color(255, 50, 50));
+        int r = 5;
+        g2.fillOval(cx - r, cy - r, 2 * r, 2 * r);
+        
+        g2.setColor(Color.BLACK);
+        g2.setStroke(new BasicStroke(1));
+        g2.drawOval(cx - r, cy - r, 2 * r, 2 * r);
+    }
+}
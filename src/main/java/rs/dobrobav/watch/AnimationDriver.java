@@ -0,0 +1,173 @@
+package rs.dobrobav.watch;
+
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * One Swing timer that drives every clock in the JVM. Clocks schedule the
+ * next instant they change, and the driver keeps the pending instants in
+ * a queue ordered by time, with the timer armed for the earliest one.
+ *
+ * <p>When the timer fires, the time is read once and every entry that is due
+ * by then runs in that same EDT event. Clocks due at the same moment, such
+ * as every face whose second hand moves on the whole second, therefore tick
+ * together, and the repaints they request reach the {@code RepaintManager}
+ * as one batch. A tick costs one timer event plus a queue operation per due
+ * entry, however many clocks are waiting. An entry that is not scheduled
+ * again after it runs is forgotten. With nothing scheduled, the timer stops.
+ *
+ * <p>Not thread-safe: use it on the EDT only.
+ */
+final class AnimationDriver {
+
+    /** Something that runs on the EDT at an instant it asks for. */
+    abstract static class Entry {
+        private long due;
+        private long sequence;
+        private boolean queued;
+
+        /**
+         * Runs on the EDT once {@code nowNanos}, the {@code System.nanoTime}
+         * read for the whole tick, has reached the instant this entry was due.
+         */
+        abstract void run(long nowNanos);
+
+        /** Whether the entry is waiting to run. */
+        final boolean isScheduled() {
+            return queued;
+        }
+
+        /** The {@code nanoTime} the entry is due at, while it is scheduled. */
+        final long due() {
+            return due;
+        }
+    }
+
+    private static final AnimationDriver SHARED = new AnimationDriver();
+
+    // Earliest first; entries due together run in the order they were scheduled
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(
+            Comparator.comparingLong((Entry e) -> e.due).thenComparingLong(e -> e.sequence));
+    private final List<Entry> batch = new ArrayList<>();
+    private final Timer timer;
+    private long sequence;
+    private boolean ticking;
+    private long armedFor;
+
+    private long ticks;
+    private long runs;
+
+    AnimationDriver() {
+        timer = new Timer(0, e -> tick(System.nanoTime()));
+        timer.setRepeats(false);
+    }
+
+    static AnimationDriver shared() {
+        return SHARED;
+    }
+
+    /**
+     * Schedules {@code entry} to run at {@code dueNanos}, replacing the
+     * instant it was scheduled for, if any. Scheduling an entry that is not
+     * waiting, as clocks do from their own tick, takes logarithmic time;
+     * moving a waiting one, as input does, takes linear time.
+     */
+    void schedule(Entry entry, long dueNanos) {
+        if (entry.queued) {
+            queue.remove(entry);
+        }
+        entry.due = dueNanos;
+        entry.sequence = sequence++;
+        entry.queued = true;
+        queue.add(entry);
+        // During a tick the timer is armed once at its end
+        if (!ticking && (!timer.isRunning() || dueNanos - armedFor < 0)) {
+            arm(System.nanoTime());
+        }
+    }
+
+    /** Keeps {@code entry} from running, if it is waiting to. */
+    void cancel(Entry entry) {
+        if (entry.queued) {
+            queue.remove(entry);
+            entry.queued = false;
+            if (queue.isEmpty() && !ticking) {
+                timer.stop();
+            }
+        }
+    }
+
+    /** Runs {@code action} once on the EDT, {@code delayMillis} from now. */
+    void runLater(long delayMillis, Runnable action) {
+        schedule(new Entry() {
+            @Override
+            void run(long nowNanos) {
+                action.run();
+            }
+        }, System.nanoTime() + Math.max(0, delayMillis) * 1_000_000L);
+    }
+
+    /** Entries waiting to run. */
+    int size() {
+        return queue.size();
+    }
+
+    /** Timer events handled so far. */
+    long ticks() {
+        return ticks;
+    }
+
+    /** Entries run so far, across all ticks. */
+    long runs() {
+        return runs;
+    }
+
+    /** Runs every entry due by {@code nowNanos}, then arms the timer for the next one. */
+    void tick(long nowNanos) {
+        ticks++;
+        ticking = true;
+        int next = 0;
+        try {
+            // Take the whole batch first, so entries rescheduled for now wait for the next tick
+            while (!queue.isEmpty() && queue.peek().due - nowNanos <= 0) {
+                Entry entry = queue.poll();
+                entry.queued = false;
+                batch.add(entry);
+            }
+            while (next < batch.size()) {
+                runs++;
+                batch.get(next++).run(nowNanos);
+            }
+        } finally {
+            // One clock throwing must not stop the others: whatever did not run yet runs next tick
+            for (int i = next; i < batch.size(); i++) {
+                Entry entry = batch.get(i);
+                if (!entry.queued) {
+                    entry.sequence = sequence++;
+                    entry.queued = true;
+                    queue.add(entry);
+                }
+            }
+            batch.clear();
+            ticking = false;
+            arm(System.nanoTime());
+        }
+    }
+
+    private void arm(long nowNanos) {
+        Entry next = queue.peek();
+        if (next == null) {
+            timer.stop();
+            return;
+        }
+        // Rounded up, so the timer never fires before the entry is due; whatever else
+        // falls due within that last millisecond runs in the same tick
+        long millis = Math.max(0, (next.due - nowNanos + 999_999) / 1_000_000);
+        armedFor = next.due;
+        timer.setInitialDelay((int) Math.min(millis, Integer.MAX_VALUE));
+        timer.restart();
+    }
+}
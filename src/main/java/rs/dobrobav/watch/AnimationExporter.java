@@ -0,0 +1,627 @@
+package rs.dobrobav.watch;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Renders a span of time into an image sequence or an animated GIF straight
+ * from {@link WatchRenderer}, e.g. twelve hours at one frame per second, or
+ * a minute at 60 frames per second.
+ *
+ * <p>Frames are rendered in parallel, each worker with a renderer of its
+ * own, into a bounded queue that hands them to the calling thread in order;
+ * that thread alone writes the output through {@code ImageIO}. A worker can
+ * only start a frame while fewer than the queue's capacity are waiting to
+ * be written, and frame buffers are recycled, so memory stays the same
+ * however long the clip is.
+ *
+ * <p>Compressing a PNG takes several times longer than rendering its frame,
+ * so the workers compress PNG frames as well and the writer only stores the
+ * bytes. GIF frames are reduced to 256 colours on the workers too, all to
+ * one palette taken from the first frame, so the writer has nothing left
+ * to do but the LZW compression of the indexed pixels.
+ */
+public final class AnimationExporter {
+
+    public enum Format {
+        /** One PNG per frame, {@code frame-00000.png} onwards, in a directory. */
+        PNG_SEQUENCE,
+        /** One looping animated GIF. */
+        GIF
+    }
+
+    /** What an export wrote, and how fast. */
+    public static final class Result {
+        private final long frames;
+        private final long nanos;
+
+        Result(long frames, long nanos) {
+            this.frames = frames;
+            this.nanos = nanos;
+        }
+
+        public long frames() {
+            return frames;
+        }
+
+        public double seconds() {
+            return nanos / 1e9;
+        }
+
+        /** Frames rendered and written per second of wall time. */
+        public double framesPerSecond() {
+            return nanos == 0 ? 0 : frames / seconds();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d frames in %.1f s (%.1f fps)", frames, seconds(), framesPerSecond());
+        }
+    }
+
+    /** Frames rendered ahead of the writer, per worker. */
+    static final int FRAMES_AHEAD_PER_THREAD = 2;
+
+    // GIF delays are in hundredths of a second, and most viewers slow down anything under two
+    private static final int MIN_GIF_DELAY = 2;
+
+    private final int width;
+    private final int height;
+    private final ZoneId zone;
+    private final String zoneName;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 0; // Two frames per worker unless set
+    private boolean sweepSeconds = false;
+    private boolean stopwatchRunning = false;
+    private Color background = new Color(20, 20, 20); // Dark background
+
+    public AnimationExporter(int width, int height, ZoneId zone, String zoneName) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.zone = zone;
+        this.zoneName = zoneName;
+    }
+
+    /** Number of frames rendered at the same time; all cores by default. */
+    public void setThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /** Frames that may be rendered ahead of the writer, which bounds the memory an export holds. */
+    public void setQueueCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.queueCapacity = capacity;
+    }
+
+    public void setSweepSeconds(boolean sweep) {
+        this.sweepSeconds = sweep;
+    }
+
+    /** Runs the chronograph from the first frame on, so the clip shows it counting. */
+    public void setStopwatchRunning(boolean running) {
+        this.stopwatchRunning = running;
+    }
+
+    public void setBackground(Color background) {
+        this.background = background;
+    }
+
+    /**
+     * Renders {@code length} of time from {@code start} at {@code fps} frames
+     * per second of watch time and writes them to {@code out}: a directory
+     * for {@link Format#PNG_SEQUENCE}, created if needed, or a file for
+     * {@link Format#GIF}. The GIF plays back in real time, as closely as
+     * its hundredth-of-a-second delays allow, and no faster than 50 fps.
+     * Blocks until the last frame is written.
+     */
+    public Result export(Format format, Path out, Instant start, Duration length, double fps) throws IOException {
+        if (!(fps > 0)) {
+            throw new IllegalArgumentException("fps must be positive: " + fps);
+        }
+        long frames = (long) Math.floor(length.toNanos() / 1e9 * fps + 1e-9);
+        if (frames <= 0) {
+            throw new IllegalArgumentException("No frames in " + length + " at " + fps + " fps");
+        }
+        Encoder<?> encoder = format == Format.GIF
+                ? new GifEncoder(out, Math.max(MIN_GIF_DELAY, (int) Math.round(100 / fps)),
+                        GifEncoder.palette(renderFrame(newRenderer(), null, 0, start.toEpochMilli(), fps)))
+                : new PngSequenceEncoder(out, frames);
+        try {
+            return run(encoder, frames, start.toEpochMilli(), fps);
+        } finally {
+            encoder.close();
+        }
+    }
+
+    private <F> Result run(Encoder<F> encoder, long frames, long startMillis, double fps) throws IOException {
+        FrameQueue<F> queue = new FrameQueue<>(queueCapacity > 0 ? queueCapacity : threads * FRAMES_AHEAD_PER_THREAD);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "AnimationExporter render");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long started = System.nanoTime();
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers.execute(() -> renderFrames(encoder, queue, frames, startMillis, fps));
+            }
+            for (long frame = 0; frame < frames; frame++) {
+                F encoded = queue.take(frame);
+                encoder.write(encoded, frame);
+                queue.release(encoder.buffer(encoded));
+            }
+            encoder.finish();
+        } finally {
+            // Stops the workers early if encoding failed
+            queue.abort();
+            workers.shutdown();
+        }
+        return new Result(frames, System.nanoTime() - started);
+    }
+
+    /** Worker loop: renders and encodes whichever frame is next until there are none left. */
+    private <F> void renderFrames(Encoder<F> encoder, FrameQueue<F> queue, long frames, long startMillis, double fps) {
+        WatchRenderer renderer = newRenderer();
+        BufferedImage image = null; // Every frame is rendered here, then encoded out of it
+        try {
+            for (long frame; (frame = queue.claim(frames)) >= 0; ) {
+                image = renderFrame(renderer, image, frame, startMillis, fps);
+                queue.put(frame, encoder.encode(image, queue.recycled()));
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            queue.fail(e);
+        }
+    }
+
+    private WatchRenderer newRenderer() {
+        WatchRenderer renderer = new WatchRenderer();
+        renderer.setBackground(background);
+        return renderer;
+    }
+
+    /** Renders {@code frame} into {@code image}, or into a new image if that is {@code null}, and returns it. */
+    private BufferedImage renderFrame(WatchRenderer renderer, BufferedImage image, long frame, long startMillis,
+                                      double fps) {
+        if (image == null) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        long offset = Math.round(frame * 1000 / fps);
+        int flags = (sweepSeconds ? WatchRenderer.SWEEP_SECONDS : 0)
+                | (stopwatchRunning ? WatchRenderer.STOPWATCH_RUNNING : 0);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            renderer.render(g2, width, height, startMillis + offset, zone, zoneName,
+                    stopwatchRunning ? offset : 0, flags);
+        } finally {
+            g2.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Frames between the workers and the encoder, handed out in frame order.
+     * Frame {@code n} waits in slot {@code n % capacity}; a frame is only
+     * claimed while fewer than {@code capacity} are claimed and not yet
+     * released, so two waiting frames never share a slot.
+     */
+    private static final class FrameQueue<F> {
+        private final Object[] slots;
+        private final ArrayDeque<BufferedImage> free = new ArrayDeque<>();
+        private long claimed;
+        private long released;
+        private Throwable failure;
+        private boolean aborted;
+
+        FrameQueue(int capacity) {
+            slots = new Object[capacity];
+        }
+
+        /** The next frame to render, or -1 once all are claimed or the export stopped. */
+        synchronized long claim(long frames) {
+            while (claimed - released >= slots.length && !aborted) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+            return aborted || claimed >= frames ? -1 : claimed++;
+        }
+
+        /** A buffer the encoder is done with, or {@code null} if there is none yet. */
+        synchronized BufferedImage recycled() {
+            return free.poll();
+        }
+
+        synchronized void put(long frame, F encoded) {
+            slots[(int) (frame % slots.length)] = encoded;
+            notifyAll();
+        }
+
+        /** Waits for {@code frame} to be rendered. */
+        @SuppressWarnings("unchecked")
+        synchronized F take(long frame) throws IOException {
+            int slot = (int) (frame % slots.length);
+            while (slots[slot] == null) {
+                if (failure != null) {
+                    throw new IOException("Rendering a frame failed", failure);
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Export interrupted at frame " + frame);
+                }
+            }
+            F encoded = (F) slots[slot];
+            slots[slot] = null;
+            return encoded;
+        }
+
+        /** Marks a frame written, handing its buffer back for reuse if it has one. */
+        synchronized void release(BufferedImage image) {
+            if (image != null) {
+                free.push(image);
+            }
+            released++;
+            notifyAll();
+        }
+
+        synchronized void fail(Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+            aborted = true;
+            notifyAll();
+        }
+
+        synchronized void abort() {
+            aborted = true;
+            notifyAll();
+        }
+    }
+
+    /** Turns frames into output. {@code encode} runs on the workers, everything else on the writer. */
+    private interface Encoder<F> {
+        /**
+         * Encodes a rendered frame as far as can be done out of order, into
+         * {@code reuse} if it needs a buffer: one an earlier frame was encoded
+         * into and written from, or {@code null}. {@code frame} is rendered
+         * over once this returns.
+         */
+        F encode(BufferedImage frame, BufferedImage reuse) throws IOException;
+
+        /** The buffer {@code encoded} holds its pixels in, to reuse once it is written, or {@code null}. */
+        BufferedImage buffer(F encoded);
+
+        /** Writes frame number {@code index}; frames come in order. */
+        void write(F encoded, long index) throws IOException;
+
+        /** Completes the output after the last frame. */
+        void finish() throws IOException;
+
+        /** Frees the output, finished or not. */
+        void close() throws IOException;
+    }
+
+    private static final class PngSequenceEncoder implements Encoder<byte[]> {
+        private final Path dir;
+        private final String pattern;
+
+        PngSequenceEncoder(Path dir, long frames) throws IOException {
+            this.dir = Files.createDirectories(dir);
+            // Zero-padded, so the files sort in frame order
+            int digits = Math.max(5, Long.toString(frames - 1).length());
+            this.pattern = "frame-%0" + digits + "d.png";
+        }
+
+        @Override
+        public byte[] encode(BufferedImage frame, BufferedImage reuse) throws IOException {
+            ByteArrayOutputStream png = new ByteArrayOutputStream(64 << 10);
+            if (!ImageIO.write(frame, "png", png)) {
+                throw new IOException("No PNG writer available");
+            }
+            return png.toByteArray();
+        }
+
+        @Override
+        public BufferedImage buffer(byte[] encoded) {
+            return null;
+        }
+
+        @Override
+        public void write(byte[] encoded, long index) throws IOException {
+            Files.write(dir.resolve(String.format(Locale.ROOT, pattern, index)), encoded);
+        }
+
+        @Override
+        public void finish() {
+            // Every frame is a file of its own
+        }
+
+        @Override
+        public void close() {
+            // Nothing held open between frames
+        }
+    }
+
+    /** Up to 256 colours, and which of them each bin of colours is drawn with. */
+    private static final class Palette {
+        final IndexColorModel model;
+        final byte[] index;
+
+        Palette(IndexColorModel model, byte[] index) {
+            this.model = model;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Writes frames already reduced to one palette. The JDK's writer would
+     * otherwise build a palette for every RGB frame, on the writer thread;
+     * given indexed frames it only compresses them.
+     */
+    private static final class GifEncoder implements Encoder<BufferedImage> {
+        private static final String FORMAT = "javax_imageio_gif_image_1.0";
+        // Colours are counted in bins of 5 bits per channel
+        private static final int BIN_BITS = 5;
+
+        private final ImageWriter writer;
+        private final ImageOutputStream out;
+        private final Palette palette;
+        private final IIOMetadata firstFrame;
+        private final IIOMetadata nextFrames;
+
+        GifEncoder(Path file, int delayCentiseconds, Palette palette) throws IOException {
+            this.palette = palette;
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+            if (!writers.hasNext()) {
+                throw new IOException("No GIF writer available");
+            }
+            writer = writers.next();
+            Files.deleteIfExists(file);
+            out = ImageIO.createImageOutputStream(file.toFile());
+            if (out == null) {
+                throw new IOException("Cannot write " + file);
+            }
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            firstFrame = frameMetadata(delayCentiseconds, true);
+            nextFrames = frameMetadata(delayCentiseconds, false);
+        }
+
+        /** Metadata of one frame shown for {@code delay}; the first also makes the GIF loop forever. */
+        private IIOMetadata frameMetadata(int delay, boolean loop) throws IOException {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            IIOMetadata metadata = writer.getDefaultImageMetadata(
+                    new ImageTypeSpecifier(palette.model, palette.model.createCompatibleSampleModel(1, 1)), param);
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(FORMAT);
+
+            IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+            control.setAttribute("disposalMethod", "none");
+            control.setAttribute("userInputFlag", "FALSE");
+            control.setAttribute("transparentColorFlag", "FALSE");
+            control.setAttribute("delayTime", Integer.toString(delay));
+            control.setAttribute("transparentColorIndex", "0");
+            root.appendChild(control);
+
+            if (loop) {
+                IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+                IIOMetadataNode netscape = new IIOMetadataNode("ApplicationExtension");
+                netscape.setAttribute("applicationID", "NETSCAPE");
+                netscape.setAttribute("authenticationCode", "2.0");
+                netscape.setUserObject(new byte[] {1, 0, 0}); // Loop count 0: forever
+                extensions.appendChild(netscape);
+                root.appendChild(extensions);
+            }
+            metadata.mergeTree(FORMAT, root);
+            return metadata;
+        }
+
+        /**
+         * The 256 colours that cover most of {@code face}, each the mean of
+         * the pixels in its bin. The face keeps its colours from frame to
+         * frame, only the hands and counters move, so one palette serves the
+         * whole clip and colours never flicker between frames.
+         */
+        static Palette palette(BufferedImage face) {
+            int bins = 1 << (3 * BIN_BITS);
+            long[] counts = new long[bins];
+            long[] reds = new long[bins];
+            long[] greens = new long[bins];
+            long[] blues = new long[bins];
+            int[] row = new int[face.getWidth()];
+            for (int y = 0; y < face.getHeight(); y++) {
+                face.getRGB(0, y, row.length, 1, row, 0, row.length);
+                for (int rgb : row) {
+                    int bin = bin(rgb);
+                    counts[bin]++;
+                    reds[bin] += (rgb >> 16) & 0xff;
+                    greens[bin] += (rgb >> 8) & 0xff;
+                    blues[bin] += rgb & 0xff;
+                }
+            }
+            // Most used bins first; the count goes above the bin, so one sort orders both
+            long[] ranked = new long[bins];
+            for (int bin = 0; bin < bins; bin++) {
+                ranked[bin] = counts[bin] << (3 * BIN_BITS) | bin;
+            }
+            Arrays.sort(ranked);
+            byte[] r = new byte[256];
+            byte[] g = new byte[256];
+            byte[] b = new byte[256];
+            byte[] index = new byte[bins];
+            boolean[] assigned = new boolean[bins];
+            int colours = 0;
+            for (int i = bins - 1; i >= 0 && colours < 256; i--) {
+                int bin = (int) (ranked[i] & (bins - 1));
+                long count = counts[bin];
+                if (count == 0) {
+                    break;
+                }
+                r[colours] = (byte) (reds[bin] / count);
+                g[colours] = (byte) (greens[bin] / count);
+                b[colours] = (byte) (blues[bin] / count);
+                index[bin] = (byte) colours;
+                assigned[bin] = true;
+                colours++;
+            }
+            // Colours of every other bin, such as those the hands blend into later frames, go to the closest entry
+            int half = 1 << (7 - BIN_BITS);
+            for (int bin = 0; bin < bins; bin++) {
+                if (assigned[bin]) {
+                    continue;
+                }
+                int mask = (1 << BIN_BITS) - 1;
+                int red = ((bin >> (2 * BIN_BITS)) << (8 - BIN_BITS)) + half;
+                int green = (((bin >> BIN_BITS) & mask) << (8 - BIN_BITS)) + half;
+                int blue = ((bin & mask) << (8 - BIN_BITS)) + half;
+                int best = 0;
+                int bestDistance = Integer.MAX_VALUE;
+                for (int c = 0; c < colours; c++) {
+                    int dr = red - (r[c] & 0xff);
+                    int dg = green - (g[c] & 0xff);
+                    int db = blue - (b[c] & 0xff);
+                    int distance = dr * dr + dg * dg + db * db;
+                    if (distance < bestDistance) {
+                        best = c;
+                        bestDistance = distance;
+                    }
+                }
+                index[bin] = (byte) best;
+            }
+            return new Palette(new IndexColorModel(8, Math.max(2, colours), r, g, b), index);
+        }
+
+        private static int bin(int rgb) {
+            int shift = 8 - BIN_BITS;
+            return ((rgb >> 16) & 0xff) >> shift << (2 * BIN_BITS)
+                    | ((rgb >> 8) & 0xff) >> shift << BIN_BITS
+                    | (rgb & 0xff) >> shift;
+        }
+
+        @Override
+        public BufferedImage encode(BufferedImage frame, BufferedImage reuse) {
+            int w = frame.getWidth();
+            int h = frame.getHeight();
+            BufferedImage indexed = reuse != null ? reuse
+                    : new BufferedImage(w, h, BufferedImage.TYPE_BYTE_INDEXED, palette.model);
+            // Each pixel to its bin's entry, without dithering: the face is mostly flat and smooth
+            byte[] pixels = ((DataBufferByte) indexed.getRaster().getDataBuffer()).getData();
+            int[] row = new int[w];
+            for (int y = 0; y < h; y++) {
+                frame.getRGB(0, y, w, 1, row, 0, w);
+                for (int x = 0, i = y * w; x < w; x++, i++) {
+                    pixels[i] = palette.index[bin(row[x])];
+                }
+            }
+            return indexed;
+        }
+
+        @Override
+        public BufferedImage buffer(BufferedImage encoded) {
+            return encoded;
+        }
+
+        @Override
+        public void write(BufferedImage frame, long index) throws IOException {
+            writer.writeToSequence(new IIOImage(frame, null, index == 0 ? firstFrame : nextFrames), null);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.endWriteSequence();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.dispose();
+            out.close();
+        }
+    }
+
+    /**
+     * Exports from the command line, e.g. twelve hours at one frame per second:
+     * <pre>--from 2024-03-18T00:00:00Z --duration PT12H --fps 1 --png frames/</pre>
+     */
+    public static void main(String[] args) throws IOException {
+        Instant from = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Duration duration = Duration.ofSeconds(60);
+        double fps = 30;
+        int size = 750;
+        ZoneId zone = ZoneId.of("Europe/Belgrade");
+        Format format = null;
+        Path out = null;
+        boolean sweep = false;
+        boolean stopwatch = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--from": from = Instant.parse(args[++i]); break;
+                    case "--duration": duration = Duration.parse(args[++i]); break;
+                    case "--fps": fps = Double.parseDouble(args[++i]); break;
+                    case "--size": size = Integer.parseInt(args[++i]); break;
+                    case "--zone": zone = ZoneId.of(args[++i]); break;
+                    case "--threads": threads = Integer.parseInt(args[++i]); break;
+                    case "--sweep": sweep = true; break;
+                    case "--stopwatch": stopwatch = true; break;
+                    case "--png": format = Format.PNG_SEQUENCE; out = Paths.get(args[++i]); break;
+                    case "--gif": format = Format.GIF; out = Paths.get(args[++i]); break;
+                    default: throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (format == null) {
+                throw new IllegalArgumentException("Either --png <dir> or --gif <file> is required");
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: AnimationExporter (--png <dir> | --gif <file>) [--from <instant>]"
+                    + " [--duration <PnDTnHnMnS>] [--fps <n>] [--size <px>] [--zone <id>] [--threads <n>]"
+                    + " [--sweep] [--stopwatch]");
+            System.exit(2);
+            return;
+        }
+        AnimationExporter exporter = new AnimationExporter(size, size, zone, ZoneCatalog.label(zone));
+        exporter.setThreads(threads);
+        exporter.setSweepSeconds(sweep);
+        exporter.setStopwatchRunning(stopwatch);
+        System.out.println("Exported " + exporter.export(format, out, from, duration, fps));
+    }
+}
@@ -0,0 +1,88 @@
+package rs.dobrobav.watch;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * An offscreen image holding one layer of the watch face. The layer is
+ * re-rendered only when the panel size or its stamp changes, otherwise the
+ * previously rendered pixels are reused as-is.
+ */
+final class CachedLayer {
+
+    interface Painter {
+        void paint(Graphics2D g2);
+    }
+
+    private final boolean opaque;
+
+    private BufferedImage image;
+    private long stampA;
+    private long stampB;
+    private boolean valid = false;
+    private long version;
+
+    /** Creates a transparent layer, meant to be composited over the layers below it. */
+    CachedLayer() {
+        this(false);
+    }
+
+    /** Creates a layer; opaque layers must cover every pixel and blit without blending. */
+    CachedLayer(boolean opaque) {
+        this.opaque = opaque;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    boolean isCurrent(int w, int h, long a, long b) {
+        return valid && image != null && image.getWidth() == w && image.getHeight() == h
+                && stampA == a && stampB == b;
+    }
+
+    /** Counts repaints, so copies of the image can tell when they are out of date. */
+    long version() {
+        return version;
+    }
+
+    /** The image as last painted, without checking whether it is current. */
+    BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Returns the layer image for the given size and stamp, repainting it
+     * with {@code painter} only if something it depends on has changed.
+     */
+    BufferedImage get(int w, int h, long a, long b, Painter painter) {
+        if (isCurrent(w, h, a, b)) {
+            return image;
+        }
+        if (image == null || image.getWidth() != w || image.getHeight() != h) {
+            image = new BufferedImage(w, h, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        Graphics2D g2 = image.createGraphics();
+        try {
+            // Start from fully transparent pixels
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fillRect(0, 0, w, h);
+            g2.setComposite(AlphaComposite.SrcOver);
+
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            painter.paint(g2);
+        } finally {
+            g2.dispose();
+        }
+
+        stampA = a;
+        stampB = b;
+        valid = true;
+        version++;
+        return image;
+    }
+}
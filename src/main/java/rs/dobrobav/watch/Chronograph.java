@@ -0,0 +1,233 @@
+package rs.dobrobav.watch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * The stopwatch behind the DoWatch chronograph, safe to drive from any
+ * thread. Its whole state is one {@code long}, {@code (value << 1) | running}:
+ * while running the value is the {@code System.nanoTime} origin the elapsed
+ * time counts from, while stopped it is the elapsed time itself. Start, stop
+ * and reset are a single compare-and-set on that state, and readers take a
+ * {@link #snapshot()} that is always consistent, without locks. Changes may
+ * be timed at an earlier instant, such as that of the click that caused
+ * them, but never before the change they replace.
+ *
+ * <p>Laps go into a lock-free {@link LapBuffer}, numbered in the order they
+ * were timed, even when several threads take laps at once.
+ */
+public final class Chronograph {
+
+    private static final long RUNNING = 1;
+
+    private final AtomicLong state = new AtomicLong(); // Stopped at zero
+    private final AtomicLong changedAt = new AtomicLong(Long.MIN_VALUE); // Latest instant a change was timed at
+    private final LongSupplier nanoTime;
+    private final LapBuffer laps;
+    private volatile Runnable listener;
+
+    public Chronograph() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * A chronograph timed by {@code nanoTime}, which must never go
+     * backwards and stay within 2^62 of zero.
+     */
+    public Chronograph(LongSupplier nanoTime) {
+        this(nanoTime, new LapBuffer());
+    }
+
+    public Chronograph(LongSupplier nanoTime, LapBuffer laps) {
+        this.nanoTime = nanoTime;
+        this.laps = laps;
+    }
+
+    /** Starts the chronograph. Returns {@code false} if it was already running. */
+    public boolean start() {
+        return start(false, 0);
+    }
+
+    /**
+     * Starts the chronograph as of {@code atNanos} on its time source, e.g.
+     * the instant of the click that started it, so the time spent getting
+     * the click to this call is not lost. Returns {@code false} if it was
+     * already running.
+     */
+    public boolean start(long atNanos) {
+        return start(true, atNanos);
+    }
+
+    private boolean start(boolean timed, long atNanos) {
+        for (;;) {
+            long s = state.get();
+            if (isRunning(s)) {
+                return false;
+            }
+            long at = instant(timed, atNanos);
+            if (state.compareAndSet(s, pack(at - value(s), true))) {
+                changed();
+                return true;
+            }
+        }
+    }
+
+    /** Stops the chronograph. Returns {@code false} if it was already stopped. */
+    public boolean stop() {
+        return stop(false, 0);
+    }
+
+    /**
+     * Stops the chronograph as of {@code atNanos} on its time source, or as
+     * of its last start if that was later. Returns {@code false} if it was
+     * already stopped.
+     */
+    public boolean stop(long atNanos) {
+        return stop(true, atNanos);
+    }
+
+    private boolean stop(boolean timed, long atNanos) {
+        for (;;) {
+            long s = state.get();
+            if (!isRunning(s)) {
+                return false;
+            }
+            long at = instant(timed, atNanos);
+            if (state.compareAndSet(s, pack(at - value(s), false))) {
+                changed();
+                return true;
+            }
+        }
+    }
+
+    /** Starts the chronograph if it is stopped, stops it otherwise. Returns whether it now runs. */
+    public boolean toggle() {
+        return toggle(false, 0);
+    }
+
+    /** Same as {@link #toggle()}, as of {@code atNanos} like {@link #start(long)} and {@link #stop(long)}. */
+    public boolean toggle(long atNanos) {
+        return toggle(true, atNanos);
+    }
+
+    private boolean toggle(boolean timed, long atNanos) {
+        for (;;) {
+            long s = state.get();
+            boolean running = !isRunning(s);
+            long at = instant(timed, atNanos);
+            if (state.compareAndSet(s, pack(at - value(s), running))) {
+                changed();
+                return running;
+            }
+        }
+    }
+
+    /** Stops the chronograph at zero and forgets its laps. */
+    public void reset() {
+        // A start timed before the reset must not count the time up to it
+        changedAt.accumulateAndGet(nanoTime.getAsLong(), Math::max);
+        // The state goes first: a lap that still sees the old state fails its
+        // cursor check once the laps are cleared, and then finds it stopped
+        state.set(0);
+        laps.clear();
+        changed();
+    }
+
+    /**
+     * Records a lap at the current split and returns it in nanoseconds, or
+     * returns -1 without recording anything if the chronograph is stopped.
+     */
+    public long lap() {
+        return lap(false, 0);
+    }
+
+    /**
+     * Records a lap as of {@code atNanos} on the time source, like
+     * {@link #lap()}. Laps timed this way are expected to come from one
+     * thread in the order they happened, as input events do.
+     */
+    public long lap(long atNanos) {
+        return lap(true, atNanos);
+    }
+
+    private long lap(boolean timed, long atNanos) {
+        for (;;) {
+            long cursor = laps.cursor();
+            long s = state.get();
+            if (!isRunning(s)) {
+                return -1;
+            }
+            // Timed after the cursor was read: a lap that wins a later slot was timed later too
+            long split = Math.max(timed ? atNanos : nanoTime.getAsLong(), changedAt.get()) - value(s);
+            if (laps.tryRecord(cursor, split)) {
+                return split;
+            }
+        }
+    }
+
+    /**
+     * The instant a change to the state just read takes effect: now, read
+     * again on every attempt so a retry never applies an old reading to a
+     * newer state, or {@code atNanos} if the change is timed. Never before
+     * the change that left the state read, which is published before its
+     * compare-and-set: an earlier instant would count the time between the
+     * two again, or take back time already counted. The instant is
+     * published in turn before the caller's compare-and-set. One that loses
+     * may hold a later change to its own instant, so under contention a
+     * timed change can land a little late, never early.
+     */
+    private long instant(boolean timed, long atNanos) {
+        long at = Math.max(timed ? atNanos : nanoTime.getAsLong(), changedAt.get());
+        changedAt.accumulateAndGet(at, Math::max);
+        return at;
+    }
+
+    public LapBuffer laps() {
+        return laps;
+    }
+
+    /** The whole state in one read, for {@link #isRunning(long)} and {@link #elapsedNanos(long)}. */
+    public long snapshot() {
+        return state.get();
+    }
+
+    public static boolean isRunning(long snapshot) {
+        return (snapshot & RUNNING) != 0;
+    }
+
+    /** Elapsed time of {@code snapshot}, as of now if it was running. */
+    public long elapsedNanos(long snapshot) {
+        return isRunning(snapshot) ? nanoTime.getAsLong() - value(snapshot) : value(snapshot);
+    }
+
+    public boolean isRunning() {
+        return isRunning(state.get());
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos(state.get());
+    }
+
+    /**
+     * Called after every start, stop and reset, on the thread that made the
+     * change; not after laps, which must stay cheap. {@code null} for none.
+     */
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    private void changed() {
+        Runnable l = listener;
+        if (l != null) {
+            l.run();
+        }
+    }
+
+    private static long pack(long value, boolean running) {
+        return (value << 1) | (running ? RUNNING : 0);
+    }
+
+    private static long value(long snapshot) {
+        return snapshot >> 1;
+    }
+}
@@ -0,0 +1,162 @@
+package rs.dobrobav.watch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Precomputed tick mark endpoints and numeral anchors of one dial. The
+ * values only depend on where the dial is and how big it is, so they are
+ * worked out once per size and shared by every face drawn at that size,
+ * instead of running the trigonometry for each tick on every paint.
+ */
+final class DialGeometry {
+
+    // Enough for a handful of clock sizes without holding on to every size a window was dragged through
+    private static final int CACHE_SIZE = 32;
+
+    private static final Map<Key, DialGeometry> CACHE = new LinkedHashMap<Key, DialGeometry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, DialGeometry> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    final int cx;
+    final int cy;
+    final int radius;
+    final int count;
+
+    // Tick i runs from (x1[i], y1[i]) to (x2[i], y2[i])
+    final int[] x1;
+    final int[] y1;
+    final int[] x2;
+    final int[] y2;
+    /** Whether tick i is an hour mark rather than a minute mark. */
+    final boolean[] major;
+
+    // Text of the numeral next to tick i, or null, and the point it is centered on
+    final String[] numerals;
+    final int[] numeralX;
+    final int[] numeralY;
+
+    private DialGeometry(int cx, int cy, int radius, int count) {
+        this.cx = cx;
+        this.cy = cy;
+        this.radius = radius;
+        this.count = count;
+        x1 = new int[count];
+        y1 = new int[count];
+        x2 = new int[count];
+        y2 = new int[count];
+        major = new boolean[count];
+        numerals = new String[count];
+        numeralX = new int[count];
+        numeralY = new int[count];
+    }
+
+    boolean isFor(int cx, int cy, int radius) {
+        return this.cx == cx && this.cy == cy && this.radius == radius;
+    }
+
+    /** The main DoWatch dial: hour indices every fifth minute, minute ticks in between. */
+    static DialGeometry watchDial(int cx, int cy, int radius) {
+        return lookup(new Key("watch", cx, cy, radius, 0), () -> {
+            DialGeometry d = new DialGeometry(cx, cy, radius, 60);
+            for (int i = 0; i < 60; i++) {
+                double angle = Math.toRadians(6 * i - 90);
+                d.major[i] = i % 5 == 0;
+                if (d.major[i]) {
+                    d.setTick(i, angle, radius - 31, radius - 6);
+                } else {
+                    d.setTick(i, angle, radius - 12, radius - 6);
+                }
+            }
+            return d;
+        });
+    }
+
+    /**
+     * A DoWatch sub-dial with twelve ticks. If {@code numbered}, every third
+     * tick gets a numeral on a scale of {@code fullScale} (24 or 60), with the
+     * full value shown at the top.
+     */
+    static DialGeometry subDial(int cx, int cy, int radius, int fullScale, boolean numbered) {
+        return lookup(new Key("sub", cx, cy, radius, numbered ? fullScale : 0), () -> {
+            DialGeometry d = new DialGeometry(cx, cy, radius, 12);
+            for (int i = 0; i < 12; i++) {
+                double angle = Math.toRadians(30 * i - 90);
+                d.setTick(i, angle, radius - 5, radius);
+                if (numbered && i % 3 == 0) {
+                    int value = i * fullScale / 12;
+                    d.numerals[i] = String.valueOf(value == 0 ? fullScale : value);
+                    d.numeralX[i] = (int) (cx + Math.cos(angle) * (radius - 15));
+                    d.numeralY[i] = (int) (cy + Math.sin(angle) * (radius - 15));
+                }
+            }
+            return d;
+        });
+    }
+
+    /** The {@link AnalogClock} dial: long hour marks and short minute marks. */
+    static DialGeometry clockDial(int cx, int cy, int radius) {
+        return lookup(new Key("clock", cx, cy, radius, 0), () -> {
+            DialGeometry d = new DialGeometry(cx, cy, radius, 60);
+            for (int i = 0; i < 60; i++) {
+                double angle = Math.toRadians(6 * i - 90);
+                d.major[i] = i % 5 == 0;
+                d.setTick(i, angle, d.major[i] ? radius - 20 : radius - 10, radius - 5);
+            }
+            return d;
+        });
+    }
+
+    private void setTick(int i, double angle, int startR, int endR) {
+        x1[i] = (int) (cx + Math.cos(angle) * startR);
+        y1[i] = (int) (cy + Math.sin(angle) * startR);
+        x2[i] = (int) (cx + Math.cos(angle) * endR);
+        y2[i] = (int) (cy + Math.sin(angle) * endR);
+    }
+
+    private static DialGeometry lookup(Key key, Supplier<DialGeometry> builder) {
+        synchronized (CACHE) {
+            DialGeometry geometry = CACHE.get(key);
+            if (geometry == null) {
+                geometry = builder.get();
+                CACHE.put(key, geometry);
+            }
+            return geometry;
+        }
+    }
+
+    private static final class Key {
+        private final String kind;
+        private final int cx;
+        private final int cy;
+        private final int radius;
+        private final int variant;
+
+        Key(String kind, int cx, int cy, int radius, int variant) {
+            this.kind = kind;
+            this.cx = cx;
+            this.cy = cy;
+            this.radius = radius;
+            this.variant = variant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return kind.equals(k.kind) && cx == k.cx && cy == k.cy && radius == k.radius && variant == k.variant;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, cx, cy, radius, variant);
+        }
+    }
+}
@@ -3,43 +3,129 @@ package rs.dobrobav.watch;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.image.BufferedImage;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.geom.*;
-import java.time.LocalTime;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
 
 public class DoWatch extends JPanel {
 
     private static final int WIDTH = 750;
     private static final int HEIGHT = 750;
+    private static final int FRAME_MILLIS = 50; // Frame cadence while the chronograph runs
+    // Sweep frame rate: about a pixel of second hand travel per frame, within these bounds
+    private static final int MIN_SWEEP_FPS = 10;
+    private static final int MAX_SWEEP_FPS = 60;
+    private static final int LAP_LIST_LINES = 4;
+    private static final Rectangle LAP_LIST_BOUNDS = new Rectangle(8, 8, 180, 12 + LAP_LIST_LINES * 15);
+    private static final Font LAP_LIST_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color LAP_LIST_COLOR = new Color(200, 200, 200);
+    private static final int METRICS_LINES = 6;
+    private static final Dimension METRICS_SIZE = new Dimension(250, 12 + METRICS_LINES * 15);
+    private static final Color METRICS_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final long METRICS_REFRESH_NANOS = 1_000_000_000L;
+    private static final long MAX_INPUT_AGE_MILLIS = 1000; // Input older than this counts as this old
+    private static final int RESIZE_SETTLE_MILLIS = 200; // Quiet time after which a resize counts as done
 
-    private String[] zoneNames = {"BELGRADE", "LONDON", "NEW YORK", "TOKYO", "SYDNEY", "MOSCOW", "DUBAI", "LOS ANGELES"};
-    private ZoneId[] zones = {
-        ZoneId.systemDefault(),
-        ZoneId.of("Europe/London"),
-        ZoneId.of("America/New_York"),
-        ZoneId.of("Asia/Tokyo"),
-        ZoneId.of("Australia/Sydney"),
-        ZoneId.of("Europe/Moscow"),
-        ZoneId.of("Asia/Dubai"),
-        ZoneId.of("America/Los_Angeles")
-    };
-    private int currentZoneIndex = 0;
-
-    // Stopwatch variables
-    private boolean stopwatchRunning = false;
-    private long stopwatchStartTime = 0;
-    private long stopwatchElapsedTime = 0;
+    private static final int SEARCH_LINES = 6;
+    private static final Dimension SEARCH_SIZE = new Dimension(260, 12 + (SEARCH_LINES + 1) * 15);
+    private static final Color SEARCH_SELECTED = new Color(255, 200, 80);
+
+    // Cities ENTER cycles through, also used by WatchCanvas
+    static final ZoneCatalog FAVOURITES = ZoneCatalog.of(
+            "Europe/Belgrade",
+            "Europe/London",
+            "America/New_York",
+            "Asia/Tokyo",
+            "Australia/Sydney",
+            "Europe/Moscow",
+            "Asia/Dubai",
+            "America/Los_Angeles");
+    private ZoneCatalog.Entry zone = FAVOURITES.get(0);
+    private int favouriteIndex = 0;
+
+    // Zones to search, and type-to-search while it is open (Ctrl+F)
+    private ZoneCatalog catalog = ZoneCatalog.available();
+    private boolean searching = false;
+    private final StringBuilder searchQuery = new StringBuilder();
+    private List<ZoneCatalog.Entry> searchMatches = Collections.emptyList();
+    private int searchSelected;
+    private ZoneCatalog.Entry zoneBeforeSearch;
+    private final StringBuilder searchLine = new StringBuilder(48);
+
+    // Stopwatch, may also be driven from other threads
+    private Chronograph chronograph;
+
+    // Lap list readout, and the lap cursor it was last repainted for
+    private final StringBuilder lapLine = new StringBuilder(32);
+    private long lapListCursor;
 
     private boolean topBtnPressed = false;
     private boolean bottomBtnPressed = false;
-    private Rectangle2D topBtnRect;
-    // Bottom button rect is for drawing, but not mouse interaction anymore
-    private Rectangle2D bottomBtnRect;
+
+    // Draws the face; keeps the cached layers between frames
+    private WatchRenderer renderer;
+    private boolean handSprites = false;
+
+    // Size the renderer's layers were built for; other sizes are previewed until a resize settles
+    private int settledWidth;
+    private int settledHeight;
+    private final Timer resizeSettle;
+    private int resizeGeneration;
+
+    // Sweeping second hand, and the deadlines animated frames are paced to
+    private boolean sweepSeconds = false;
+    private final FramePacer pacer = new FramePacer(FRAME_MILLIS * 1_000_000L);
+
+    // Frame timing, published over JMX while the watch is showing, and its overlay
+    private final FrameMetrics metrics = new FrameMetrics();
+    private final StringBuilder metricsLine = new StringBuilder(48);
+    private boolean metricsShown = false;
+    private long metricsRefreshed;
+
+    // Parallel rendering for very large faces, off unless enabled
+    private TiledRenderer tiledRenderer;
+    private BufferedImage tiledFrame;
+
+    // Where the moving hands were last painted, for dirty-region repaints
+    private Rectangle handsRegion;
+    private int handsRegionWidth;
+    private int handsRegionHeight;
+    private long handsRegionTime; // Whole seconds, or milliseconds while sweeping
+    private long handsRegionStopwatch;
+    private long handsRegionDay;
+
+    // Time shown by the next paint, captured together with the dirty region
+    private long frameMillis;
+    private long frameStopwatch;
+    private long frameChronograph;
+    private boolean frameCaptured = false;
+
+    private Clock clock = Clock.systemUTC();
+    private LongSupplier nanoTime = System::nanoTime; // The stopwatch's time source
+
+    // When the input the next paint shows happened, by System.nanoTime, for the input latency metric
+    private long inputStarted;
+    private boolean inputPending = false;
+
+    private final TickScheduler scheduler;
 
     // Timer for handling long press on top button
     private Timer longPressTimer;
@@ -50,15 +136,22 @@ public class DoWatch extends JPanel {
         setBackground(new Color(20, 20, 20)); // Dark background
         setFocusable(true);
         requestFocusInWindow();
+
+        // Ticks only when something visibly changes, and not at all while hidden or minimized
+        scheduler = new TickScheduler(this, this::tick);
+        setChronograph(new Chronograph());
+        renderer = newRenderer();
+        renderer.setMetrics(metrics);
+        scheduler.setMetrics(metrics);
+
+        resizeSettle = new Timer(RESIZE_SETTLE_MILLIS, e -> rebuildForSize());
+        resizeSettle.setRepeats(false);
         
         // Initialize Long Press Timer (e.g., 800ms hold time)
         longPressTimer = new Timer(800, e -> {
             isLongPressProcessed = true;
             // Reset Stopwatch
-            stopwatchRunning = false;
-            stopwatchElapsedTime = 0;
-            stopwatchStartTime = 0;
-            repaint();
+            chronograph.reset();
         });
         longPressTimer.setRepeats(false);
 
@@ -66,11 +159,11 @@ public class DoWatch extends JPanel {
             @Override
             public void mousePressed(MouseEvent e) {
                 // Top button - Setup for Toggle or Reset
-                if (topBtnRect != null && topBtnRect.contains(e.getPoint())) {
+                if (WatchRenderer.topButtonHitBounds(getWidth(), getHeight()).contains(e.getPoint())) {
                     topBtnPressed = true;
                     isLongPressProcessed = false;
                     longPressTimer.restart();
-                    repaint();
+                    repaintButton(true);
                 }
             }
 
@@ -82,19 +175,16 @@ public class DoWatch extends JPanel {
                     
                     // Only toggle if it wasn't a long press (Reset)
                     if (!isLongPressProcessed) {
-                        if (stopwatchRunning) {
-                            // Stop
-                            stopwatchRunning = false;
-                            stopwatchElapsedTime += System.currentTimeMillis() - stopwatchStartTime;
-                        } else {
-                            // Start
-                            stopwatchRunning = true;
-                            stopwatchStartTime = System.currentTimeMillis();
-                        }
+                        // Start or Stop, as of the release itself rather than whenever it got here
+                        chronograph.toggle(inputNanos(e.getWhen()));
+                        topBtnPressed = false;
+                        // The listener has captured the new stopwatch state: show it without waiting for a tick
+                        paintImmediately(WatchRenderer.buttonRepaintBounds(getWidth(), getHeight(), true)
+                                .union(WatchRenderer.chronographBounds(getWidth(), getHeight())));
+                    } else {
+                        topBtnPressed = false;
+                        repaintButton(true);
                     }
-                    
-                    topBtnPressed = false;
-                    repaint();
                 }
             }
         });
@@ -109,473 +199,801 @@ public class DoWatch extends JPanel {
                 repaint();
                 
                 // Change zone logic
-                currentZoneIndex = (currentZoneIndex + 1) % zones.length;
+                favouriteIndex = (favouriteIndex + 1) % FAVOURITES.size();
+                setZone(FAVOURITES.get(favouriteIndex));
                 
                 // Release button after short delay
-                Timer releaseTimer = new Timer(150, evt -> {
+                AnimationDriver.shared().runLater(150, () -> {
                     bottomBtnPressed = false;
-                    repaint();
+                    repaintButton(false);
                 });
-                releaseTimer.setRepeats(false);
-                releaseTimer.start();
             }
         });
-        
-        Timer timer = new Timer(50, new ActionListener() { // Increased refresh rate for stopwatch smoothness
+
+        // Key Binding for L - Lap, while the stopwatch runs
+        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_L, 0), "lap");
+        getActionMap().put("lap", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                repaint();
+                lap(e.getWhen());
+            }
+        });
+
+        // Key Binding for W - Sweeping or ticking second hand
+        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_W, 0), "toggleSweep");
+        getActionMap().put("toggleSweep", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setSweepSeconds(!sweepSeconds);
+            }
+        });
+
+        // Key Binding for M - Show or hide frame metrics
+        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_M, 0), "toggleMetrics");
+        getActionMap().put("toggleMetrics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                metricsShown = !metricsShown;
+                repaint(metricsBounds());
+            }
+        });
+
+        // Key Binding for Ctrl+F - Search for a zone by typing its city
+        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_F, KeyEvent.CTRL_DOWN_MASK), "searchZone");
+        getActionMap().put("searchZone", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startSearch();
             }
         });
-        timer.start();
+        // While searching, keys edit the query instead of triggering the bindings above
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (searching) {
+                    searchKeyPressed(e);
+                    e.consume();
+                }
+            }
+
+            @Override
+            public void keyTyped(KeyEvent e) {
+                if (searching) {
+                    char c = e.getKeyChar();
+                    if (c >= ' ' && c != KeyEvent.CHAR_UNDEFINED && c != 127) {
+                        searchQuery.append(c);
+                        updateSearch();
+                    }
+                    e.consume();
+                }
+            }
+        });
+
+        // Key Binding for Ctrl+S - Save the laps as CSV
+        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_S, KeyEvent.CTRL_DOWN_MASK), "exportLaps");
+        getActionMap().put("exportLaps", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                chooseLapExport();
+            }
+        });
+    }
+
+    /** Shows the time in {@code zone}. */
+    public void setZone(ZoneCatalog.Entry zone) {
+        this.zone = zone;
+        handsRegion = null; // Hands jump, the next tick repaints the whole face
+        repaint();
+        scheduler.wake();
+    }
+
+    public ZoneCatalog.Entry getZone() {
+        return zone;
+    }
+
+    /** Replaces the zones Ctrl+F searches, all available ones by default. */
+    public void setZoneCatalog(ZoneCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /** Opens type-to-search: typed text picks the zone, ENTER keeps it, ESC goes back. */
+    void startSearch() {
+        if (searching) {
+            return;
+        }
+        searching = true;
+        zoneBeforeSearch = zone;
+        searchQuery.setLength(0);
+        updateSearch();
+    }
+
+    boolean isSearching() {
+        return searching;
+    }
+
+    /** Replaces the query, as if typed. */
+    void search(String query) {
+        searchQuery.setLength(0);
+        searchQuery.append(query);
+        updateSearch();
+    }
+
+    /** Looks up the query and shows the best match right away. */
+    private void updateSearch() {
+        searchMatches = catalog.search(searchQuery.toString(), SEARCH_LINES);
+        selectMatch(0);
+        repaint(searchBounds());
+    }
+
+    private void selectMatch(int index) {
+        searchSelected = index;
+        if (index < searchMatches.size() && searchMatches.get(index) != zone) {
+            setZone(searchMatches.get(index));
+        }
+    }
+
+    private void searchKeyPressed(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_ENTER:
+                endSearch(true);
+                break;
+            case KeyEvent.VK_ESCAPE:
+                endSearch(false);
+                break;
+            case KeyEvent.VK_UP:
+                if (searchSelected > 0) {
+                    selectMatch(searchSelected - 1);
+                    repaint(searchBounds());
+                }
+                break;
+            case KeyEvent.VK_DOWN:
+                if (searchSelected + 1 < searchMatches.size()) {
+                    selectMatch(searchSelected + 1);
+                    repaint(searchBounds());
+                }
+                break;
+            case KeyEvent.VK_BACK_SPACE:
+                if (searchQuery.length() > 0) {
+                    searchQuery.setLength(searchQuery.length() - 1);
+                    updateSearch();
+                }
+                break;
+            default:
+                break; // Text arrives as typed characters
+        }
+    }
+
+    /** Closes the search, keeping the zone found or going back to the one before. */
+    void endSearch(boolean keep) {
+        if (!searching) {
+            return;
+        }
+        searching = false;
+        repaint(searchBounds());
+        if (!keep) {
+            setZone(zoneBeforeSearch);
+        } else if (FAVOURITES.indexOf(zone) >= 0) {
+            favouriteIndex = FAVOURITES.indexOf(zone); // ENTER goes on from here
+        }
+        zoneBeforeSearch = null;
+    }
+
+    private Rectangle searchBounds() {
+        return new Rectangle(getWidth() - 8 - SEARCH_SIZE.width, 8, SEARCH_SIZE.width, SEARCH_SIZE.height);
+    }
+
+    /** Shows the query and its matches in the top right corner. */
+    private void drawSearch(Graphics2D g2) {
+        Rectangle bounds = searchBounds();
+        Rectangle clip = g2.getClipBounds();
+        if (clip != null && !clip.intersects(bounds)) {
+            return;
+        }
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setColor(METRICS_BACKGROUND);
+        g2.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g2.setFont(LAP_LIST_FONT);
+        g2.setColor(LAP_LIST_COLOR);
+        int x = bounds.x + 6;
+        int y = bounds.y + 15;
+        searchLine.setLength(0);
+        searchLine.append("zone> ").append(searchQuery).append('_');
+        g2.drawString(searchLine.toString(), x, y);
+        for (int i = 0; i < searchMatches.size(); i++) {
+            y += 15;
+            // City and offset, e.g. "> NEW YORK             UTC-05:00"
+            ZoneCatalog.Entry match = searchMatches.get(i);
+            searchLine.setLength(0);
+            searchLine.append(i == searchSelected ? "> " : "  ").append(match.name());
+            while (searchLine.length() < 22) {
+                searchLine.append(' ');
+            }
+            searchLine.append(' ').append(match.offsetLabel());
+            g2.setColor(i == searchSelected ? SEARCH_SELECTED : LAP_LIST_COLOR);
+            g2.drawString(searchLine.toString(), x, y);
+        }
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialiasing);
+    }
+
+    /** Records a lap at the current split. Does nothing while the stopwatch is stopped. */
+    void lap() {
+        if (chronograph.lap() >= 0) {
+            repaint(LAP_LIST_BOUNDS);
+        }
+    }
+
+    /** Records a lap at the split of the input event with timestamp {@code when}. */
+    void lap(long when) {
+        if (chronograph.lap(inputNanos(when)) >= 0) {
+            repaint(LAP_LIST_BOUNDS);
+        }
+    }
+
+    /**
+     * The stopwatch time at which the input event with timestamp {@code when}
+     * happened, and the start of its latency, measured up to the paint that
+     * shows it.
+     */
+    private long inputNanos(long when) {
+        long age = inputAgeMillis(when, clock.millis());
+        inputStarted = System.nanoTime() - age * 1_000_000L;
+        inputPending = true;
+        return nanoTime.getAsLong() - age * 1_000_000L;
+    }
+
+    /**
+     * How long ago an input event with timestamp {@code when} happened, given
+     * the wall clock reads {@code nowMillis}. Event timestamps come from the
+     * wall clock, so a clock step could make them look far off; the age is
+     * kept within a second.
+     */
+    static long inputAgeMillis(long when, long nowMillis) {
+        return Math.max(0, Math.min(MAX_INPUT_AGE_MILLIS, nowMillis - when));
+    }
+
+    /**
+     * Makes the second hand sweep smoothly instead of jumping once a second.
+     * Frames then come at a rate that moves its tip about a pixel each,
+     * paced to fixed deadlines.
+     */
+    public void setSweepSeconds(boolean sweep) {
+        if (sweep == sweepSeconds) {
+            return;
+        }
+        sweepSeconds = sweep;
+        handsRegion = null; // The hands jump to the new mode, repaint them all
+        repaint();
+        scheduler.wake();
+    }
+
+    public boolean isSweepSeconds() {
+        return sweepSeconds;
+    }
+
+    /** Timing of this watch's frames, also registered as an MBean while it is showing. */
+    public FrameMetrics getFrameMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        try {
+            // The first watch is "DoWatch", further ones get a number
+            metrics.registerNumbered("DoWatch");
+        } catch (JMException | SecurityException e) {
+            // Metrics still work locally and in the overlay
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        try {
+            metrics.unregister();
+        } catch (JMException | SecurityException e) {
+            // Nothing left to clean up that we could reach
+        }
+        super.removeNotify();
+    }
+
+    /**
+     * The stopwatch this watch shows. It can be started, stopped, reset and
+     * lapped from any thread; the face follows on the next frame.
+     */
+    public Chronograph getChronograph() {
+        return chronograph;
+    }
+
+    /** Writes every lap held, oldest first, as CSV to {@code out}. */
+    public void exportLaps(Writer out) throws IOException {
+        chronograph.laps().writeCsv(out);
+        out.flush();
+    }
+
+    private void chooseLapExport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("laps.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try (Writer out = Files.newBufferedWriter(chooser.getSelectedFile().toPath(), StandardCharsets.UTF_8)) {
+            exportLaps(out);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Could not save laps: " + ex.getMessage(),
+                    "Export laps", JOptionPane.ERROR_MESSAGE);
+        }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        
-        Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        // One time snapshot per frame, shared by every layer
+        if (!frameCaptured) {
+            frameMillis = clock.millis();
+            frameChronograph = chronograph.snapshot();
+            frameStopwatch = chronograph.elapsedNanos(frameChronograph) / 1_000_000L;
+            frameCaptured = true;
+        }
+        long frameStart = metrics.frameStarted();
+        if (tiledRenderer != null) {
+            paintTiled((Graphics2D) g);
+        } else {
+            renderer.setBackground(getBackground());
+            int w = getWidth();
+            int h = getHeight();
+            boolean resizing = settledWidth > 0 && (w != settledWidth || h != settledHeight);
+            if (resizing) {
+                // Still being resized: scale the last full-quality face, rebuild once it settles
+                resizeSettle.restart();
+            }
+            if (!resizing || !renderer.renderPreview((Graphics2D) g, w, h, frameMillis,
+                    zone.zone(), frameStopwatch, renderFlags())) {
+                // The primitive entry point saves creating a WatchState on every frame
+                renderer.render((Graphics2D) g, w, h, frameMillis,
+                        zone.zone(), zone.name(), frameStopwatch, renderFlags());
+                if (settledWidth == 0) {
+                    settledWidth = w;
+                    settledHeight = h;
+                }
+            }
+        }
+        metrics.frameFinished(frameStart);
+        if (inputPending) {
+            inputPending = false;
+            metrics.inputPainted(System.nanoTime() - inputStarted);
+        }
+        drawLapList((Graphics2D) g);
+        if (metricsShown) {
+            drawMetrics((Graphics2D) g);
+        }
+        if (searching) {
+            drawSearch((Graphics2D) g);
+        }
+    }
+
+    private Rectangle metricsBounds() {
+        return new Rectangle(8, getHeight() - 8 - METRICS_SIZE.height, METRICS_SIZE.width, METRICS_SIZE.height);
+    }
 
+    /** Shows the frame metrics in the bottom left corner. */
+    private void drawMetrics(Graphics2D g2) {
+        Rectangle bounds = metricsBounds();
+        Rectangle clip = g2.getClipBounds();
+        if (clip != null && !clip.intersects(bounds)) {
+            return;
+        }
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setColor(METRICS_BACKGROUND);
+        g2.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g2.setFont(LAP_LIST_FONT);
+        g2.setColor(LAP_LIST_COLOR);
+        int x = bounds.x + 6;
+        int y = bounds.y + 15;
+        for (int line = 0; line < METRICS_LINES; line++) {
+            metricsLine.setLength(0);
+            appendMetricsLine(metricsLine, line);
+            g2.drawString(metricsLine.toString(), x, y);
+            y += 15;
+        }
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialiasing);
+    }
+
+    private void appendMetricsLine(StringBuilder sb, int line) {
+        switch (line) {
+            case 0:
+                sb.append("frame p50 ");
+                appendMillis(sb, metrics.getFrameMillisP50());
+                sb.append(" p99 ");
+                appendMillis(sb, metrics.getFrameMillisP99());
+                sb.append(" max ");
+                appendMillis(sb, metrics.getMaxFrameMillis());
+                break;
+            case 1:
+                sb.append("case ");
+                appendMillis(sb, metrics.stageMillis(FrameMetrics.Stage.CASE));
+                sb.append(" dial ");
+                appendMillis(sb, metrics.stageMillis(FrameMetrics.Stage.DIAL));
+                sb.append(" sub ");
+                appendMillis(sb, metrics.stageMillis(FrameMetrics.Stage.SUB_DIALS));
+                break;
+            case 2:
+                sb.append("hand ");
+                appendMillis(sb, metrics.stageMillis(FrameMetrics.Stage.HANDS));
+                sb.append(" refl ");
+                appendMillis(sb, metrics.stageMillis(FrameMetrics.Stage.REFLECTION));
+                sb.append(" blit ");
+                appendMillis(sb, metrics.stageMillis(FrameMetrics.Stage.COMPOSITE));
+                break;
+            case 3:
+                sb.append("tick late ").append(metrics.getLateTimerFires())
+                        .append(" missed ").append(metrics.getMissedFrames())
+                        .append(" merged ").append(metrics.getCoalescedRepaints());
+                break;
+            case 4:
+                sb.append("input p99 ");
+                appendMillis(sb, metrics.getInputLatencyMillisP99());
+                sb.append(" max ");
+                appendMillis(sb, metrics.getMaxInputLatencyMillis());
+                break;
+            default:
+                sb.append("alloc ").append(Math.round(metrics.getAllocatedBytesPerFrame()))
+                        .append(" B gc ").append(metrics.getGcCount())
+                        .append(" in frames ").append(metrics.getFramesDuringGc());
+                break;
+        }
+    }
+
+    /** Appends {@code millis} with two decimals. */
+    private static void appendMillis(StringBuilder sb, double millis) {
+        long hundredths = Math.round(millis * 100);
+        sb.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) {
+            sb.append('0');
+        }
+        sb.append(hundredths % 100);
+    }
+
+    /** Lists the last few laps in the top left corner, next to the face. */
+    private void drawLapList(Graphics2D g2) {
+        LapBuffer laps = chronograph.laps();
+        long count = laps.count();
+        Rectangle clip = g2.getClipBounds();
+        if (count == 0 || (clip != null && !clip.intersects(LAP_LIST_BOUNDS))) {
+            return;
+        }
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(LAP_LIST_FONT);
+        g2.setColor(LAP_LIST_COLOR);
+        int y = LAP_LIST_BOUNDS.y + 15;
+        for (long number = Math.max(laps.first(count), count - LAP_LIST_LINES + 1); number <= count; number++) {
+            long lap = laps.lap(number);
+            long split = laps.split(number);
+            if (lap < 0 || split < 0) {
+                continue; // Reset by another thread since count was read
+            }
+            // Lap number, lap time and split, e.g. "12  0:03.417  1:02.345"
+            lapLine.setLength(0);
+            if (number < 10) {
+                lapLine.append(' ');
+            }
+            lapLine.append(number).append("  ");
+            appendLapTime(lapLine, lap);
+            lapLine.append("  ");
+            appendLapTime(lapLine, split);
+            g2.drawString(lapLine.toString(), LAP_LIST_BOUNDS.x + 4, y);
+            y += 15;
+        }
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialiasing);
+    }
+
+    /** Appends {@code nanos} as m:ss.mmm. */
+    private static void appendLapTime(StringBuilder sb, long nanos) {
+        long millis = nanos / 1_000_000L;
+        long seconds = millis / 1000;
+        sb.append(seconds / 60).append(':');
+        if (seconds % 60 < 10) {
+            sb.append('0');
+        }
+        sb.append(seconds % 60).append('.');
+        long fraction = millis % 1000;
+        if (fraction < 100) {
+            sb.append('0');
+        }
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+
+    /** Rasterizes the tiles under the clip in parallel, then blits the frame on the EDT. */
+    private void paintTiled(Graphics2D g2) {
         int w = getWidth();
         int h = getHeight();
-        int cx = w / 2;
-        int cy = h / 2;
-        int radius = Math.min(w, h) / 2 - 50;
-
-        drawButtons(g2d, cx, cy, radius);
-        drawCrown(g2d, cx, cy, radius);
-        drawCase(g2d, cx, cy, radius);
-        drawDial(g2d, cx, cy, radius);
-        
-        // Sub-dials
-        drawStopwatch(g2d, cx, cy, radius);           // Bottom (6 o'clock) - Seconds
-        draw24hDial(g2d, cx, cy, radius);             // Left (9 o'clock) - 24h Time
-        drawStopwatchMinuteDial(g2d, cx, cy, radius); // Right (3 o'clock) - Stopwatch Minutes
-        
-        drawHands(g2d, cx, cy, radius);
-        drawCrystalReflection(g2d, cx, cy, radius);
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        // Only the tiles under the clip are redrawn, unless the frame is new
+        Rectangle area = g2.getClipBounds();
+        if (tiledFrame == null || tiledFrame.getWidth() != w || tiledFrame.getHeight() != h) {
+            tiledFrame = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            area = null;
+        }
+        WatchState state = new WatchState(Instant.ofEpochMilli(frameMillis), zone.zone(),
+                zone.name(), frameStopwatch, Chronograph.isRunning(frameChronograph),
+                topBtnPressed, bottomBtnPressed, sweepSeconds);
+        tiledRenderer.setBackground(getBackground());
+        tiledRenderer.render(tiledFrame, state, area);
+        g2.drawImage(tiledFrame, 0, 0, null);
+    }
+
+    /**
+     * Switches to drawing every frame by rasterizing tiles in parallel on the
+     * common fork/join pool, instead of from cached layers on the EDT. Pays
+     * off for poster-sized and 4K faces on machines with several cores.
+     *
+     * <p>Tiles only join without visible seams when the JVM runs without
+     * path clipping, set before anything was drawn; see {@link TiledRenderer}.
+     *
+     * @throws IllegalStateException if enabled while
+     *         {@link TiledRenderer#PATH_CLIPPING_PROPERTY} is not {@code false}
+     */
+    public void setTiledRendering(boolean enabled) {
+        if (enabled == (tiledRenderer != null)) {
+            return;
+        }
+        if (enabled && !TiledRenderer.isExact()) {
+            throw new IllegalStateException("Tiled rendering needs -D" + TiledRenderer.PATH_CLIPPING_PROPERTY
+                    + "=false at startup");
+        }
+        tiledRenderer = enabled ? new TiledRenderer(ForkJoinPool.commonPool(), TiledRenderer.DEFAULT_TILE_SIZE) : null;
+        tiledFrame = null;
+        repaint();
     }
 
-    private void draw24hDial(Graphics2D g2, int cx, int cy, int mainRadius) {
-        // Left sub-dial at 9 o'clock
-        int subRadius = mainRadius / 4; // Approx 80px
-        int subCx = cx - mainRadius / 2 - 10;
-        int subCy = cy;
+    public boolean isTiledRendering() {
+        return tiledRenderer != null;
+    }
 
-        // Draw Face
-        drawSubDialFace(g2, subCx, subCy, subRadius);
+    /** Draws the hour and minute hands from pre-rendered sprites, see {@link WatchRenderer#setHandSprites}. */
+    public void setHandSprites(boolean enabled) {
+        handSprites = enabled;
+        renderer.setHandSprites(enabled);
+        repaint();
+    }
 
-        // Markings (0 - 24)
-        for (int i = 0; i < 24; i += 2) {
-            double angle = Math.toRadians(15 * i - 90); // 15 degrees per hour
-            int startR = subRadius - 5;
-            int endR = subRadius;
-            
-            g2.setColor(Color.LIGHT_GRAY);
-            g2.setStroke(new BasicStroke(1.5f));
-            g2.drawLine(
-                (int) (subCx + Math.cos(angle) * startR), (int) (subCy + Math.sin(angle) * startR),
-                (int) (subCx + Math.cos(angle) * endR), (int) (subCy + Math.sin(angle) * endR)
-            );
-            
-            // Numbers for 0, 6, 12, 18
-            if (i % 6 == 0) {
-                 g2.setFont(new Font("SansSerif", Font.PLAIN, 10));
-                 String num = String.valueOf(i);
-                 if (i == 0) num = "24";
-                 FontMetrics fm = g2.getFontMetrics();
-                 int txtX = (int) (subCx + Math.cos(angle) * (subRadius - 15)) - fm.stringWidth(num) / 2;
-                 int txtY = (int) (subCy + Math.sin(angle) * (subRadius - 15)) + fm.getAscent() / 2 - 1;
-                 g2.drawString(num, txtX, txtY);
+    public boolean isHandSprites() {
+        return handSprites;
+    }
+
+    private WatchRenderer newRenderer() {
+        WatchRenderer fresh = new WatchRenderer();
+        // Zone names are laid out up front, so ENTER never waits for text layout
+        fresh.preloadZoneNames(FAVOURITES.names());
+        fresh.setHandSprites(handSprites);
+        fresh.setBackground(getBackground());
+        return fresh;
+    }
+
+    /** Whether the panel is being shown at a size its face has not been fully built for yet. */
+    boolean isResizing() {
+        return settledWidth > 0 && (getWidth() != settledWidth || getHeight() != settledHeight);
+    }
+
+    /**
+     * Builds every layer of the face for the current size on a background
+     * thread, then swaps the new renderer in on the EDT in one step. A
+     * rebuild the size has moved on from by then is dropped. The returned
+     * future completes after the swap.
+     */
+    CompletableFuture<Void> rebuildForSize() {
+        int w = getWidth();
+        int h = getHeight();
+        int generation = ++resizeGeneration;
+        if (!isResizing()) {
+            return CompletableFuture.completedFuture(null); // Back at the settled size
+        }
+        WatchRenderer fresh = newRenderer();
+        long millis = clock.millis();
+        long stopwatch = chronograph.elapsedNanos() / 1_000_000L;
+        ZoneId zone = this.zone.zone();
+        String zoneName = this.zone.name();
+        int flags = renderFlags();
+        return CompletableFuture.runAsync(() -> {
+            // Painting into a 1x1 image builds all layers at full size, and blits next to nothing
+            BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = scratch.createGraphics();
+            try {
+                fresh.render(g2, w, h, millis, zone, zoneName, stopwatch, flags);
+            } finally {
+                g2.dispose();
+            }
+        }, ForkJoinPool.commonPool()).thenRunAsync(() -> {
+            if (generation != resizeGeneration || w != getWidth() || h != getHeight()) {
+                return; // Resized again meanwhile, the next rebuild takes over
             }
+            fresh.setMetrics(metrics);
+            renderer.setMetrics(null);
+            renderer = fresh;
+            settledWidth = w;
+            settledHeight = h;
+            repaint();
+        }, SwingUtilities::invokeLater);
+    }
+
+    private int renderFlags() {
+        return (Chronograph.isRunning(frameChronograph) ? WatchRenderer.STOPWATCH_RUNNING : 0)
+                | (topBtnPressed ? WatchRenderer.TOP_PRESSED : 0)
+                | (bottomBtnPressed ? WatchRenderer.BOTTOM_PRESSED : 0)
+                | (sweepSeconds ? WatchRenderer.SWEEP_SECONDS : 0);
+    }
+
+    /**
+     * Works out which part of the panel has to be repainted for the hands to
+     * show the current time: the union of where they were last painted and
+     * where they are now. Returns {@code null} if nothing has moved.
+     */
+    Rectangle updateHandsRegion() {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0) {
+            return null;
         }
-        
-        // Label
-        g2.setFont(new Font("SansSerif", Font.PLAIN, 9));
-        String lbl = "24H";
-        FontMetrics fm = g2.getFontMetrics();
-        g2.drawString(lbl, subCx - fm.stringWidth(lbl)/2, subCy + 15);
-
-        // Hand Logic
-        ZonedDateTime now = ZonedDateTime.now(zones[currentZoneIndex]);
-        double hour24 = now.getHour() + now.getMinute() / 60.0;
-        double angle = Math.toRadians(15 * hour24 - 90);
-
-        drawSubHand(g2, subCx, subCy, angle, subRadius - 5, Color.WHITE);
-    }
-
-    private void drawStopwatchMinuteDial(Graphics2D g2, int cx, int cy, int mainRadius) {
-        // Right sub-dial at 3 o'clock
-        int subRadius = mainRadius / 4;
-        int subCx = cx + mainRadius / 2 + 10;
-        int subCy = cy;
-
-        // Draw Face
-        drawSubDialFace(g2, subCx, subCy, subRadius);
-
-        // Markings (0 - 60)
-        for (int i = 0; i < 60; i += 5) {
-            double angle = Math.toRadians(6 * i - 90);
-            int startR = subRadius - 5;
-            int endR = subRadius;
-            
-            g2.setColor(Color.LIGHT_GRAY);
-            g2.setStroke(new BasicStroke(1.5f));
-            g2.drawLine(
-                (int) (subCx + Math.cos(angle) * startR), (int) (subCy + Math.sin(angle) * startR),
-                (int) (subCx + Math.cos(angle) * endR), (int) (subCy + Math.sin(angle) * endR)
-            );
-            
-            // Numbers for 15, 30, 45, 60
-            if (i % 15 == 0) {
-                 g2.setFont(new Font("SansSerif", Font.PLAIN, 10));
-                 String num = String.valueOf(i);
-                 if (i == 0) num = "60";
-                 FontMetrics fm = g2.getFontMetrics();
-                 int txtX = (int) (subCx + Math.cos(angle) * (subRadius - 15)) - fm.stringWidth(num) / 2;
-                 int txtY = (int) (subCy + Math.sin(angle) * (subRadius - 15)) + fm.getAscent() / 2 - 1;
-                 g2.drawString(num, txtX, txtY);
+        // A single reading of the clock for the hands and the date, and one snapshot of the stopwatch
+        long millis = clock.millis();
+        long chronographState = chronograph.snapshot();
+        long stopwatchTime = chronograph.elapsedNanos(chronographState) / 1_000_000L;
+        long time = sweepSeconds ? millis : Math.floorDiv(millis, 1000L);
+        if (handsRegion != null && w == handsRegionWidth && h == handsRegionHeight
+                && time == handsRegionTime && stopwatchTime == handsRegionStopwatch
+                && chronographState == frameChronograph) {
+            return null;
+        }
+
+        ZoneId zone = this.zone.zone();
+        long day = WatchRenderer.epochDay(millis, zone);
+        Rectangle current = WatchRenderer.handsBounds(w, h, millis, zone, stopwatchTime, sweepSeconds);
+        Rectangle dirty;
+        if (handsRegion != null && w == handsRegionWidth && h == handsRegionHeight) {
+            dirty = current.union(handsRegion);
+            if (day != handsRegionDay) {
+                dirty.add(WatchRenderer.dateWindowBounds(w, h));
             }
+        } else {
+            // After a resize the whole face moves
+            dirty = new Rectangle(0, 0, w, h);
         }
-        
-        // Label
-        g2.setFont(new Font("SansSerif", Font.PLAIN, 9));
-        String lbl = "MIN";
-        FontMetrics fm = g2.getFontMetrics();
-        g2.drawString(lbl, subCx - fm.stringWidth(lbl)/2, subCy + 15);
-
-        // Hand Logic
-        long time = stopwatchElapsedTime;
-        if (stopwatchRunning) {
-            time += System.currentTimeMillis() - stopwatchStartTime;
-        }
-        long totalSeconds = time / 1000;
-        double minutesVal = totalSeconds / 60.0; // Continuous movement
-        double angle = Math.toRadians(6 * minutesVal - 90); // 6 degrees per minute (0-60 scale)
-
-        drawSubHand(g2, subCx, subCy, angle, subRadius - 5, new Color(255, 100, 100));
-    }
-
-    private void drawSubDialFace(Graphics2D g2, int cx, int cy, int radius) {
-        g2.setColor(new Color(20, 25, 40));
-        g2.fillOval(cx - radius, cy - radius, radius * 2, radius * 2);
-        g2.setColor(new Color(80, 80, 80));
-        g2.setStroke(new BasicStroke(1.5f));
-        g2.drawOval(cx - radius, cy - radius, radius * 2, radius * 2);
-    }
-    
-    private void drawSubHand(Graphics2D g2, int cx, int cy, double angle, int length, Color color) {
-        g2.setColor(color);
-        g2.setStroke(new BasicStroke(2));
-        g2.drawLine(cx, cy, 
-            (int)(cx + Math.cos(angle) * length), 
-            (int)(cy + Math.sin(angle) * length));
-        g2.fillOval(cx - 2, cy - 2, 4, 4);
-    }
-
-    private void drawCrown(Graphics2D g2, int cx, int cy, int radius) {
-        // Crown at 3 o'clock position
-        int crownW = 15;
-        int crownH = 25;
-        int caseOuterRadius = radius + 25;
-        int crownX = cx + caseOuterRadius - 3;
-        int crownY = cy - crownH / 2;
-
-        g2.setColor(new Color(160, 160, 160));
-        g2.fillRoundRect(crownX, crownY, crownW, crownH, 5, 5);
-        g2.setColor(new Color(80, 80, 80));
-        g2.drawRoundRect(crownX, crownY, crownW, crownH, 5, 5);
-
-        // Draw ribs on the crown
-        g2.setColor(new Color(100, 100, 100));
-        for (int i = 2; i < crownH; i += 4) {
-            g2.drawLine(crownX, crownY + i, crownX + crownW, crownY + i);
-        }
-    }
-
-    private void drawStopwatch(Graphics2D g2, int cx, int cy, int mainRadius) {
-        // Sub-dial at 6 o'clock
-        int subRadius = mainRadius / 4;
-        int subCx = cx;
-        int subCy = cy + mainRadius / 2 + 10; // Positioned lower half
-
-        // Sub-dial face
-        g2.setColor(new Color(20, 25, 40));
-        g2.fillOval(subCx - subRadius, subCy - subRadius, subRadius * 2, subRadius * 2);
-        g2.setColor(new Color(100, 100, 100));
-        g2.setStroke(new BasicStroke(1.5f));
-        g2.drawOval(subCx - subRadius, subCy - subRadius, subRadius * 2, subRadius * 2);
-
-        // Sub-dial markings (seconds)
-        for (int i = 0; i < 60; i += 5) {
-            double angle = Math.toRadians(6 * i - 90);
-            int startR = subRadius - 5;
-            int endR = subRadius;
-            
-            g2.setColor(Color.LIGHT_GRAY);
-            g2.drawLine(
-                (int) (subCx + Math.cos(angle) * startR), (int) (subCy + Math.sin(angle) * startR),
-                (int) (subCx + Math.cos(angle) * endR), (int) (subCy + Math.sin(angle) * endR)
-            );
+        handsRegion = current;
+        handsRegionWidth = w;
+        handsRegionHeight = h;
+        handsRegionTime = time;
+        handsRegionStopwatch = stopwatchTime;
+        handsRegionDay = day;
+
+        // Paint exactly the state the region was computed for, otherwise a late paint
+        // could put a hand outside of the repainted area
+        frameMillis = millis;
+        frameStopwatch = stopwatchTime;
+        frameChronograph = chronographState;
+        frameCaptured = true;
+        return dirty;
+    }
+
+    private void repaintMovedHands() {
+        Rectangle dirty = updateHandsRegion();
+        if (dirty != null) {
+            metrics.repaintRequested();
+            repaint(dirty);
         }
+    }
 
-        // Calculate time
-        long time = stopwatchElapsedTime;
-        if (stopwatchRunning) {
-            time += System.currentTimeMillis() - stopwatchStartTime;
+    /** Repaints moved hands and returns the delay until they next move. */
+    private long tick(long now) {
+        repaintMovedHands();
+        // Laps may come from other threads, which do not repaint
+        long cursor = chronograph.laps().cursor();
+        if (cursor != lapListCursor) {
+            lapListCursor = cursor;
+            repaint(LAP_LIST_BOUNDS);
         }
-        
-        // Calculate hand angle (60 seconds per revolution)
-        long totalSeconds = time / 1000;
-        long millis = time % 1000;
-        double secondsVal = totalSeconds % 60 + millis / 1000.0;
-        double angle = Math.toRadians(6 * secondsVal - 90);
-
-        // Draw hand
-        g2.setColor(new Color(255, 100, 100)); // Red hand
-        g2.setStroke(new BasicStroke(2));
-        g2.drawLine(subCx, subCy, 
-            (int)(subCx + Math.cos(angle) * (subRadius - 5)), 
-            (int)(subCy + Math.sin(angle) * (subRadius - 5)));
-            
-        g2.fillOval(subCx - 2, subCy - 2, 4, 4);
-    }
-
-    private void drawButtons(Graphics2D g2, int cx, int cy, int radius) {
-        // Calculate common dimensions
-        int btnWidth = 20;
-        int btnHeight = 40;
-        // The case outer radius is roughly radius + 25 (see drawCase)
-        // We want buttons to stick out.
-        // X position where button starts (attached to case)
-        int caseOuterRadius = radius + 25;
-        int btnBaseX = cx + caseOuterRadius - 5; // Slight overlap with case
-
-        // Define hit-test rectangles (static positions)
-        int topBtnY = cy - 60;
-        int bottomBtnY = cy + 30;
-
-        // Update hit boxes for MouseListener
-        // Note: Hit boxes should cover the visible area. 
-        // If the button moves, strictly the hit box moves, but for UI feel keeping it static or covering the max area is often better.
-        // Let's make the hit box cover the extended position.
-        topBtnRect = new Rectangle2D.Double(btnBaseX, topBtnY, btnWidth, btnHeight);
-        bottomBtnRect = new Rectangle2D.Double(btnBaseX, bottomBtnY, btnWidth, btnHeight);
-
-        // Draw Top Button
-        int drawX = btnBaseX;
-        if (topBtnPressed) {
-            drawX -= 5; // Move "down" (inwards)
+        if (metricsShown && System.nanoTime() - metricsRefreshed >= METRICS_REFRESH_NANOS) {
+            metricsRefreshed = System.nanoTime();
+            repaint(metricsBounds());
         }
-        
-        g2.setColor(new Color(180, 180, 180)); // Metallic button
-        g2.fill(new RoundRectangle2D.Double(drawX, topBtnY, btnWidth, btnHeight, 5, 5));
-        g2.setColor(new Color(100, 100, 100));
-        g2.draw(new RoundRectangle2D.Double(drawX, topBtnY, btnWidth, btnHeight, 5, 5));
+        boolean running = chronograph.isRunning();
+        if (running || sweepSeconds) {
+            // Hands move continuously, so frames follow a fixed grid of deadlines
+            pacer.setPeriod(framePeriodNanos(running, sweepSeconds, getWidth(), getHeight()));
+            return pacer.frame(now);
+        }
+        // Otherwise nothing changes until the next whole second
+        pacer.reset();
+        return 1000 - Math.floorMod(clock.millis(), 1000L);
+    }
 
-        // Draw Bottom Button
-        drawX = btnBaseX;
-        if (bottomBtnPressed) {
-            drawX -= 5; // Move "down" (inwards)
+    /**
+     * Period of animated frames for a face of the given size: the stopwatch
+     * cadence while it runs, the sweep period while sweeping, whichever is
+     * shorter.
+     */
+    static long framePeriodNanos(boolean running, boolean sweep, int width, int height) {
+        long period = running ? FRAME_MILLIS * 1_000_000L : Long.MAX_VALUE;
+        if (sweep) {
+            period = Math.min(period, sweepPeriodNanos(width, height));
         }
-        
-        g2.setColor(new Color(180, 180, 180));
-        g2.fill(new RoundRectangle2D.Double(drawX, bottomBtnY, btnWidth, btnHeight, 5, 5));
-        g2.setColor(new Color(100, 100, 100));
-        g2.draw(new RoundRectangle2D.Double(drawX, bottomBtnY, btnWidth, btnHeight, 5, 5));
-    }
-
-    private void drawCase(Graphics2D g2, int cx, int cy, int radius) {
-        // Metallic Case - Brushed Steel look
-        GradientPaint metal = new GradientPaint(
-            cx - radius, cy - radius, new Color(200, 200, 200),
-            cx + radius, cy + radius, new Color(100, 100, 100)
-        );
-        g2.setPaint(metal);
-        g2.fillOval(cx - radius - 25, cy - radius - 25, (radius + 25) * 2, (radius + 25) * 2);
-        
-        // Inner Bezel Ring
-        g2.setColor(new Color(30, 30, 30));
-        g2.setStroke(new BasicStroke(2.5f));
-        g2.drawOval(cx - radius, cy - radius, radius * 2, radius * 2);
-    }
-
-    private void drawDial(Graphics2D g2, int cx, int cy, int radius) {
-        // Dial Face - Deep Navy/Black sunburst effect simulation (simplified to solid for Swing)
-        g2.setColor(new Color(10, 15, 30)); 
-        g2.fillOval(cx - radius, cy - radius, radius * 2, radius * 2);
-
-        // Citizen Logo
-        g2.setColor(Color.LIGHT_GRAY);
-        g2.setFont(new Font("SansSerif", Font.BOLD, 18));
-        FontMetrics fm = g2.getFontMetrics();
-        String logo = "CITIZEN";
-        g2.drawString(logo, cx - fm.stringWidth(logo) / 2, cy - radius / 2);
-        
-        g2.setFont(new Font("SansSerif", Font.PLAIN, 13));
-        String subText = "Eco-Drive";
-        fm = g2.getFontMetrics();
-        g2.drawString(subText, cx - fm.stringWidth(subText) / 2, cy - radius / 2 + 19);
-
-        g2.setFont(new Font("SansSerif", Font.PLAIN, 11));
-        String radioText = "RADIO CONTROLLED";
-        fm = g2.getFontMetrics();
-        g2.drawString(radioText, cx - fm.stringWidth(radioText) / 2, cy - radius / 2 + 38);
-
-        // Zone Name Display - Moved up slightly
-        g2.setColor(new Color(200, 200, 200));
-        g2.setFont(new Font("SansSerif", Font.BOLD, 16));
-        String zoneText = zoneNames[currentZoneIndex];
-        fm = g2.getFontMetrics();
-        g2.drawString(zoneText, cx - fm.stringWidth(zoneText) / 2, cy - 50);
-
-        // Designer Text at bottom
-        g2.setColor(new Color(150, 150, 150));
-        g2.setFont(new Font("SansSerif", Font.PLAIN, 11));
-        String designText = "DESIGNED BY DOBROSAV VLASKOVIC";
-        fm = g2.getFontMetrics();
-        g2.drawString(designText, cx - fm.stringWidth(designText) / 2, cy + radius - 50);
-
-        // Hour Markers
-        for (int i = 0; i < 60; i++) {
-            double angle = Math.toRadians(6 * i - 90);
-            
-            if (i % 5 == 0) {
-                // Hour Indices
-                int hour = i / 5;
-                if (hour == 0) hour = 12;
+        return period;
+    }
 
-                int startR = radius - 31;
-                int endR = radius - 6;
-                
-                // Draw "12" explicitly as requested
-                if (hour == 12) {
-                    g2.setColor(Color.WHITE);
-                    g2.setFont(new Font("Serif", Font.BOLD, 45));
-                    String num = "12";
-                    fm = g2.getFontMetrics();
-                    // Draw slightly inside the tick marks
-                    g2.drawString(num, cx - fm.stringWidth(num) / 2, cy - radius + 75);
-                    
-                    // Small marker above 12
-                     g2.setStroke(new BasicStroke(5));
-                     g2.setColor(new Color(220, 220, 220));
-                     g2.drawLine(
-                        (int) (cx + Math.cos(angle) * startR), (int) (cy + Math.sin(angle) * startR),
-                        (int) (cx + Math.cos(angle) * endR), (int) (cy + Math.sin(angle) * endR)
-                    );
-                } else {
-                    // Regular baton markers for other hours
-                    g2.setStroke(new BasicStroke(5));
-                    g2.setColor(new Color(220, 220, 220)); // Steel indices
-                    g2.drawLine(
-                        (int) (cx + Math.cos(angle) * startR), (int) (cy + Math.sin(angle) * startR),
-                        (int) (cx + Math.cos(angle) * endR), (int) (cy + Math.sin(angle) * endR)
-                    );
-                }
+    /** Frame period at which the tip of the sweeping second hand moves about one pixel per frame. */
+    private static long sweepPeriodNanos(int width, int height) {
+        double tipRadius = WatchRenderer.R * 0.9 * WatchRenderer.scale(width, height);
+        double pixelsPerSecond = 2 * Math.PI * tipRadius / 60;
+        double fps = Math.max(MIN_SWEEP_FPS, Math.min(MAX_SWEEP_FPS, pixelsPerSecond));
+        return (long) (1e9 / fps);
+    }
+
+    /** Repaints the area a button can cover, pressed or released. */
+    private void repaintButton(boolean top) {
+        repaint(WatchRenderer.buttonRepaintBounds(getWidth(), getHeight(), top));
+    }
+
+    /** Replaces the time source, so tests can paint the watch at fixed instants. */
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** Replaces the stopwatch with one timed by {@code nanoTime}, so tests can control it. */
+    void setNanoTime(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        setChronograph(new Chronograph(nanoTime));
+    }
+
+    private void setChronograph(Chronograph chronograph) {
+        this.chronograph = chronograph;
+        // Start, stop and reset can happen on any thread; the face is only touched on the EDT
+        chronograph.setListener(() -> {
+            if (SwingUtilities.isEventDispatchThread()) {
+                chronographChanged();
             } else {
-                // Minute ticks
-                g2.setStroke(new BasicStroke(1.2f));
-                g2.setColor(new Color(100, 100, 100));
-                g2.drawLine(
-                    (int) (cx + Math.cos(angle) * (radius - 12)), (int) (cy + Math.sin(angle) * (radius - 12)),
-                    (int) (cx + Math.cos(angle) * (radius - 6)), (int) (cy + Math.sin(angle) * (radius - 6))
-                );
+                SwingUtilities.invokeLater(this::chronographChanged);
             }
-        }
-        
-        // Date Window at 4 o'clock position (approx angle 30 degrees)
-        double dateAngle = Math.toRadians(30); 
-        int dateDist = radius - 60; // Slightly inside
-        int dateW = 42; // Increased width (was 30)
-        int dateH = 32; // Increased height (was 23)
-        int dateX = (int)(cx + Math.cos(dateAngle) * dateDist) - dateW / 2;
-        int dateY = (int)(cy + Math.sin(dateAngle) * dateDist) - dateH / 2;
-        
-        // Rotate for 4 o'clock alignment? No, usually horizontal.
-        g2.setColor(Color.WHITE);
-        g2.fillRect(dateX, dateY, dateW, dateH);
-        g2.setColor(Color.BLACK);
-        g2.setFont(new Font("SansSerif", Font.BOLD, 18)); // Slightly larger/bolder font
-        
-        String dateStr = "18";
-        FontMetrics dateFm = g2.getFontMetrics();
-        int dateTextX = dateX + (dateW - dateFm.stringWidth(dateStr)) / 2;
-        int dateTextY = dateY + (dateH - dateFm.getHeight()) / 2 + dateFm.getAscent();
-        
-        g2.drawString(dateStr, dateTextX, dateTextY); 
-        g2.setColor(Color.GRAY);
-        g2.setStroke(new BasicStroke(1));
-        g2.drawRect(dateX, dateY, dateW, dateH);
-    }
-
-    private void drawHands(Graphics2D g2, int cx, int cy, int radius) {
-        ZonedDateTime now = ZonedDateTime.now(zones[currentZoneIndex]);
-        int second = now.getSecond();
-        int minute = now.getMinute();
-        int hour = now.getHour();
-
-        double secondAngle = Math.toRadians(6 * second - 90);
-        double minuteAngle = Math.toRadians(6 * minute + 0.1 * second - 90);
-        double hourAngle = Math.toRadians(30 * (hour % 12) + 0.5 * minute - 90);
-
-        // Hour Hand (Sword shape)
-        g2.setColor(new Color(230, 230, 230));
-        drawSwordHand(g2, cx, cy, hourAngle, radius * 0.55, 8);
-
-        // Minute Hand (Sword shape)
-        g2.setColor(new Color(230, 230, 230));
-        drawSwordHand(g2, cx, cy, minuteAngle, radius * 0.8, 5);
-
-        // Second Hand (Citizen often has a simple thin needle, sometimes yellow or white)
-        g2.setColor(new Color(200, 180, 50)); // Gold/Yellowish accent
-        g2.setStroke(new BasicStroke(1));
-        int secLen = (int) (radius * 0.9);
-        int tailLen = 31;
-        g2.drawLine(
-            (int)(cx - Math.cos(secondAngle) * tailLen), (int)(cy - Math.sin(secondAngle) * tailLen),
-            (int)(cx + Math.cos(secondAngle) * secLen), (int)(cy + Math.sin(secondAngle) * secLen)
-        );
-        
-        // Central Pivot
-        g2.fillOval(cx - 4, cy - 4, 8, 8);
-    }
-    
-    private void drawSwordHand(Graphics2D g2, int cx, int cy, double angle, double length, int width) {
-        AffineTransform old = g2.getTransform();
-        g2.translate(cx, cy);
-        g2.rotate(angle);
-        
-        Path2D path = new Path2D.Double();
-        path.moveTo(0, -width/2.0);
-        path.lineTo(length, 0);
-        path.lineTo(0, width/2.0);
-        path.lineTo(-12, 0); // Short tail
-        path.closePath();
-        
-        g2.fill(path);
-        
-        // Lume strip in the middle
-        g2.setColor(new Color(50, 50, 50));
-        g2.setStroke(new BasicStroke(1));
-        g2.drawLine(6, 0, (int)(length * 0.8), 0);
-        
-        g2.setTransform(old);
+        });
     }
 
-    private void drawCrystalReflection(Graphics2D g2, int cx, int cy, int radius) {
-        // Subtle reflection on the glass
-        GradientPaint reflection = new GradientPaint(
-            cx - radius, cy - radius, new Color(255, 255, 255, 30),
-            cx, cy, new Color(255, 255, 255, 0)
-        );
-        g2.setPaint(reflection);
-        g2.fillOval(cx - radius, cy - radius, radius * 2, radius * 2 / 2); // Top half gloss
+    private void chronographChanged() {
+        repaint(LAP_LIST_BOUNDS); // Laps are gone after a reset
+        scheduler.wake();
     }
 
     public static void main(String[] args) {
+        boolean tiled = Arrays.asList(args).contains("--tiled");
+        boolean sweep = Arrays.asList(args).contains("--sweep");
+        boolean canvas = Arrays.asList(args).contains("--canvas");
+        boolean sprites = Arrays.asList(args).contains("--sprites");
+        // Zones to search instead of every available one, as read by ZoneCatalog.load
+        int zonesArg = Arrays.asList(args).indexOf("--zones");
+        if (canvas && (tiled || zonesArg >= 0)) {
+            // The canvas draws on one render thread and has no zone search
+            System.err.println("--canvas cannot be combined with --tiled or --zones");
+            System.exit(2);
+            return;
+        }
+        ZoneCatalog zones = ZoneCatalog.available();
+        if (zonesArg >= 0 && zonesArg + 1 < args.length) {
+            try (Reader in = Files.newBufferedReader(new File(args[zonesArg + 1]).toPath(), StandardCharsets.UTF_8)) {
+                zones = ZoneCatalog.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not read zones, searching all of them: " + e.getMessage());
+            }
+        }
+        ZoneCatalog catalog = zones;
+        if (tiled) {
+            // Must be set before the first antialiased shape is drawn
+            System.setProperty(TiledRenderer.PATH_CLIPPING_PROPERTY, "false");
+        }
         SwingUtilities.invokeLater(() -> {
             try {
                 // Try to set system look and feel
@@ -587,7 +1005,23 @@ public class DoWatch extends JPanel {
             JFrame frame = new JFrame("Citizen DoWatch Model");
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
             
+            if (canvas) {
+                // Active rendering on a render thread of its own, instead of Swing painting
+                WatchCanvas watch = new WatchCanvas();
+                watch.setSweepSeconds(sweep);
+                watch.setHandSprites(sprites);
+                frame.add(watch);
+                frame.pack();
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+                watch.requestFocusInWindow();
+                return;
+            }
             DoWatch watch = new DoWatch();
+            watch.setTiledRendering(tiled);
+            watch.setSweepSeconds(sweep);
+            watch.setHandSprites(sprites);
+            watch.setZoneCatalog(catalog);
             frame.add(watch);
             frame.pack();
             frame.setLocationRelativeTo(null);
@@ -0,0 +1,427 @@
+package rs.dobrobav.watch;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects frame timing for one watch face and publishes it as a
+ * {@link FrameMetricsMXBean}. Recording a frame takes a handful of
+ * {@code nanoTime} reads and counter updates and allocates nothing, so it
+ * stays switched on all the time.
+ *
+ * <p>Frames and stages are recorded by the painting thread, ticks and input
+ * latency by the EDT; any thread may read the numbers.
+ */
+public final class FrameMetrics implements FrameMetricsMXBean {
+
+    /** Parts of a frame timed separately. */
+    public enum Stage {
+        CASE, DIAL, SUB_DIALS, HANDS, REFLECTION, COMPOSITE
+    }
+
+    /** Domain of the names metrics are registered under. */
+    public static final String DOMAIN = "rs.dobrobav.watch";
+
+    private static final int STAGES = Stage.values().length;
+    private static final long LATE_TICK_NANOS = 2_000_000L;
+
+    // Four buckets per power of two microseconds, up to about 18 minutes
+    private static final int BUCKETS = 120;
+
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray stageNanos = new AtomicLongArray(STAGES);
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong frameNanos = new AtomicLong();
+    private final AtomicLong maxFrameNanos = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong framesDuringGc = new AtomicLong();
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong repaintRequests = new AtomicLong();
+    private final AtomicLong lateTicks = new AtomicLong();
+    private final AtomicLong missedFrames = new AtomicLong();
+    private final AtomicLong latenessNanos = new AtomicLong();
+    private final AtomicLong maxLatenessNanos = new AtomicLong();
+    private final AtomicLongArray inputHistogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong inputs = new AtomicLong();
+    private final AtomicLong inputNanos = new AtomicLong();
+    private final AtomicLong maxInputNanos = new AtomicLong();
+    private volatile long gcCountAtReset = gcCount();
+    private volatile long gcTimeAtReset = gcTime();
+
+    private final com.sun.management.ThreadMXBean allocation;
+
+    // The frame being painted, on the painting thread
+    private long frameAllocatedBytes;
+    private long frameGcCount;
+
+    private ObjectName registeredName;
+
+    public FrameMetrics() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        allocation = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+    }
+
+    /** Marks the start of a frame, and returns the time to pass to {@link #frameFinished}. */
+    public long frameStarted() {
+        frameAllocatedBytes = allocatedBytes();
+        frameGcCount = gcCount();
+        return System.nanoTime();
+    }
+
+    public void frameFinished(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        frames.incrementAndGet();
+        frameNanos.addAndGet(nanos);
+        histogram.incrementAndGet(bucket(nanos / 1000));
+        updateMax(maxFrameNanos, nanos);
+        allocatedBytes.addAndGet(allocatedBytes() - frameAllocatedBytes);
+        if (gcCount() != frameGcCount) {
+            framesDuringGc.incrementAndGet();
+        }
+    }
+
+    /** Adds {@code nanos} spent in {@code stage} to the current frame. */
+    public void stage(Stage stage, long nanos) {
+        stageNanos.addAndGet(stage.ordinal(), nanos);
+    }
+
+    /**
+     * Records a tick that fired {@code latenessNanos} after it was due, with
+     * ticks due every {@code intervalNanos}.
+     */
+    public void tick(long latenessNanos, long intervalNanos) {
+        ticks.incrementAndGet();
+        if (latenessNanos > LATE_TICK_NANOS) {
+            lateTicks.incrementAndGet();
+        }
+        if (intervalNanos > 0 && latenessNanos >= intervalNanos) {
+            missedFrames.addAndGet(latenessNanos / intervalNanos);
+        }
+        this.latenessNanos.addAndGet(Math.max(0, latenessNanos));
+        updateMax(maxLatenessNanos, latenessNanos);
+    }
+
+    public void repaintRequested() {
+        repaintRequests.incrementAndGet();
+    }
+
+    /**
+     * Records that the effect of an input event was painted
+     * {@code latencyNanos} after the event happened, by its timestamp.
+     */
+    public void inputPainted(long latencyNanos) {
+        long nanos = Math.max(0, latencyNanos);
+        inputs.incrementAndGet();
+        inputNanos.addAndGet(nanos);
+        inputHistogram.incrementAndGet(bucket(nanos / 1000));
+        updateMax(maxInputNanos, nanos);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as
+     * {@code rs.dobrobav.watch:type=FrameMetrics,name=<name>}, moving them if
+     * they were registered under another name. Fails with
+     * {@code InstanceAlreadyExistsException} if the name is taken.
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        unregister();
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=FrameMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Registers these metrics under {@code name}, or if that is taken, under
+     * the first free one of {@code name-2}, {@code name-3} and so on.
+     */
+    public synchronized ObjectName registerNumbered(String name) throws JMException {
+        for (int n = 1; ; n++) {
+            try {
+                return register(n == 1 ? name : name + "-" + n);
+            } catch (InstanceAlreadyExistsException e) {
+                // Taken by another face, try the next name
+            }
+        }
+    }
+
+    public synchronized void unregister() throws JMException {
+        if (registeredName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(registeredName)) {
+                server.unregisterMBean(registeredName);
+            }
+            registeredName = null;
+        }
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frames.get();
+    }
+
+    @Override
+    public double getMeanFrameMillis() {
+        return perFrame(frameNanos.get()) / 1e6;
+    }
+
+    @Override
+    public double getFrameMillisP50() {
+        return percentileMillis(histogram, maxFrameNanos, 0.50);
+    }
+
+    @Override
+    public double getFrameMillisP90() {
+        return percentileMillis(histogram, maxFrameNanos, 0.90);
+    }
+
+    @Override
+    public double getFrameMillisP99() {
+        return percentileMillis(histogram, maxFrameNanos, 0.99);
+    }
+
+    @Override
+    public double getMaxFrameMillis() {
+        return maxFrameNanos.get() / 1e6;
+    }
+
+    @Override
+    public long[] getFrameTimeHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public long[] getHistogramBucketMicros() {
+        long[] bounds = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            bounds[i] = lowerBoundMicros(i);
+        }
+        return bounds;
+    }
+
+    @Override
+    public double getCaseMillisPerFrame() {
+        return stageMillis(Stage.CASE);
+    }
+
+    @Override
+    public double getDialMillisPerFrame() {
+        return stageMillis(Stage.DIAL);
+    }
+
+    @Override
+    public double getSubDialsMillisPerFrame() {
+        return stageMillis(Stage.SUB_DIALS);
+    }
+
+    @Override
+    public double getHandsMillisPerFrame() {
+        return stageMillis(Stage.HANDS);
+    }
+
+    @Override
+    public double getReflectionMillisPerFrame() {
+        return stageMillis(Stage.REFLECTION);
+    }
+
+    @Override
+    public double getCompositeMillisPerFrame() {
+        return stageMillis(Stage.COMPOSITE);
+    }
+
+    /** Time per frame spent in {@code stage}, in milliseconds. */
+    public double stageMillis(Stage stage) {
+        return perFrame(stageNanos.get(stage.ordinal())) / 1e6;
+    }
+
+    @Override
+    public double getAllocatedBytesPerFrame() {
+        return allocation == null ? Double.NaN : perFrame(allocatedBytes.get());
+    }
+
+    @Override
+    public long getFramesDuringGc() {
+        return framesDuringGc.get();
+    }
+
+    @Override
+    public long getGcCount() {
+        return gcCount() - gcCountAtReset;
+    }
+
+    @Override
+    public long getGcTimeMillis() {
+        return gcTime() - gcTimeAtReset;
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks.get();
+    }
+
+    @Override
+    public long getRepaintRequests() {
+        return repaintRequests.get();
+    }
+
+    @Override
+    public long getCoalescedRepaints() {
+        return Math.max(0, repaintRequests.get() - frames.get());
+    }
+
+    @Override
+    public long getLateTimerFires() {
+        return lateTicks.get();
+    }
+
+    @Override
+    public long getMissedFrames() {
+        return missedFrames.get();
+    }
+
+    @Override
+    public double getMeanTimerLatenessMillis() {
+        long count = ticks.get();
+        return count == 0 ? 0 : latenessNanos.get() / 1e6 / count;
+    }
+
+    @Override
+    public double getMaxTimerLatenessMillis() {
+        return maxLatenessNanos.get() / 1e6;
+    }
+
+    @Override
+    public long getInputCount() {
+        return inputs.get();
+    }
+
+    @Override
+    public double getMeanInputLatencyMillis() {
+        long count = inputs.get();
+        return count == 0 ? 0 : inputNanos.get() / 1e6 / count;
+    }
+
+    @Override
+    public double getInputLatencyMillisP99() {
+        return percentileMillis(inputHistogram, maxInputNanos, 0.99);
+    }
+
+    @Override
+    public double getMaxInputLatencyMillis() {
+        return maxInputNanos.get() / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+            inputHistogram.set(i, 0);
+        }
+        for (int i = 0; i < STAGES; i++) {
+            stageNanos.set(i, 0);
+        }
+        frames.set(0);
+        frameNanos.set(0);
+        maxFrameNanos.set(0);
+        allocatedBytes.set(0);
+        framesDuringGc.set(0);
+        ticks.set(0);
+        repaintRequests.set(0);
+        lateTicks.set(0);
+        missedFrames.set(0);
+        latenessNanos.set(0);
+        maxLatenessNanos.set(0);
+        inputs.set(0);
+        inputNanos.set(0);
+        maxInputNanos.set(0);
+        gcCountAtReset = gcCount();
+        gcTimeAtReset = gcTime();
+    }
+
+    private double perFrame(long total) {
+        long count = frames.get();
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /** Upper bound of the bucket of {@code histogram} holding its {@code p} quantile. */
+    private static double percentileMillis(AtomicLongArray histogram, AtomicLong maxNanos, double p) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += histogram.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        double maxMillis = maxNanos.get() / 1e6;
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= rank) {
+                long upper = i + 1 < BUCKETS ? lowerBoundMicros(i + 1) : lowerBoundMicros(i);
+                // The slowest one is known exactly, no quantile lies above it
+                return Math.min(upper / 1e3, maxMillis);
+            }
+        }
+        return maxMillis;
+    }
+
+    static int bucket(long micros) {
+        if (micros < 4) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - 2)) & 3;
+        return Math.min(BUCKETS - 1, (exponent - 1) * 4 + sub);
+    }
+
+    static long lowerBoundMicros(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        return (4L + bucket % 4) << (bucket / 4 - 1);
+    }
+
+    private long allocatedBytes() {
+        return allocation == null ? 0 : allocation.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (int i = 0; i < COLLECTORS.size(); i++) {
+            count += Math.max(0, COLLECTORS.get(i).getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (int i = 0; i < COLLECTORS.size(); i++) {
+            time += Math.max(0, COLLECTORS.get(i).getCollectionTime());
+        }
+        return time;
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Retry against the new maximum
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package rs.dobrobav.watch;
+
+/**
+ * Frame timing of a watch face, as seen from a JMX console. Times are in
+ * milliseconds and cover everything since the start or the last
+ * {@link #reset()}.
+ *
+ * <p>Slow frames with collections during them point at GC. A timer that
+ * fires late, while frames themselves are fast, points at a busy EDT.
+ * Slow frames without either point at raster cost, and the per-stage
+ * times show where it goes. Input latency adds the time an event waited
+ * in the queue before it was handled.
+ */
+public interface FrameMetricsMXBean {
+
+    long getFrameCount();
+
+    double getMeanFrameMillis();
+
+    double getFrameMillisP50();
+
+    double getFrameMillisP90();
+
+    double getFrameMillisP99();
+
+    double getMaxFrameMillis();
+
+    /** Frames per bucket of {@link #getHistogramBucketMicros()}. */
+    long[] getFrameTimeHistogram();
+
+    /** Lower bound of each histogram bucket, in microseconds. */
+    long[] getHistogramBucketMicros();
+
+    // Time per frame spent in each stage of the face
+
+    double getCaseMillisPerFrame();
+
+    double getDialMillisPerFrame();
+
+    double getSubDialsMillisPerFrame();
+
+    double getHandsMillisPerFrame();
+
+    double getReflectionMillisPerFrame();
+
+    /** Blitting cached layers together. */
+    double getCompositeMillisPerFrame();
+
+    /** Bytes allocated by the painting thread per frame. */
+    double getAllocatedBytesPerFrame();
+
+    /** Frames during which a garbage collection ran. */
+    long getFramesDuringGc();
+
+    long getGcCount();
+
+    long getGcTimeMillis();
+
+    long getTicks();
+
+    /** Repaints asked for by ticks. */
+    long getRepaintRequests();
+
+    /** Repaints asked for by ticks that the RepaintManager merged into another frame. */
+    long getCoalescedRepaints();
+
+    /** Ticks that came more than 2 ms after they were due. */
+    long getLateTimerFires();
+
+    /** Frames a late tick skipped over entirely. */
+    long getMissedFrames();
+
+    double getMeanTimerLatenessMillis();
+
+    double getMaxTimerLatenessMillis();
+
+    // From an input event, by its timestamp, to the frame that shows its effect
+
+    /** Input events whose effect has been painted. */
+    long getInputCount();
+
+    double getMeanInputLatencyMillis();
+
+    double getInputLatencyMillisP99();
+
+    double getMaxInputLatencyMillis();
+
+    void reset();
+}
@@ -0,0 +1,70 @@
+package rs.dobrobav.watch;
+
+/**
+ * Paces animation frames to absolute {@code System.nanoTime} deadlines, one
+ * every period, instead of waiting a fixed delay after each frame. A frame
+ * that comes a little late does not push the ones after it back, so the
+ * cadence does not drift. A frame that comes later than a whole period
+ * skips the deadlines it missed rather than firing them in a burst; since
+ * the hands are drawn from the time, not from a frame count, skipping only
+ * costs smoothness, never speed.
+ */
+final class FramePacer {
+
+    private long periodNanos;
+    private long deadline;
+    private boolean started = false;
+
+    FramePacer(long periodNanos) {
+        setPeriod(periodNanos);
+    }
+
+    /** Changes the frame period; the next frame is timed from the one after this call. */
+    void setPeriod(long periodNanos) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("periodNanos must be positive: " + periodNanos);
+        }
+        if (periodNanos != this.periodNanos) {
+            this.periodNanos = periodNanos;
+            started = false;
+        }
+    }
+
+    long getPeriod() {
+        return periodNanos;
+    }
+
+    /**
+     * Records a frame made at {@code nowNanos} and returns the whole
+     * milliseconds to wait for the next deadline, rounded up so the next
+     * frame never comes early.
+     */
+    long frame(long nowNanos) {
+        if (!started) {
+            deadline = nowNanos;
+            started = true;
+        }
+        deadline += periodNanos;
+        if (deadline <= nowNanos) {
+            // Too late for one or more frames: skip them and keep to the grid. They are
+            // counted once, as missed frames, by FrameMetrics.tick from the timer's lateness
+            deadline += ((nowNanos - deadline) / periodNanos + 1) * periodNanos;
+        }
+        return Math.max(1, (deadline - nowNanos + 999_999) / 1_000_000);
+    }
+
+    /** Whether frames are on a grid, i.e. {@link #frame} was called since the last reset or new period. */
+    boolean isPacing() {
+        return started;
+    }
+
+    /** The {@code nanoTime} the next frame is due at, as set by the last {@link #frame}. */
+    long deadline() {
+        return deadline;
+    }
+
+    /** Forgets the deadline, e.g. when the animation stops; the next frame starts a new grid. */
+    void reset() {
+        started = false;
+    }
+}
@@ -0,0 +1,100 @@
+package rs.dobrobav.watch;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Laid-out text for the dial. Each string is turned into a
+ * {@link GlyphVector} once per font and render context (which includes the
+ * scale it is drawn at) and then drawn from the cache, so repainting a
+ * layer does not run text layout again.
+ */
+final class GlyphCache {
+
+    /** A laid-out string together with the metrics used to place it. */
+    static final class Text {
+        final GlyphVector glyphs;
+        final int width;
+        final int ascent;
+        final int height;
+
+        private Text(GlyphVector glyphs, FontMetrics fm, String text) {
+            this.glyphs = glyphs;
+            this.width = fm.stringWidth(text);
+            this.ascent = fm.getAscent();
+            this.height = fm.getHeight();
+        }
+
+        /** Draws the text with its baseline starting at (x, y). */
+        void draw(Graphics2D g2, int x, int y) {
+            g2.drawGlyphVector(glyphs, x, y);
+        }
+    }
+
+    // Room for every zone name of a world clock wall at one size; each resize brings
+    // a new render context, so old entries are dropped in LRU order
+    private static final int CAPACITY = 1024;
+
+    private final Map<Key, Text> entries = new LinkedHashMap<Key, Text>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Text> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    /** Returns {@code text} laid out in {@code font} for the current transform and hints of {@code g2}. */
+    Text get(Graphics2D g2, Font font, String text) {
+        FontRenderContext frc = g2.getFontRenderContext();
+        Key key = new Key(font, frc, text);
+        Text cached = entries.get(key);
+        if (cached == null) {
+            cached = new Text(font.createGlyphVector(frc, text), g2.getFontMetrics(font), text);
+            entries.put(key, cached);
+        }
+        return cached;
+    }
+
+    /** Lays out each of {@code texts} ahead of time, so a later {@link #get} finds them ready. */
+    void preload(Graphics2D g2, Font font, Iterable<String> texts) {
+        for (String text : texts) {
+            get(g2, font, text);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Key {
+        private final Font font;
+        private final FontRenderContext frc;
+        private final String text;
+        private final int hash;
+
+        Key(Font font, FontRenderContext frc, String text) {
+            this.font = font;
+            this.frc = frc;
+            this.text = text;
+            this.hash = (font.hashCode() * 31 + frc.hashCode()) * 31 + text.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return hash == k.hash && text.equals(k.text) && font.equals(k.font) && frc.equals(k.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
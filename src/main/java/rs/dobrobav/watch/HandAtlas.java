@@ -0,0 +1,212 @@
+package rs.dobrobav.watch;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hands pre-rendered at discrete angles, so drawing one is a blit instead
+ * of filling an antialiased outline. A sprite is rendered the first time
+ * its angle comes up, for the scale and sub-pixel position of the pivot it
+ * is drawn at, and placed so that its pivot lands exactly where the
+ * outline's would.
+ *
+ * <p>One atlas is shared by every renderer, since faces of the same size
+ * need the same sprites. It holds at most a fixed number of bytes across
+ * all sizes and drops the least recently drawn sprites beyond that.
+ * Thread-safe.
+ */
+final class HandAtlas {
+
+    /** Draws a hand of {@code length} and {@code width} pointing at {@code angle}, pivoting on (0, 0). */
+    interface HandPainter {
+        void paint(Graphics2D g2, double angle, double length, int width);
+    }
+
+    /** A hand rendered at one angle. */
+    static final class Sprite {
+        final BufferedImage image;
+        // Pixel of the image holding the pivot
+        final int pivotX;
+        final int pivotY;
+
+        private Sprite(BufferedImage image, int pivotX, int pivotY) {
+            this.image = image;
+            this.pivotX = pivotX;
+            this.pivotY = pivotY;
+        }
+
+        /** Draws the sprite with its pivot in device pixel ({@code x}, {@code y}). */
+        void draw(Graphics2D g2, int x, int y) {
+            g2.drawImage(image, x - pivotX, y - pivotY, null);
+        }
+    }
+
+    /** Enough for the hour and minute hands of a few sizes up to 4K. */
+    static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    private static final HandAtlas SHARED = new HandAtlas(DEFAULT_MAX_BYTES);
+
+    // Room around the outline for antialiasing
+    private static final int PAD = 2;
+
+    private final long maxBytes;
+    private long bytes;
+    private long evictions;
+
+    // Eviction is by bytes, so the map is trimmed by hand instead of by removeEldestEntry
+    private final Map<Key, Sprite> sprites = new LinkedHashMap<>(256, 0.75f, true);
+    // Looked up with, so a hit allocates nothing
+    private final Key probe = new Key();
+
+    HandAtlas(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    static HandAtlas shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the sprite of a hand at angle {@code step} of {@code steps}
+     * around the dial, drawn at {@code scale} device pixels per unit with its
+     * pivot {@code fractionX}, {@code fractionY} into a device pixel.
+     * Renders it with {@code painter} if it is not in the atlas.
+     */
+    Sprite get(double length, int width, int steps, int step, double scale,
+               double fractionX, double fractionY, HandPainter painter) {
+        return get(length, width, 0, steps, step, scale, fractionX, fractionY, painter);
+    }
+
+    /**
+     * Same as {@link #get(double, int, int, int, double, double, double, HandPainter)}
+     * for hands of one shape that {@code painter} draws differently depending
+     * on {@code style}, such as with or without their lume strip.
+     */
+    synchronized Sprite get(double length, int width, int style, int steps, int step, double scale,
+                            double fractionX, double fractionY, HandPainter painter) {
+        probe.set(length, width, style, steps, step, scale, fractionX, fractionY);
+        Sprite sprite = sprites.get(probe);
+        if (sprite == null) {
+            sprite = render(length, width, 2 * Math.PI * step / steps, scale, fractionX, fractionY, painter);
+            Key key = new Key();
+            key.set(length, width, style, steps, step, scale, fractionX, fractionY);
+            sprites.put(key, sprite);
+            bytes += bytes(sprite);
+            trim();
+        }
+        return sprite;
+    }
+
+    synchronized int size() {
+        return sprites.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    /** Sprites dropped to stay within the byte limit. */
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    synchronized void clear() {
+        sprites.clear();
+        bytes = 0;
+    }
+
+    private void trim() {
+        Iterator<Sprite> eldest = sprites.values().iterator();
+        // The sprite just added stays, even if it alone is over the limit
+        while (bytes > maxBytes && sprites.size() > 1) {
+            bytes -= bytes(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static long bytes(Sprite sprite) {
+        return 4L * sprite.image.getWidth() * sprite.image.getHeight();
+    }
+
+    private static Sprite render(double length, int width, double angle, double scale,
+                                 double fractionX, double fractionY, HandPainter painter) {
+        // Bounds of the outline: tip, both shoulders and the short tail, in device pixels from the pivot
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double half = width / 2.0;
+        double tail = WatchRenderer.SWORD_TAIL;
+        double minX = Math.min(Math.min(cos * length, -cos * tail), -Math.abs(sin) * half);
+        double maxX = Math.max(Math.max(cos * length, -cos * tail), Math.abs(sin) * half);
+        double minY = Math.min(Math.min(sin * length, -sin * tail), -Math.abs(cos) * half);
+        double maxY = Math.max(Math.max(sin * length, -sin * tail), Math.abs(cos) * half);
+        int x0 = (int) Math.floor(minX * scale + fractionX) - PAD;
+        int y0 = (int) Math.floor(minY * scale + fractionY) - PAD;
+        int x1 = (int) Math.ceil(maxX * scale + fractionX) + PAD;
+        int y1 = (int) Math.ceil(maxY * scale + fractionY) + PAD;
+
+        BufferedImage image = new BufferedImage(x1 - x0, y1 - y0, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.translate(fractionX - x0, fractionY - y0);
+            g2.scale(scale, scale);
+            painter.paint(g2, angle, length, width);
+        } finally {
+            g2.dispose();
+        }
+        return new Sprite(image, -x0, -y0);
+    }
+
+    private static final class Key {
+        private double length;
+        private int width;
+        private int style;
+        private int steps;
+        private int step;
+        private double scale;
+        private double fractionX;
+        private double fractionY;
+        private int hash;
+
+        void set(double length, int width, int style, int steps, int step, double scale,
+                 double fractionX, double fractionY) {
+            this.length = length;
+            this.width = width;
+            this.style = style;
+            this.steps = steps;
+            this.step = step;
+            this.scale = scale;
+            this.fractionX = fractionX;
+            this.fractionY = fractionY;
+            int h = Double.hashCode(length);
+            h = h * 31 + width;
+            h = h * 31 + style;
+            h = h * 31 + steps;
+            h = h * 31 + step;
+            h = h * 31 + Double.hashCode(scale);
+            h = h * 31 + Double.hashCode(fractionX);
+            this.hash = h * 31 + Double.hashCode(fractionY);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return hash == k.hash && step == k.step && steps == k.steps && width == k.width && style == k.style
+                    && Double.compare(length, k.length) == 0 && Double.compare(scale, k.scale) == 0
+                    && Double.compare(fractionX, k.fractionX) == 0 && Double.compare(fractionY, k.fractionY) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package rs.dobrobav.watch;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The most recent laps of a {@link Chronograph}, kept in a preallocated ring
+ * of splits (time since the chronograph started, in nanoseconds). A lap's
+ * duration is the difference to the split before it. Recording a lap is one
+ * compare-and-set on the cursor and two ordered array stores, and never
+ * allocates; once the ring is full the oldest laps are overwritten.
+ *
+ * <p>Safe to record and read from any thread without locks. Every slot
+ * carries the cursor value it was written for, so a reader can tell a split
+ * that is still being written from one it may use, and checks the cursor
+ * after reading it to tell whether a newer lap has taken the slot over.
+ * Laps are numbered from 1 since the last {@link #clear()}.
+ */
+public final class LapBuffer {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    // The cursor packs the generation, bumped by clear(), above the number of laps recorded in it
+    private static final int COUNT_BITS = 40;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int capacity;
+    private final AtomicLongArray splits;
+    private final AtomicLongArray stamps; // Cursor value + 1 each slot was last written for
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public LapBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** Keeps the last {@code capacity} laps. */
+    public LapBuffer(int capacity) {
+        if (capacity <= 0 || capacity >= 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30 - 1: " + capacity);
+        }
+        // One slot more than the capacity keeps the split before the oldest lap, for its duration
+        int size = Integer.highestOneBit(capacity) << 1;
+        this.capacity = capacity;
+        splits = new AtomicLongArray(size);
+        stamps = new AtomicLongArray(size);
+        mask = size - 1;
+    }
+
+    /** Records a lap that ended {@code splitNanos} after the chronograph started. */
+    public void record(long splitNanos) {
+        while (!tryRecord(cursor(), splitNanos)) {
+            // Lost the slot to another lap, take the next one
+        }
+    }
+
+    /** Current cursor, to pass to {@link #tryRecord}; changes with every lap and every clear. */
+    long cursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Records {@code splitNanos} as the next lap if nothing was recorded or
+     * cleared since {@code expectedCursor} was read.
+     */
+    boolean tryRecord(long expectedCursor, long splitNanos) {
+        if (!cursor.compareAndSet(expectedCursor, expectedCursor + 1)) {
+            return false;
+        }
+        int slot = (int) (expectedCursor & mask);
+        splits.lazySet(slot, splitNanos);
+        stamps.lazySet(slot, expectedCursor + 1); // Publishes the split
+        return true;
+    }
+
+    /** Forgets every lap. Laps recorded concurrently land either before the clear, or after it. */
+    public void clear() {
+        long c;
+        do {
+            c = cursor.get();
+        } while (!cursor.compareAndSet(c, ((c >>> COUNT_BITS) + 1) << COUNT_BITS));
+    }
+
+    /** Number of laps recorded since the last {@link #clear()}, including overwritten ones. */
+    public long count() {
+        return cursor.get() & COUNT_MASK;
+    }
+
+    /** Number of the oldest lap still held if {@code count} laps were recorded. */
+    public long first(long count) {
+        return Math.max(1, count - capacity + 1);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Split of lap {@code number}, in nanoseconds, or -1 if that lap is not
+     * held: not recorded yet, overwritten, or cleared.
+     */
+    public long split(long number) {
+        long c = cursor.get();
+        if (number < 1 || number > (c & COUNT_MASK) || number < first(c & COUNT_MASK) - 1) {
+            return -1;
+        }
+        long expected = (c & ~COUNT_MASK) + number; // Cursor + 1 for this lap
+        int slot = (int) ((expected - 1) & mask);
+        for (;;) {
+            long stamp = stamps.get(slot);
+            if (stamp == expected) {
+                long split = splits.get(slot);
+                // A lap that takes the slot over claims it on the cursor before it stores its split,
+                // so if none has been claimed by now, the split read was this lap's
+                long now = cursor.get();
+                return now >>> COUNT_BITS == c >>> COUNT_BITS && (now & COUNT_MASK) - number <= mask ? split : -1;
+            }
+            if (stamp > expected || cursor.get() >>> COUNT_BITS != c >>> COUNT_BITS) {
+                return -1;
+            }
+            // Claimed but not published yet; the writer is between two stores
+            Thread.yield();
+        }
+    }
+
+    /** Duration of lap {@code number}, in nanoseconds, or -1 if that lap is not held. */
+    public long lap(long number) {
+        long split = split(number);
+        if (split < 0 || number == 1) {
+            return split;
+        }
+        long previous = split(number - 1);
+        return previous < 0 ? -1 : split - previous;
+    }
+
+    /**
+     * Writes the laps held as CSV, oldest first, one row at a time straight
+     * from the ring: {@code lap,split_nanos,lap_nanos}. Laps recorded while
+     * writing are left for the next export.
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("lap,split_nanos,lap_nanos\n");
+        StringBuilder row = new StringBuilder(64);
+        long count = count();
+        for (long number = first(count); number <= count; number++) {
+            long split = split(number);
+            long lap = lap(number);
+            if (split < 0 || lap < 0) {
+                continue; // Overwritten or cleared while writing
+            }
+            row.setLength(0);
+            row.append(number).append(',').append(split).append(',').append(lap).append('\n');
+            out.append(row);
+        }
+    }
+}
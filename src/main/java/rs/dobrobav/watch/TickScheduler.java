@@ -0,0 +1,144 @@
+package rs.dobrobav.watch;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * Drives a clock's animation from the shared {@link AnimationDriver},
+ * scheduling each tick for the next instant something visibly changes
+ * instead of ticking at a fixed rate. Ticking stops completely, and the
+ * clock drops out of the driver, while the component is not showing, is no
+ * longer displayable or its window is minimized. It resumes with an
+ * immediate tick when the component becomes visible again.
+ */
+final class TickScheduler {
+
+    interface Target {
+        /**
+         * Called on the EDT with the {@code System.nanoTime} read once for
+         * every clock ticking together. Repaints whatever has changed and
+         * returns the number of milliseconds until the face next changes.
+         */
+        long tick(long nowNanos);
+    }
+
+    private final Component component;
+    private final Target target;
+    private final AnimationDriver driver;
+    private final AnimationDriver.Entry entry = new AnimationDriver.Entry() {
+        @Override
+        void run(long nowNanos) {
+            timerFired(nowNanos);
+        }
+    };
+    private Window window;
+    private boolean iconified = false;
+
+    // When the armed timer is due, for measuring how late it fires
+    private FrameMetrics metrics;
+    private long intervalNanos;
+
+    private final WindowAdapter windowListener = new WindowAdapter() {
+        @Override
+        public void windowIconified(WindowEvent e) {
+            iconified = true;
+            update();
+        }
+
+        @Override
+        public void windowDeiconified(WindowEvent e) {
+            iconified = false;
+            update();
+        }
+    };
+
+    TickScheduler(Component component, Target target) {
+        this(component, target, AnimationDriver.shared());
+    }
+
+    TickScheduler(Component component, Target target, AnimationDriver driver) {
+        this.component = component;
+        this.target = target;
+        this.driver = driver;
+
+        int changes = HierarchyEvent.SHOWING_CHANGED | HierarchyEvent.PARENT_CHANGED
+                | HierarchyEvent.DISPLAYABILITY_CHANGED;
+        component.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & changes) != 0) {
+                trackWindow();
+                update();
+            }
+        });
+    }
+
+    /** Ticks right away, e.g. after a state change that alters the next change instant. */
+    void wake() {
+        if (isActive()) {
+            driver.cancel(entry);
+            fire(System.nanoTime());
+        }
+    }
+
+    /** Whether a tick is scheduled with the driver. */
+    boolean isRunning() {
+        return entry.isScheduled();
+    }
+
+    /** Reports how late every timer tick fires to {@code metrics}, or to nothing if {@code null}. */
+    void setMetrics(FrameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private boolean isActive() {
+        return component.isDisplayable() && component.isShowing() && !iconified;
+    }
+
+    private void update() {
+        if (isActive()) {
+            if (!entry.isScheduled()) {
+                fire(System.nanoTime());
+            }
+        } else {
+            driver.cancel(entry);
+        }
+    }
+
+    private void timerFired(long nowNanos) {
+        if (metrics != null) {
+            metrics.tick(nowNanos - entry.due(), intervalNanos);
+        }
+        fire(nowNanos);
+    }
+
+    private void fire(long nowNanos) {
+        long delay = target.tick(nowNanos);
+        // Not scheduled again once hidden, so the driver lets go of the clock
+        if (isActive()) {
+            long millis = Math.max(1, delay);
+            intervalNanos = millis * 1_000_000L;
+            // From when the tick ended, so a clock later in a long batch is never woken early
+            driver.schedule(entry, System.nanoTime() + intervalNanos);
+        }
+    }
+
+    private void trackWindow() {
+        Window current = SwingUtilities.getWindowAncestor(component);
+        if (current == window) {
+            return;
+        }
+        if (window != null) {
+            window.removeWindowListener(windowListener);
+        }
+        window = current;
+        iconified = false;
+        if (window != null) {
+            window.addWindowListener(windowListener);
+            if (window instanceof Frame) {
+                iconified = (((Frame) window).getExtendedState() & Frame.ICONIFIED) != 0;
+            }
+        }
+    }
+}
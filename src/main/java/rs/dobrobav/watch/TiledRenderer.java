@@ -0,0 +1,162 @@
+package rs.dobrobav.watch;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Draws the DoWatch face by splitting the target into square tiles and
+ * rasterizing them in parallel on a {@link ForkJoinPool}. Every tile gets
+ * its own {@code Graphics2D}, clipped to the tile, and draws the whole face
+ * through {@link WatchRenderer#renderDirect}.
+ *
+ * <p>The result is pixel-identical to drawing the face on a single thread
+ * as long as Java2D's Marlin rasterizer does not clip paths before
+ * rasterizing them. Its path clipping subdivides curves that cross a tile
+ * edge differently, which shifts antialiased edge pixels along the seams
+ * by a few levels, however far the tiles overlap. Run with
+ * {@code -Dsun.java2d.renderer.clip=false} (see
+ * {@link #PATH_CLIPPING_PROPERTY}) where exact output matters; the property
+ * is read once, before anything is drawn, so setting it later has no effect.
+ *
+ * <p>Meant for very large faces, where one thread cannot rasterize a frame
+ * quickly enough. Calls to {@code render} must not overlap.
+ */
+public class TiledRenderer implements AutoCloseable {
+
+    // Smaller tiles balance load better, but every tile walks all of the face's geometry again
+    public static final int DEFAULT_TILE_SIZE = 512;
+
+    /** Set to {@code "false"} at startup to make tiled output match single-threaded output exactly. */
+    public static final String PATH_CLIPPING_PROPERTY = "sun.java2d.renderer.clip";
+
+    /**
+     * Whether the JVM was asked to run without path clipping, so tiled output
+     * matches single-threaded output exactly. Only true if the property was
+     * set before the first antialiased draw, which this cannot check.
+     */
+    public static boolean isExact() {
+        return "false".equalsIgnoreCase(System.getProperty(PATH_CLIPPING_PROPERTY));
+    }
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int tileSize;
+
+    // WatchRenderer is not thread-safe, so each worker draws with its own
+    private final ThreadLocal<WatchRenderer> renderers = ThreadLocal.withInitial(WatchRenderer::new);
+    private volatile Color background = new Color(20, 20, 20); // Dark background
+
+    /** Renders on a new pool of {@code threads} workers, shut down by {@link #close()}. */
+    public TiledRenderer(int threads) {
+        this(new ForkJoinPool(threads), true, DEFAULT_TILE_SIZE);
+    }
+
+    /** Renders on {@code pool}, which stays owned by the caller. */
+    public TiledRenderer(ForkJoinPool pool, int tileSize) {
+        this(pool, false, tileSize);
+    }
+
+    private TiledRenderer(ForkJoinPool pool, boolean ownsPool, int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tileSize must be positive: " + tileSize);
+        }
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.tileSize = tileSize;
+    }
+
+    public Color getBackground() {
+        return background;
+    }
+
+    public void setBackground(Color background) {
+        this.background = background;
+    }
+
+    /** Renders {@code state} over the whole of {@code target} and returns it. */
+    public BufferedImage render(BufferedImage target, WatchState state) {
+        return render(target, state, null);
+    }
+
+    /**
+     * Renders {@code state} into {@code target}, but only the tiles that
+     * intersect {@code area}, or all of them if it is {@code null}. Returns
+     * once every tile is done.
+     */
+    public BufferedImage render(BufferedImage target, WatchState state, Rectangle area) {
+        int width = target.getWidth();
+        int height = target.getHeight();
+        Rectangle bounds = new Rectangle(0, 0, width, height);
+        if (area != null) {
+            bounds = bounds.intersection(area);
+        }
+        if (bounds.isEmpty()) {
+            return target;
+        }
+        // Snap to the tile grid, so the same pixels always come from the same tile
+        int firstColumn = bounds.x / tileSize;
+        int firstRow = bounds.y / tileSize;
+        int columns = (bounds.x + bounds.width - 1) / tileSize - firstColumn + 1;
+        int rows = (bounds.y + bounds.height - 1) / tileSize - firstRow + 1;
+
+        pool.invoke(new Tiles(target, state, background, firstColumn, firstRow, columns, 0, columns * rows));
+        return target;
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /** Renders tiles [from, to) of the grid, splitting the range until one tile is left. */
+    private final class Tiles extends RecursiveAction {
+        private final BufferedImage target;
+        private final WatchState state;
+        private final Color background;
+        private final int firstColumn;
+        private final int firstRow;
+        private final int columns;
+        private final int from;
+        private final int to;
+
+        Tiles(BufferedImage target, WatchState state, Color background,
+              int firstColumn, int firstRow, int columns, int from, int to) {
+            this.target = target;
+            this.state = state;
+            this.background = background;
+            this.firstColumn = firstColumn;
+            this.firstRow = firstRow;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Tiles(target, state, background, firstColumn, firstRow, columns, from, mid),
+                        new Tiles(target, state, background, firstColumn, firstRow, columns, mid, to));
+                return;
+            }
+            int x = (firstColumn + from % columns) * tileSize;
+            int y = (firstRow + from / columns) * tileSize;
+            WatchRenderer renderer = renderers.get();
+            renderer.setBackground(background);
+
+            Graphics2D g2 = target.createGraphics();
+            try {
+                g2.clipRect(x, y, tileSize, tileSize);
+                renderer.renderDirect(g2, target.getWidth(), target.getHeight(), state);
+            } finally {
+                g2.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package rs.dobrobav.watch;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.VolatileImage;
+
+/**
+ * A {@link CachedLayer} kept in video memory, so blitting it is done by the
+ * graphics pipeline instead of the CPU. The pixels of a
+ * {@code VolatileImage} can be lost at any time, e.g. when the display mode
+ * changes or another application takes the video memory, so the layer is
+ * repainted whenever they were, not only when its size or stamp changes.
+ */
+final class VolatileLayer {
+
+    // How often a layer that keeps losing its pixels while being painted is repainted
+    private static final int RESTORE_ATTEMPTS = 3;
+
+    private final int transparency;
+
+    private VolatileImage image;
+    private GraphicsConfiguration config;
+    private long stampA;
+    private long stampB;
+    private boolean valid = false;
+    private long restored;
+
+    /** Creates a layer with the given {@link Transparency}; opaque layers must cover every pixel. */
+    VolatileLayer(int transparency) {
+        this.transparency = transparency;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Returns the layer image for {@code config}, size and stamp, repainting
+     * it with {@code painter} if something it depends on changed or its
+     * pixels were lost. The pixels may still be lost again before the image
+     * is drawn; callers check {@link #contentsLost()} afterwards and redo the
+     * frame if so.
+     */
+    VolatileImage get(GraphicsConfiguration config, int w, int h, long a, long b, CachedLayer.Painter painter) {
+        for (int attempt = 0; ; attempt++) {
+            if (image == null || config != this.config || image.getWidth() != w || image.getHeight() != h) {
+                create(config, w, h);
+            }
+            switch (image.validate(config)) {
+                case VolatileImage.IMAGE_INCOMPATIBLE:
+                    // Moved to a screen with another pipeline, start over there
+                    create(config, w, h);
+                    break;
+                case VolatileImage.IMAGE_RESTORED:
+                    if (valid) {
+                        restored++;
+                    }
+                    valid = false;
+                    break;
+                default:
+                    break;
+            }
+            if (!valid || stampA != a || stampB != b) {
+                paint(w, h, painter);
+                stampA = a;
+                stampB = b;
+                valid = true;
+            }
+            if (!image.contentsLost() || attempt + 1 >= RESTORE_ATTEMPTS) {
+                return image;
+            }
+            valid = false;
+        }
+    }
+
+    /** Whether the pixels of the image last returned have been lost since. */
+    boolean contentsLost() {
+        return image == null || image.contentsLost();
+    }
+
+    /** Whether the image is in video memory, or only in a software surface. */
+    boolean isAccelerated() {
+        return image != null && image.getCapabilities().isAccelerated();
+    }
+
+    /** Times the pixels were lost and painted again. */
+    long restored() {
+        return restored;
+    }
+
+    /** Frees the video memory; the next {@link #get} allocates it again. */
+    void flush() {
+        if (image != null) {
+            image.flush();
+            image = null;
+        }
+        valid = false;
+    }
+
+    private void create(GraphicsConfiguration config, int w, int h) {
+        flush();
+        this.config = config;
+        image = config.createCompatibleVolatileImage(w, h, transparency);
+    }
+
+    private void paint(int w, int h, CachedLayer.Painter painter) {
+        Graphics2D g2 = image.createGraphics();
+        try {
+            if (transparency != Transparency.OPAQUE) {
+                // Start from fully transparent pixels
+                g2.setComposite(AlphaComposite.Clear);
+                g2.fillRect(0, 0, w, h);
+                g2.setComposite(AlphaComposite.SrcOver);
+            }
+            painter.paint(g2);
+        } finally {
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package rs.dobrobav.watch;
+
+import javax.swing.Timer;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.JMException;
+
+/**
+ * Shows the DoWatch face on a heavyweight {@code Canvas} with active
+ * rendering, as an alternative to the Swing {@link DoWatch} panel. A render
+ * thread of its own draws each frame into a {@code BufferStrategy} and
+ * shows it at deadlines it paces itself, instead of asking the
+ * {@code RepaintManager} for a repaint and waiting for the EDT to paint.
+ * The EDT only handles input.
+ *
+ * <p>The face below the hands and the crystal reflection over them are kept
+ * in {@code VolatileImage}s where the pipeline accelerates them, and
+ * repainted when their pixels are lost. On a software pipeline the
+ * renderer's own images are drawn instead, and the buffer strategy falls
+ * back to blitting an unaccelerated back buffer.
+ *
+ * <p>Takes the same mouse and key input as {@code DoWatch}, without the lap
+ * list and metrics overlays. Its frame timing is published over JMX as
+ * {@code name=WatchCanvas}, for comparing both hosts.
+ */
+public class WatchCanvas extends Canvas {
+
+    private static final int WIDTH = 750;
+    private static final int HEIGHT = 750;
+    // Frames redone at most when the buffers keep losing their pixels
+    private static final int RESTORE_ATTEMPTS = 3;
+    private static final long NO_INPUT = Long.MIN_VALUE;
+
+    // Touched by the render thread only
+    private final WatchRenderer renderer = new WatchRenderer();
+    private final VolatileLayer baseLayer = new VolatileLayer(Transparency.OPAQUE);
+    private final VolatileLayer reflectionLayer = new VolatileLayer(Transparency.TRANSLUCENT);
+    private final FramePacer pacer = new FramePacer(1);
+    private BufferedImage layerSource;
+    private boolean reflected; // Whether the last frame had a reflection to keep in video memory
+    private final CachedLayer.Painter copyLayer = g2 -> g2.drawImage(layerSource, 0, 0, null);
+
+    // Set on the EDT or by the stopwatch, read by the render thread
+    private final Chronograph chronograph = new Chronograph();
+    private volatile ZoneCatalog.Entry zone = DoWatch.FAVOURITES.get(0);
+    private int favouriteIndex = 0; // EDT only
+    private volatile boolean topBtnPressed = false;
+    private volatile boolean bottomBtnPressed = false;
+    private volatile boolean sweepSeconds = false;
+    // Applied to the renderer by the render thread, which owns it
+    private volatile boolean handSprites = false;
+    private volatile Clock clock = Clock.systemUTC();
+
+    // What the render thread needs of the component, published from the EDT: AWT's own state is not thread-safe
+    private volatile long size; // (width << 32) | height
+    private volatile boolean showing = false;
+    private volatile Color background;
+
+    private final FrameMetrics metrics = new FrameMetrics();
+    // When the input the next frame shows happened, by System.nanoTime, for the input latency metric
+    private final AtomicLong inputStarted = new AtomicLong(NO_INPUT);
+
+    // The render thread, and whether it should draw a frame before its deadline
+    private volatile Thread renderThread;
+    private volatile boolean rendering = false;
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private volatile BufferStrategy strategy;
+    private volatile GraphicsConfiguration config;
+    private volatile boolean acceleratedLayers;
+
+    // Timer for handling long press on top button
+    private final Timer longPressTimer;
+    private boolean isLongPressProcessed = false;
+
+    public WatchCanvas() {
+        setPreferredSize(new Dimension(WIDTH, HEIGHT));
+        setBackground(new Color(20, 20, 20)); // Dark background
+        setFocusable(true);
+
+        renderer.setMetrics(metrics);
+        renderer.preloadZoneNames(DoWatch.FAVOURITES.names());
+        // Start, stop and reset may come from any thread; the render thread picks them up
+        chronograph.setListener(this::wake);
+
+        longPressTimer = new Timer(800, e -> {
+            isLongPressProcessed = true;
+            // Reset Stopwatch
+            chronograph.reset();
+        });
+        longPressTimer.setRepeats(false);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                // Top button - Setup for Toggle or Reset
+                if (WatchRenderer.topButtonHitBounds(getWidth(), getHeight()).contains(e.getPoint())) {
+                    topBtnPressed = true;
+                    isLongPressProcessed = false;
+                    longPressTimer.restart();
+                    wake();
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (topBtnPressed) {
+                    longPressTimer.stop();
+                    // Only toggle if it wasn't a long press (Reset)
+                    if (!isLongPressProcessed) {
+                        // As of the release itself rather than whenever it got here
+                        chronograph.toggle(inputNanos(e.getWhen()));
+                    }
+                    topBtnPressed = false;
+                    wake();
+                }
+            }
+        });
+
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_ENTER:
+                        pressBottomButton();
+                        break;
+                    case KeyEvent.VK_L:
+                        chronograph.lap(inputNanos(e.getWhen()));
+                        break;
+                    case KeyEvent.VK_W:
+                        setSweepSeconds(!sweepSeconds);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                publishSize();
+                wake();
+            }
+        });
+
+        // Nothing is drawn while hidden; the first frame after showing again comes right away
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                showing = isShowing();
+                publishSize();
+                wake();
+            }
+        });
+    }
+
+    private void publishSize() {
+        size = ((long) getWidth() << 32) | (getHeight() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public void setBackground(Color background) {
+        super.setBackground(background);
+        this.background = getBackground();
+        wake();
+    }
+
+    private void pressBottomButton() {
+        bottomBtnPressed = true;
+        favouriteIndex = (favouriteIndex + 1) % DoWatch.FAVOURITES.size();
+        zone = DoWatch.FAVOURITES.get(favouriteIndex);
+        wake();
+
+        // Release button after short delay
+        AnimationDriver.shared().runLater(150, () -> {
+            bottomBtnPressed = false;
+            wake();
+        });
+    }
+
+    /** The stopwatch this face shows; it can be driven from any thread. */
+    public Chronograph getChronograph() {
+        return chronograph;
+    }
+
+    /** Timing of this face's frames, also registered as an MBean while it is showing. */
+    public FrameMetrics getFrameMetrics() {
+        return metrics;
+    }
+
+    /** Shows the time in {@code zone}; may be called from any thread. */
+    public void setZone(ZoneCatalog.Entry zone) {
+        this.zone = zone;
+        wake();
+    }
+
+    public ZoneCatalog.Entry getZone() {
+        return zone;
+    }
+
+    /** Makes the second hand sweep smoothly instead of jumping once a second. */
+    public void setSweepSeconds(boolean sweep) {
+        sweepSeconds = sweep;
+        wake();
+    }
+
+    public boolean isSweepSeconds() {
+        return sweepSeconds;
+    }
+
+    /**
+     * Draws the hour and minute hands from pre-rendered sprites, see
+     * {@link WatchRenderer#setHandSprites}; may be called from any thread.
+     */
+    public void setHandSprites(boolean enabled) {
+        handSprites = enabled;
+        wake();
+    }
+
+    public boolean isHandSprites() {
+        return handSprites;
+    }
+
+    /**
+     * Describes how frames reach the screen, e.g. "page flipping accelerated
+     * back buffer, accelerated layers", or {@code null} while the canvas is
+     * not displayable.
+     */
+    public String getPipeline() {
+        BufferStrategy current = strategy;
+        if (current == null) {
+            return null;
+        }
+        BufferCapabilities caps = current.getCapabilities();
+        return (caps.isPageFlipping() ? "page flipping" : "blitting")
+                + (caps.getBackBufferCapabilities().isAccelerated() ? " accelerated" : " software")
+                + " back buffer, " + (acceleratedLayers ? "accelerated" : "software") + " layers";
+    }
+
+    /** Replaces the time source, so tests can show the watch at fixed instants. */
+    void setClock(Clock clock) {
+        this.clock = clock;
+        wake();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        // Flips pages where the pipeline can, otherwise blits an accelerated or a software back buffer
+        createBufferStrategy(2);
+        strategy = getBufferStrategy();
+        // Looked up here, since the render thread must not wait for the tree lock removeNotify holds
+        config = getGraphicsConfiguration();
+        acceleratedLayers = config.getImageCapabilities().isAccelerated();
+        try {
+            metrics.registerNumbered("WatchCanvas");
+        } catch (JMException | SecurityException e) {
+            // Metrics still work locally
+        }
+        publishSize();
+        rendering = true;
+        Thread thread = new Thread(this::renderLoop, "WatchCanvas render");
+        thread.setDaemon(true);
+        renderThread = thread;
+        thread.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        // The peer and its buffers go away with this call, so the render thread has to stop first
+        rendering = false;
+        Thread thread = renderThread;
+        renderThread = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            metrics.unregister();
+        } catch (JMException | SecurityException e) {
+            // Nothing left to clean up that we could reach
+        }
+        BufferStrategy current = strategy;
+        strategy = null;
+        config = null;
+        if (current != null) {
+            current.dispose();
+        }
+        baseLayer.flush();
+        reflectionLayer.flush();
+        super.removeNotify();
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        // Exposed by the window system: draw the next frame now rather than at its deadline
+        wake();
+    }
+
+    @Override
+    public void update(Graphics g) {
+        paint(g);
+    }
+
+    /**
+     * The {@code nanoTime} at which the input event with timestamp {@code when}
+     * happened, which the next frame counts its input latency from.
+     */
+    private long inputNanos(long when) {
+        long at = System.nanoTime() - DoWatch.inputAgeMillis(when, clock.millis()) * 1_000_000L;
+        inputStarted.set(at);
+        return at;
+    }
+
+    /** Has the render thread draw a frame right away, e.g. after input. Safe to call from any thread. */
+    void wake() {
+        wakeRequested.set(true);
+        Thread thread = renderThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void renderLoop() {
+        long deadline = System.nanoTime();
+        long interval = 0;
+        while (rendering) {
+            if (!showing) {
+                pacer.reset();
+                LockSupport.park(this);
+                deadline = System.nanoTime();
+                interval = 0;
+                continue;
+            }
+            long now = System.nanoTime();
+            boolean due = now - deadline >= 0;
+            boolean woken = wakeRequested.getAndSet(false);
+            if (!due && !woken) {
+                LockSupport.parkNanos(this, deadline - now);
+                continue;
+            }
+            if (due && interval > 0) {
+                metrics.tick(now - deadline, interval);
+            }
+            renderFrame();
+            long next = nextDeadline(now, due);
+            interval = next - now;
+            deadline = next;
+        }
+    }
+
+    /**
+     * The {@code nanoTime} of the frame after one drawn at {@code now}. A
+     * frame drawn early because of input keeps animated frames on their grid.
+     */
+    private long nextDeadline(long now, boolean due) {
+        boolean running = chronograph.isRunning();
+        boolean sweep = sweepSeconds;
+        if (running || sweep) {
+            long size = this.size;
+            pacer.setPeriod(DoWatch.framePeriodNanos(running, sweep, (int) (size >> 32), (int) size));
+            if (!due && pacer.isPacing() && pacer.deadline() - now > 0) {
+                return pacer.deadline();
+            }
+            pacer.frame(now);
+            return pacer.deadline();
+        }
+        // Otherwise nothing changes until the next whole second
+        pacer.reset();
+        return now + (1000 - Math.floorMod(clock.millis(), 1000L)) * 1_000_000L;
+    }
+
+    private void renderFrame() {
+        BufferStrategy current = strategy;
+        GraphicsConfiguration config = this.config;
+        long size = this.size;
+        int w = (int) (size >> 32);
+        int h = (int) size;
+        if (current == null || config == null || w <= 0 || h <= 0) {
+            return;
+        }
+
+        // Input taken before the snapshot is in this frame
+        long input = inputStarted.getAndSet(NO_INPUT);
+        // One time snapshot per frame, shared by every layer
+        long millis = clock.millis();
+        long chronographState = chronograph.snapshot();
+        long stopwatch = chronograph.elapsedNanos(chronographState) / 1_000_000L;
+        ZoneCatalog.Entry zone = this.zone;
+        int flags = (Chronograph.isRunning(chronographState) ? WatchRenderer.STOPWATCH_RUNNING : 0)
+                | (topBtnPressed ? WatchRenderer.TOP_PRESSED : 0)
+                | (bottomBtnPressed ? WatchRenderer.BOTTOM_PRESSED : 0)
+                | (sweepSeconds ? WatchRenderer.SWEEP_SECONDS : 0);
+        renderer.setBackground(background);
+        boolean sprites = handSprites;
+        if (renderer.isHandSprites() != sprites) {
+            renderer.setHandSprites(sprites);
+        }
+
+        long frameStart = metrics.frameStarted();
+        int attempts = 0;
+        do {
+            do {
+                Graphics2D g = (Graphics2D) current.getDrawGraphics();
+                try {
+                    drawFrame(g, config, w, h, millis, zone, stopwatch, flags);
+                } finally {
+                    g.dispose();
+                }
+                // Buffers or layers lost while drawing: draw the frame again from scratch
+            } while ((current.contentsRestored() || layersLost()) && ++attempts < RESTORE_ATTEMPTS);
+            current.show();
+        } while (current.contentsLost() && ++attempts < RESTORE_ATTEMPTS);
+        // Push the frame to the screen now, not whenever the window system flushes
+        Toolkit.getDefaultToolkit().sync();
+        metrics.frameFinished(frameStart);
+        if (input != NO_INPUT) {
+            metrics.inputPainted(System.nanoTime() - input);
+        }
+    }
+
+    private void drawFrame(Graphics2D g, GraphicsConfiguration config, int w, int h, long millis,
+                           ZoneCatalog.Entry zone, long stopwatch, int flags) {
+        BufferedImage base = renderer.base(w, h, millis, zone.zone(), zone.name(), stopwatch, flags);
+        BufferedImage reflection = renderer.reflection();
+
+        long start = System.nanoTime();
+        if (acceleratedLayers) {
+            // The software images are the masters; the video memory copies are redone from them when lost
+            layerSource = base;
+            g.drawImage(baseLayer.get(config, w, h, renderer.baseVersion(), 0, copyLayer), 0, 0, null);
+        } else {
+            g.drawImage(base, 0, 0, null);
+        }
+        metrics.stage(FrameMetrics.Stage.COMPOSITE, System.nanoTime() - start);
+
+        renderer.drawFrameHands(g);
+
+        start = System.nanoTime();
+        // Small faces are drawn without one
+        reflected = reflection != null;
+        if (reflected && acceleratedLayers) {
+            layerSource = reflection;
+            g.drawImage(reflectionLayer.get(config, w, h, renderer.reflectionVersion(), 0, copyLayer), 0, 0, null);
+        } else if (reflected) {
+            g.drawImage(reflection, 0, 0, null);
+        }
+        layerSource = null;
+        metrics.stage(FrameMetrics.Stage.REFLECTION, System.nanoTime() - start);
+    }
+
+    private boolean layersLost() {
+        return acceleratedLayers && (baseLayer.contentsLost() || reflected && reflectionLayer.contentsLost());
+    }
+}
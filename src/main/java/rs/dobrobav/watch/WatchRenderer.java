@@ -0,0 +1,1184 @@
+package rs.dobrobav.watch;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Draws the DoWatch face for a {@link WatchState} onto any {@code Graphics2D}
+ * or {@code BufferedImage}, at any size. It does not need a window or a
+ * running Swing timer and works under {@code java.awt.headless=true}.
+ *
+ * <p>The face is laid out at its design size of 750x750 and scaled to fit
+ * the target, centered. A renderer keeps its cached face layers between
+ * calls, so one instance should be reused for successive frames. Once the
+ * layers are built, rendering further frames allocates nothing in the
+ * renderer itself. It is not thread-safe; use one renderer per thread.
+ */
+public class WatchRenderer {
+
+    /** Size the face is designed at; other sizes are scaled from it. */
+    public static final int DESIGN_SIZE = 750;
+
+    // Center and dial radius of the face in design space
+    static final int C = DESIGN_SIZE / 2;
+    static final int R = DESIGN_SIZE / 2 - 50;
+
+    // Flags for the primitive render entry point
+    static final int STOPWATCH_RUNNING = 1;
+    static final int TOP_PRESSED = 2;
+    static final int BOTTOM_PRESSED = 4;
+    static final int SWEEP_SECONDS = 8;
+
+    // Length of the tail of the hour and minute hands behind the pivot, in design space
+    static final int SWORD_TAIL = 12;
+    // Sprite angles: the hour hand moves half a degree a minute, the minute hand a tenth a second,
+    // so ticking hands always land exactly on a sprite
+    static final int HOUR_SPRITE_STEPS = 720;
+    static final int MINUTE_SPRITE_STEPS = 3600;
+
+    /**
+     * How much of the face is drawn. Small faces leave out details that
+     * would be a pixel or less across and only cost time to draw.
+     */
+    public enum Detail {
+        /** Everything. */
+        FULL,
+        /** No minute ticks, crown ribs, sub-dial numerals, small print or crystal reflection. */
+        REDUCED,
+        /** Also no sub-dial ticks, logo or lume strips, and a flat case instead of the gradient. */
+        MINIMAL
+    }
+
+    /** Dial radius in pixels below which a face is drawn with {@link Detail#REDUCED}: faces of 276 px and smaller. */
+    public static final double DEFAULT_REDUCED_BELOW = 120;
+    /** Dial radius in pixels below which a face is drawn with {@link Detail#MINIMAL}: faces of 138 px and smaller. */
+    public static final double DEFAULT_MINIMAL_BELOW = 60;
+
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    // Date window labels, indexed by day of month
+    private static final String[] DAYS = new String[32];
+    static {
+        for (int day = 1; day < DAYS.length; day++) {
+            DAYS[day] = String.valueOf(day);
+        }
+    }
+
+    private Color background = new Color(20, 20, 20); // Dark background
+    private final WatchResources res = new WatchResources();
+    private final GlyphCache glyphs = new GlyphCache();
+    private final List<String> zoneNames = new ArrayList<>();
+
+    // Face layers, each re-rendered only when what it shows changes
+    private final CachedLayer buttonLayer = new CachedLayer();
+    private final CachedLayer staticLayer = new CachedLayer();
+    private final CachedLayer dateLayer = new CachedLayer();
+    private final CachedLayer zoneLayer = new CachedLayer();
+    private final CachedLayer reflectionLayer = new CachedLayer();
+    private final CachedLayer baseLayer = new CachedLayer(true);
+    private final CachedLayer frameLayer = new CachedLayer(true);
+    private String layerZoneName;
+
+    // The frame being rendered. Kept in fields so the layer painters below are
+    // created once instead of being capturing lambdas on every frame.
+    private int frameWidth;
+    private int frameHeight;
+    private int frameFlags;
+    private int hour;
+    private int minute;
+    private int second;
+    private int millisOfSecond; // Only while sweeping, otherwise the hands stay on whole seconds
+    private long epochDay;
+    private long stopwatchTime;
+
+    // Offset of the zone being shown, only re-resolved at its next transition
+    private ZoneId offsetZone;
+    private ZoneOffsetCache offsets;
+
+    // Design space to target mapping for the current size, and back
+    private final AffineTransform designTransform = new AffineTransform();
+    private final AffineTransform inverseDesignTransform = new AffineTransform();
+    private int transformWidth;
+    private int transformHeight;
+    // Old size to new, for scaled previews
+    private final AffineTransform previewTransform = new AffineTransform();
+
+    // Where stage times go, if anywhere
+    private FrameMetrics metrics;
+
+    // Level of detail of the current size, from the dial radius it is drawn at
+    private double reducedBelow = DEFAULT_REDUCED_BELOW;
+    private double minimalBelow = DEFAULT_MINIMAL_BELOW;
+    private Detail detail = Detail.FULL;
+
+    // Hour and minute hands blitted from pre-rendered sprites instead of filled, if set
+    private HandAtlas handAtlas;
+    private final HandAtlas.HandPainter swordPainter = (g2, angle, length, width) -> {
+        g2.setColor(res.hand);
+        drawSwordHand(g2, 0, 0, angle, length, width);
+    };
+
+    private final CachedLayer.Painter buttonPainter = g2 -> {
+        long start = stageStart();
+        applyDetailHints(g2);
+        toDesignSpace(g2, frameWidth, frameHeight);
+        drawButtons(g2, C, C, R, (frameFlags & TOP_PRESSED) != 0, (frameFlags & BOTTOM_PRESSED) != 0);
+        stageEnd(FrameMetrics.Stage.CASE, start);
+    };
+    private final CachedLayer.Painter staticPainter = g2 -> {
+        applyDetailHints(g2);
+        toDesignSpace(g2, frameWidth, frameHeight);
+        drawStaticFace(g2);
+    };
+    private final CachedLayer.Painter datePainter = g2 -> {
+        long start = stageStart();
+        applyDetailHints(g2);
+        toDesignSpace(g2, frameWidth, frameHeight);
+        drawDateWindow(g2, C, C, R, LocalDate.ofEpochDay(epochDay).getDayOfMonth());
+        stageEnd(FrameMetrics.Stage.DIAL, start);
+    };
+    private final CachedLayer.Painter zonePainter = g2 -> {
+        long start = stageStart();
+        applyDetailHints(g2);
+        toDesignSpace(g2, frameWidth, frameHeight);
+        // Lay out every known zone name for this size now, so switching zones later is a cache hit
+        glyphs.preload(g2, res.zoneFont, zoneNames);
+        drawZoneName(g2, C, C, R, layerZoneName);
+        stageEnd(FrameMetrics.Stage.DIAL, start);
+    };
+    private final CachedLayer.Painter reflectionPainter = g2 -> {
+        long start = stageStart();
+        toDesignSpace(g2, frameWidth, frameHeight);
+        drawCrystalReflection(g2, C, C, R);
+        stageEnd(FrameMetrics.Stage.REFLECTION, start);
+    };
+    private final CachedLayer.Painter basePainter = g2 -> {
+        long buttonState = frameFlags & (TOP_PRESSED | BOTTOM_PRESSED);
+        g2.setColor(background);
+        g2.fillRect(0, 0, frameWidth, frameHeight);
+
+        // Buttons sit underneath the case, so they get their own layer below the static one
+        g2.drawImage(buttonLayer.get(frameWidth, frameHeight, buttonState, 0, buttonPainter), 0, 0, null);
+        // Static: crown, case, dial, markers and sub-dial faces - only rebuilt on resize
+        g2.drawImage(staticLayer.get(frameWidth, frameHeight, 0, 0, staticPainter), 0, 0, null);
+        // Per-day: date window
+        g2.drawImage(dateLayer.get(frameWidth, frameHeight, epochDay, 0, datePainter), 0, 0, null);
+        // Per-zone-change: zone name
+        g2.drawImage(zoneLayer.get(frameWidth, frameHeight, 0, 0, zonePainter), 0, 0, null);
+    };
+    private final CachedLayer.Painter framePainter = g2 -> {
+        long start = stageStart();
+        g2.drawImage(baseLayer.image(), 0, 0, null);
+        start = stageEnd(FrameMetrics.Stage.COMPOSITE, start);
+        drawHandsLayer(g2);
+        start = stageEnd(FrameMetrics.Stage.HANDS, start);
+        if (detail == Detail.FULL) {
+            g2.drawImage(reflectionLayer.image(), 0, 0, null);
+        }
+        stageEnd(FrameMetrics.Stage.REFLECTION, start);
+    };
+
+    public Color getBackground() {
+        return background;
+    }
+
+    public void setBackground(Color background) {
+        if (!background.equals(this.background)) {
+            this.background = background;
+            baseLayer.invalidate();
+            frameLayer.invalidate();
+        }
+    }
+
+    /**
+     * Names the zones this renderer will be asked to show. Their text is laid
+     * out together whenever the face changes size, so that switching between
+     * them does not have to lay out text on the spot.
+     */
+    public void preloadZoneNames(Collection<String> names) {
+        zoneNames.clear();
+        zoneNames.addAll(names);
+    }
+
+    /**
+     * Draws the hour and minute hands from sprites pre-rendered at 720 and
+     * 3600 angles instead of filling their outlines on every frame. Sprites
+     * are kept in an atlas shared by all renderers and bounded in memory.
+     * They are only used while the target is not rotated or sheared; a
+     * sweeping minute hand is then drawn up to 0.05 degrees off.
+     */
+    public void setHandSprites(boolean enabled) {
+        handAtlas = enabled ? HandAtlas.shared() : null;
+        frameLayer.invalidate();
+    }
+
+    public boolean isHandSprites() {
+        return handAtlas != null;
+    }
+
+    /** Uses sprites from {@code atlas}, or none if {@code null}. */
+    void setHandAtlas(HandAtlas atlas) {
+        handAtlas = atlas;
+        frameLayer.invalidate();
+    }
+
+    /** Adds the time spent in each stage of the face to {@code metrics}, or stops timing if {@code null}. */
+    void setMetrics(FrameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the dial radii, in target pixels, below which faces are drawn
+     * with {@link Detail#REDUCED} and {@link Detail#MINIMAL} detail. The
+     * defaults are {@link #DEFAULT_REDUCED_BELOW} and
+     * {@link #DEFAULT_MINIMAL_BELOW}; zero for both draws every size in
+     * full, and {@code Double.POSITIVE_INFINITY} forces a tier at every size.
+     *
+     * @throws IllegalArgumentException if a radius is negative or NaN, or the
+     *         minimal one is above the reduced one
+     */
+    public void setDetailThresholds(double reducedBelowRadius, double minimalBelowRadius) {
+        if (!(reducedBelowRadius >= 0) || !(minimalBelowRadius >= 0) || minimalBelowRadius > reducedBelowRadius) {
+            throw new IllegalArgumentException("Thresholds must satisfy 0 <= minimal <= reduced, got "
+                    + minimalBelowRadius + " and " + reducedBelowRadius);
+        }
+        if (reducedBelowRadius != reducedBelow || minimalBelowRadius != minimalBelow) {
+            reducedBelow = reducedBelowRadius;
+            minimalBelow = minimalBelowRadius;
+            invalidateLayers();
+            // Picks the tier again at the next frame, even at the same size
+            transformWidth = 0;
+        }
+    }
+
+    public double getReducedDetailBelow() {
+        return reducedBelow;
+    }
+
+    public double getMinimalDetailBelow() {
+        return minimalBelow;
+    }
+
+    /** The level of detail a {@code width} x {@code height} face is drawn with. */
+    public Detail detail(int width, int height) {
+        double radius = R * scale(width, height);
+        return radius < minimalBelow ? Detail.MINIMAL : radius < reducedBelow ? Detail.REDUCED : Detail.FULL;
+    }
+
+    private void invalidateLayers() {
+        buttonLayer.invalidate();
+        staticLayer.invalidate();
+        dateLayer.invalidate();
+        zoneLayer.invalidate();
+        reflectionLayer.invalidate();
+        baseLayer.invalidate();
+        frameLayer.invalidate();
+    }
+
+    /** Renders {@code state} over the whole of {@code target} and returns it. */
+    public BufferedImage render(BufferedImage target, WatchState state) {
+        Graphics2D g2 = target.createGraphics();
+        try {
+            render(g2, target.getWidth(), target.getHeight(), state);
+        } finally {
+            g2.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Renders {@code state} into the {@code width} x {@code height} area at
+     * the origin of {@code g}, reusing cached layers for everything that has
+     * not changed since the previous call.
+     */
+    public void render(Graphics2D g, int width, int height, WatchState state) {
+        render(g, width, height, state.getInstant().toEpochMilli(), state.getZone(), state.getZoneName(),
+                state.getStopwatchElapsedMillis(), flags(state));
+    }
+
+    /**
+     * Same as {@link #render(Graphics2D, int, int, WatchState)}, for callers
+     * that keep the state in their own fields and would otherwise create a
+     * {@code WatchState} per frame.
+     */
+    void render(Graphics2D g, int width, int height, long epochMillis, ZoneId zone, String zoneName,
+                long stopwatchMillis, int flags) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        BufferedImage base = base(width, height, epochMillis, zone, zoneName, stopwatchMillis, flags);
+        BufferedImage reflection = reflection();
+
+        if ((flags & (STOPWATCH_RUNNING | SWEEP_SECONDS)) != 0) {
+            // Hands change on every frame, caching them would only add a blit
+            long start = stageStart();
+            g.drawImage(base, 0, 0, null);
+            stageEnd(FrameMetrics.Stage.COMPOSITE, start);
+            drawFrameHands(g);
+            if (reflection != null) {
+                start = stageStart();
+                g.drawImage(reflection, 0, 0, null);
+                stageEnd(FrameMetrics.Stage.REFLECTION, start);
+            }
+        } else {
+            // Per-second: the whole frame only changes when the second hand moves
+            long localSecond = epochDay * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+            BufferedImage frame = frameLayer.get(width, height, localSecond, stopwatchTime, framePainter);
+            long start = stageStart();
+            g.drawImage(frame, 0, 0, null);
+            stageEnd(FrameMetrics.Stage.COMPOSITE, start);
+        }
+    }
+
+    /**
+     * Sets up the frame for the given time and returns the opaque image of
+     * everything below the hands, for hosts that composite frames
+     * themselves: the base, then {@link #drawFrameHands}, then the
+     * {@link #reflection()}. The image is kept and repainted in place;
+     * {@link #baseVersion()} changes whenever it is.
+     */
+    BufferedImage base(int width, int height, long epochMillis, ZoneId zone, String zoneName,
+                       long stopwatchMillis, int flags) {
+        setFrame(width, height, epochMillis, zone, stopwatchMillis, flags);
+        long buttonState = flags & (TOP_PRESSED | BOTTOM_PRESSED);
+
+        if (!zoneName.equals(layerZoneName)) {
+            layerZoneName = zoneName;
+            zoneLayer.invalidate();
+            baseLayer.invalidate();
+        }
+
+        // Everything below the hands is flattened into one opaque image, so an unchanged
+        // face costs a single blit instead of one blend per layer
+        if (!baseLayer.isCurrent(width, height, epochDay, buttonState)) {
+            frameLayer.invalidate();
+        }
+        return baseLayer.get(width, height, epochDay, buttonState, basePainter);
+    }
+
+    long baseVersion() {
+        return baseLayer.version();
+    }
+
+    /**
+     * The translucent crystal reflection over the face, for the size of the
+     * last {@link #base} call, or {@code null} if that size is drawn without it.
+     */
+    BufferedImage reflection() {
+        if (detail != Detail.FULL) {
+            return null;
+        }
+        return reflectionLayer.get(frameWidth, frameHeight, 0, 0, reflectionPainter);
+    }
+
+    long reflectionVersion() {
+        return reflectionLayer.version();
+    }
+
+    /** Draws the hands of the frame set up by the last {@link #base} call, antialiased. */
+    void drawFrameHands(Graphics2D g) {
+        long start = stageStart();
+        Object antialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        drawHandsLayer(g);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialias);
+        stageEnd(FrameMetrics.Stage.HANDS, start);
+    }
+
+    /**
+     * Draws a quick approximation of the frame while the target size is
+     * still changing, e.g. during a live window resize: the face and
+     * reflection as last rendered, at whatever size that was, scaled into
+     * place with low-quality interpolation, and the hands drawn sharp at the
+     * new size. Leaves the cached layers alone, so a rapid series of sizes
+     * rebuilds nothing. Returns {@code false}, drawing nothing, if there are
+     * no layers to scale yet.
+     */
+    boolean renderPreview(Graphics2D g, int width, int height, long epochMillis, ZoneId zone,
+                          long stopwatchMillis, int flags) {
+        BufferedImage base = baseLayer.image();
+        BufferedImage reflection = reflectionLayer.image();
+        if (base == null || width <= 0 || height <= 0) {
+            return false;
+        }
+        setFrame(width, height, epochMillis, zone, stopwatchMillis, flags);
+
+        // Maps the old size's design space onto the new one, so the face scales without distortion
+        int fromWidth = base.getWidth();
+        int fromHeight = base.getHeight();
+        previewTransform.setTransform(designTransform);
+        double fromScale = scale(fromWidth, fromHeight);
+        previewTransform.scale(1 / fromScale, 1 / fromScale);
+        previewTransform.translate(-offsetX(fromWidth, fromHeight), -offsetY(fromWidth, fromHeight));
+
+        long start = stageStart();
+        Object interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        // Speed over looks while the size keeps changing
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        g.drawImage(base, previewTransform, null);
+        stageEnd(FrameMetrics.Stage.COMPOSITE, start);
+        drawFrameHands(g);
+        start = stageStart();
+        if (reflection != null && detail == Detail.FULL) {
+            g.drawImage(reflection, previewTransform, null);
+        }
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation != null
+                ? interpolation : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        stageEnd(FrameMetrics.Stage.REFLECTION, start);
+        return true;
+    }
+
+    private static int flags(WatchState state) {
+        return (state.isStopwatchRunning() ? STOPWATCH_RUNNING : 0)
+                | (state.isTopButtonPressed() ? TOP_PRESSED : 0)
+                | (state.isBottomButtonPressed() ? BOTTOM_PRESSED : 0)
+                | (state.isSweepSeconds() ? SWEEP_SECONDS : 0);
+    }
+
+    private void setFrame(int width, int height, long epochMillis, ZoneId zone, long stopwatchMillis, int flags) {
+        frameWidth = width;
+        frameHeight = height;
+        frameFlags = flags;
+        stopwatchTime = stopwatchMillis;
+
+        if (zone != offsetZone) {
+            offsetZone = zone;
+            offsets = ZoneOffsetCache.forZone(zone);
+        }
+        // One reading of the time for every hand and dial of the frame
+        long localSeconds = offsets.toLocalEpochSecond(Math.floorDiv(epochMillis, 1000L));
+        int secondOfDay = (int) Math.floorMod(localSeconds, (long) SECONDS_PER_DAY);
+        epochDay = Math.floorDiv(localSeconds, (long) SECONDS_PER_DAY);
+        hour = secondOfDay / 3600;
+        minute = secondOfDay / 60 % 60;
+        second = secondOfDay % 60;
+        millisOfSecond = (flags & SWEEP_SECONDS) != 0 ? (int) Math.floorMod(epochMillis, 1000L) : 0;
+
+        if (width != transformWidth || height != transformHeight) {
+            double scale = scale(width, height);
+            designTransform.setToTranslation(offsetX(width, height), offsetY(width, height));
+            designTransform.scale(scale, scale);
+            try {
+                inverseDesignTransform.setTransform(designTransform.createInverse());
+            } catch (NoninvertibleTransformException e) {
+                inverseDesignTransform.setToIdentity();
+            }
+            transformWidth = width;
+            transformHeight = height;
+            detail = detail(width, height);
+        }
+    }
+
+    /**
+     * Draws every stage of {@code state} straight onto {@code g}, without any
+     * caching. Slower than {@link #render(Graphics2D, int, int, WatchState)}
+     * for successive frames, but keeps nothing between calls.
+     */
+    public void renderDirect(Graphics2D g, int width, int height, WatchState state) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        setFrame(width, height, state.getInstant().toEpochMilli(), state.getZone(),
+                state.getStopwatchElapsedMillis(), flags(state));
+
+        // Lower tiers change more hints than these two, so only they pay for copying them all
+        RenderingHints hints = detail != Detail.FULL ? g.getRenderingHints() : null;
+        Object antialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        Object textAntialias = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        AffineTransform old = g.getTransform();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        applyDetailHints(g);
+
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        toDesignSpace(g, width, height);
+        long start = stageStart();
+        drawButtons(g, C, C, R, state.isTopButtonPressed(), state.isBottomButtonPressed());
+        stageEnd(FrameMetrics.Stage.CASE, start);
+        drawStaticFace(g);
+        start = stageStart();
+        drawDateWindow(g, C, C, R, LocalDate.ofEpochDay(epochDay).getDayOfMonth());
+        drawZoneName(g, C, C, R, state.getZoneName());
+        start = stageEnd(FrameMetrics.Stage.DIAL, start);
+        drawAllHands(g, C, C, R, hour, minute, second, millisOfSecond, stopwatchTime);
+        start = stageEnd(FrameMetrics.Stage.HANDS, start);
+        if (detail == Detail.FULL) {
+            drawCrystalReflection(g, C, C, R);
+        }
+        stageEnd(FrameMetrics.Stage.REFLECTION, start);
+
+        g.setTransform(old);
+        if (hints != null) {
+            g.setRenderingHints(hints);
+        } else {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialias);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, textAntialias);
+        }
+    }
+
+    /**
+     * Trades quality for speed where small faces would not show the
+     * difference. Shapes stay antialiased, since jagged edges show at any
+     * size; text is only smoothed where its font asks for it.
+     */
+    private void applyDetailHints(Graphics2D g2) {
+        if (detail == Detail.FULL) {
+            return;
+        }
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        g2.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED);
+        g2.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_GASP);
+    }
+
+    /**
+     * Draws everything of a face that does not move within a day: the static
+     * face from the shared layers, the date and {@code zoneName}, and the
+     * chronograph hands at rest. Used by {@link WorldClockWall}, which draws
+     * the moving hands on top with {@link #renderTimeHands}. The crystal
+     * reflection is left out, since it would have to be blended over every
+     * face on every frame.
+     */
+    void renderDial(Graphics2D g, int width, int height, long epochMillis, ZoneId zone, String zoneName) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        setFrame(width, height, epochMillis, zone, 0, 0);
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        // Every face of one size shares these two layers
+        g.drawImage(buttonLayer.get(width, height, 0, 0, buttonPainter), 0, 0, null);
+        g.drawImage(staticLayer.get(width, height, 0, 0, staticPainter), 0, 0, null);
+
+        Object antialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        Object textAntialias = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.transform(designTransform);
+        drawDateWindow(g, C, C, R, LocalDate.ofEpochDay(epochDay).getDayOfMonth());
+        drawZoneName(g, C, C, R, zoneName);
+        drawStopwatchHand(g, C, C, R, 0);
+        drawStopwatchMinuteHand(g, C, C, R, 0);
+        g.transform(inverseDesignTransform);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialias);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, textAntialias);
+    }
+
+    /**
+     * Draws only the hands that follow the time of day, the main hands and
+     * the 24-hour hand, over a dial drawn by {@link #renderDial}. Expects
+     * antialiasing to be set on {@code g} already.
+     */
+    void renderTimeHands(Graphics2D g, int width, int height, long epochMillis, ZoneId zone) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        setFrame(width, height, epochMillis, zone, 0, 0);
+        g.transform(designTransform);
+        draw24hHand(g, C, C, R, hour, minute);
+        drawHands(g, C, C, R, hour, minute, second);
+        g.transform(inverseDesignTransform);
+    }
+
+    /** Local epoch day at {@code epochMillis} in {@code zone}, as shown in the date window. */
+    static long epochDay(long epochMillis, ZoneId zone) {
+        long localSeconds = ZoneOffsetCache.forZone(zone).toLocalEpochSecond(Math.floorDiv(epochMillis, 1000L));
+        return Math.floorDiv(localSeconds, (long) SECONDS_PER_DAY);
+    }
+
+    private void drawStaticFace(Graphics2D g2) {
+        long start = stageStart();
+        drawCrown(g2, C, C, R);
+        drawCase(g2, C, C, R);
+        start = stageEnd(FrameMetrics.Stage.CASE, start);
+        drawDial(g2, C, C, R);
+        start = stageEnd(FrameMetrics.Stage.DIAL, start);
+        drawStopwatchFace(g2, C, C, R);
+        draw24hDialFace(g2, C, C, R);
+        drawStopwatchMinuteDialFace(g2, C, C, R);
+        stageEnd(FrameMetrics.Stage.SUB_DIALS, start);
+    }
+
+    private long stageStart() {
+        return metrics != null ? System.nanoTime() : 0;
+    }
+
+    /** Adds the time since {@code start} to {@code stage}, and returns the time the next stage starts at. */
+    private long stageEnd(FrameMetrics.Stage stage, long start) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.stage(stage, now - start);
+        return now;
+    }
+
+    /** Draws the hands of the current frame in design space, leaving the transform of {@code g2} as it was. */
+    private void drawHandsLayer(Graphics2D g2) {
+        // Concatenating and undoing the mapping avoids the copies getTransform/setTransform make
+        g2.transform(designTransform);
+        drawAllHands(g2, C, C, R, hour, minute, second, millisOfSecond, stopwatchTime);
+        g2.transform(inverseDesignTransform);
+    }
+
+    void drawAllHands(Graphics2D g2, int cx, int cy, int radius, int hour, int minute, int second, int millis,
+                      long stopwatchTime) {
+        drawStopwatchHand(g2, cx, cy, radius, stopwatchTime);           // Bottom (6 o'clock) - Seconds
+        draw24hHand(g2, cx, cy, radius, hour, minute);                  // Left (9 o'clock) - 24h Time
+        drawStopwatchMinuteHand(g2, cx, cy, radius, stopwatchTime);     // Right (3 o'clock) - Stopwatch Minutes
+        drawHands(g2, cx, cy, radius, hour, minute, second, millis);
+    }
+
+    // --- Mapping between the 750x750 design space and a width x height target ---
+
+    static double scale(int width, int height) {
+        return Math.min(width, height) / (double) DESIGN_SIZE;
+    }
+
+    static int offsetX(int width, int height) {
+        return (int) Math.floor((width - DESIGN_SIZE * scale(width, height)) / 2);
+    }
+
+    static int offsetY(int width, int height) {
+        return (int) Math.floor((height - DESIGN_SIZE * scale(width, height)) / 2);
+    }
+
+    static void toDesignSpace(Graphics2D g2, int width, int height) {
+        double scale = scale(width, height);
+        g2.translate(offsetX(width, height), offsetY(width, height));
+        g2.scale(scale, scale);
+    }
+
+    /** Converts a rectangle in design space to the enclosing pixel rectangle of the target. */
+    static Rectangle toTarget(int width, int height, double x, double y, double w, double h) {
+        double scale = scale(width, height);
+        int ox = offsetX(width, height);
+        int oy = offsetY(width, height);
+        int x1 = (int) Math.floor(ox + x * scale);
+        int y1 = (int) Math.floor(oy + y * scale);
+        int x2 = (int) Math.ceil(ox + (x + w) * scale);
+        int y2 = (int) Math.ceil(oy + (y + h) * scale);
+        return new Rectangle(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    // --- Geometry for hit testing and dirty-region repaints, in target pixels ---
+
+    /** Area of the top (start/stop/reset) button that reacts to the mouse. */
+    static Rectangle2D topButtonHitBounds(int width, int height) {
+        return toTarget(width, height, C + R + 25 - 5, C - 60, 20, 40);
+    }
+
+    /** Area a button can cover in either position, plus a pixel of antialiasing. */
+    static Rectangle buttonRepaintBounds(int width, int height, boolean top) {
+        // Pressed buttons move 5px inwards
+        int btnY = top ? C - 60 : C + 30;
+        return grow(toTarget(width, height, C + R + 25 - 5 - 5, btnY, 20 + 5, 40), 1);
+    }
+
+    static Rectangle dateWindowBounds(int width, int height) {
+        // Same placement as drawDateWindow, plus the border stroke
+        double dateAngle = Math.toRadians(30);
+        int dateDist = R - 60;
+        int dateX = (int) (C + Math.cos(dateAngle) * dateDist) - 42 / 2;
+        int dateY = (int) (C + Math.sin(dateAngle) * dateDist) - 32 / 2;
+        return grow(toTarget(width, height, dateX - 2, dateY - 2, 42 + 4, 32 + 4), 1);
+    }
+
+    /** The two stopwatch sub-dials, at 6 and 3 o'clock, with their hands. */
+    static Rectangle chronographBounds(int width, int height) {
+        // Same placement as drawStopwatchFace and drawStopwatchMinuteDialFace, plus the rim stroke
+        int subRadius = R / 4;
+        int offset = R / 2 + 10;
+        Rectangle seconds = toTarget(width, height, C - subRadius - 2, C + offset - subRadius - 2,
+                subRadius * 2 + 4, subRadius * 2 + 4);
+        Rectangle minutes = toTarget(width, height, C + offset - subRadius - 2, C - subRadius - 2,
+                subRadius * 2 + 4, subRadius * 2 + 4);
+        return grow(seconds.union(minutes), 1);
+    }
+
+    /**
+     * Bounds of everything that moves with time for {@code state}: the three
+     * main hands, the central pivot and the three sub-dial hands.
+     */
+    static Rectangle handsBounds(int width, int height, WatchState state) {
+        return handsBounds(width, height, state.getInstant().toEpochMilli(), state.getZone(),
+                state.getStopwatchElapsedMillis());
+    }
+
+    static Rectangle handsBounds(int width, int height, long epochMillis, ZoneId zone, long stopwatchMillis) {
+        return handsBounds(width, height, epochMillis, zone, stopwatchMillis, false);
+    }
+
+    /** Bounds of the hands at {@code epochMillis}, between whole seconds too if {@code sweep} is set. */
+    static Rectangle handsBounds(int width, int height, long epochMillis, ZoneId zone, long stopwatchMillis,
+                                 boolean sweep) {
+        long localSeconds = ZoneOffsetCache.forZone(zone).toLocalEpochSecond(Math.floorDiv(epochMillis, 1000L));
+        int secondOfDay = (int) Math.floorMod(localSeconds, (long) SECONDS_PER_DAY);
+        int millis = sweep ? (int) Math.floorMod(epochMillis, 1000L) : 0;
+        Rectangle r = designHandsBounds(C, C, R, secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60,
+                millis, stopwatchMillis);
+        return grow(toTarget(width, height, r.x, r.y, r.width, r.height), 1);
+    }
+
+    private static Rectangle grow(Rectangle r, int pad) {
+        r.grow(pad, pad);
+        return r;
+    }
+
+    void draw24hDialFace(Graphics2D g2, int cx, int cy, int mainRadius) {
+        // Left sub-dial at 9 o'clock
+        int subRadius = mainRadius / 4; // Approx 80px
+        int subCx = cx - mainRadius / 2 - 10;
+        int subCy = cy;
+
+        // Draw Face
+        drawSubDialFace(g2, subCx, subCy, subRadius);
+
+        // Markings (0 - 24), with numbers for 24, 6, 12, 18
+        drawSubDialMarkings(g2, DialGeometry.subDial(subCx, subCy, subRadius, 24, true));
+        
+        // Label
+        if (detail == Detail.FULL) {
+            GlyphCache.Text lbl = glyphs.get(g2, res.subDialLabelFont, "24H");
+            lbl.draw(g2, subCx - lbl.width / 2, subCy + 15);
+        }
+    }
+
+    void draw24hHand(Graphics2D g2, int cx, int cy, int mainRadius, int hour, int minute) {
+        int subRadius = mainRadius / 4;
+        int subCx = cx - mainRadius / 2 - 10;
+        int subCy = cy;
+
+        drawSubHand(g2, subCx, subCy, hour24Angle(hour, minute), subRadius - 5, Color.WHITE);
+    }
+
+    void drawStopwatchMinuteDialFace(Graphics2D g2, int cx, int cy, int mainRadius) {
+        // Right sub-dial at 3 o'clock
+        int subRadius = mainRadius / 4;
+        int subCx = cx + mainRadius / 2 + 10;
+        int subCy = cy;
+
+        // Draw Face
+        drawSubDialFace(g2, subCx, subCy, subRadius);
+
+        // Markings (0 - 60), with numbers for 15, 30, 45, 60
+        drawSubDialMarkings(g2, DialGeometry.subDial(subCx, subCy, subRadius, 60, true));
+        
+        // Label
+        if (detail == Detail.FULL) {
+            GlyphCache.Text lbl = glyphs.get(g2, res.subDialLabelFont, "MIN");
+            lbl.draw(g2, subCx - lbl.width / 2, subCy + 15);
+        }
+    }
+
+    void drawStopwatchMinuteHand(Graphics2D g2, int cx, int cy, int mainRadius, long time) {
+        int subRadius = mainRadius / 4;
+        int subCx = cx + mainRadius / 2 + 10;
+        int subCy = cy;
+
+        drawSubHand(g2, subCx, subCy, stopwatchMinuteAngle(time), subRadius - 5, res.chronographHand);
+    }
+
+    private void drawSubDialMarkings(Graphics2D g2, DialGeometry dial) {
+        if (detail == Detail.MINIMAL) {
+            return;
+        }
+        g2.setColor(Color.LIGHT_GRAY);
+        g2.setStroke(res.subDialStroke);
+        for (int i = 0; i < dial.count; i++) {
+            g2.drawLine(dial.x1[i], dial.y1[i], dial.x2[i], dial.y2[i]);
+
+            if (dial.numerals[i] != null && detail == Detail.FULL) {
+                GlyphCache.Text num = glyphs.get(g2, res.subDialNumberFont, dial.numerals[i]);
+                num.draw(g2, dial.numeralX[i] - num.width / 2, dial.numeralY[i] + num.ascent / 2 - 1);
+            }
+        }
+    }
+
+    private void drawSubDialFace(Graphics2D g2, int cx, int cy, int radius) {
+        g2.setColor(res.subDialFace);
+        g2.fillOval(cx - radius, cy - radius, radius * 2, radius * 2);
+        g2.setColor(res.subDialRim);
+        g2.setStroke(res.subDialStroke);
+        g2.drawOval(cx - radius, cy - radius, radius * 2, radius * 2);
+    }
+    
+    private void drawSubHand(Graphics2D g2, int cx, int cy, double angle, int length, Color color) {
+        g2.setColor(color);
+        g2.setStroke(res.subHandStroke);
+        res.line.setLine(cx, cy,
+            (int)(cx + Math.cos(angle) * length),
+            (int)(cy + Math.sin(angle) * length));
+        g2.draw(res.line);
+        res.pivot.setFrame(cx - 2, cy - 2, 4, 4);
+        g2.fill(res.pivot);
+    }
+
+    void drawCrown(Graphics2D g2, int cx, int cy, int radius) {
+        // Crown at 3 o'clock position
+        int crownW = 15;
+        int crownH = 25;
+        int caseOuterRadius = radius + 25;
+        int crownX = cx + caseOuterRadius - 3;
+        int crownY = cy - crownH / 2;
+
+        g2.setColor(res.crown);
+        g2.fillRoundRect(crownX, crownY, crownW, crownH, 5, 5);
+        g2.setColor(res.crownEdge);
+        g2.drawRoundRect(crownX, crownY, crownW, crownH, 5, 5);
+
+        // Draw ribs on the crown, a pixel apart or less on small faces
+        if (detail == Detail.FULL) {
+            g2.setColor(res.crownRib);
+            for (int i = 2; i < crownH; i += 4) {
+                g2.drawLine(crownX, crownY + i, crownX + crownW, crownY + i);
+            }
+        }
+    }
+
+    void drawStopwatchFace(Graphics2D g2, int cx, int cy, int mainRadius) {
+        // Sub-dial at 6 o'clock
+        int subRadius = mainRadius / 4;
+        int subCx = cx;
+        int subCy = cy + mainRadius / 2 + 10; // Positioned lower half
+
+        // Sub-dial face
+        g2.setColor(res.subDialFace);
+        g2.fillOval(subCx - subRadius, subCy - subRadius, subRadius * 2, subRadius * 2);
+        g2.setColor(res.stopwatchRim);
+        g2.setStroke(res.subDialStroke);
+        g2.drawOval(subCx - subRadius, subCy - subRadius, subRadius * 2, subRadius * 2);
+
+        // Sub-dial markings (seconds)
+        if (detail != Detail.MINIMAL) {
+            DialGeometry dial = DialGeometry.subDial(subCx, subCy, subRadius, 60, false);
+            g2.setColor(Color.LIGHT_GRAY);
+            for (int i = 0; i < dial.count; i++) {
+                g2.drawLine(dial.x1[i], dial.y1[i], dial.x2[i], dial.y2[i]);
+            }
+        }
+
+    }
+
+    void drawStopwatchHand(Graphics2D g2, int cx, int cy, int mainRadius, long time) {
+        int subRadius = mainRadius / 4;
+        int subCx = cx;
+        int subCy = cy + mainRadius / 2 + 10;
+
+        double angle = stopwatchSecondAngle(time);
+
+        // Draw hand
+        drawSubHand(g2, subCx, subCy, angle, subRadius - 5, res.chronographHand);
+    }
+
+    void drawButtons(Graphics2D g2, int cx, int cy, int radius, boolean topBtnPressed, boolean bottomBtnPressed) {
+        // Calculate common dimensions
+        int btnWidth = 20;
+        int btnHeight = 40;
+        // The case outer radius is roughly radius + 25 (see drawCase)
+        // We want buttons to stick out.
+        // X position where button starts (attached to case)
+        int caseOuterRadius = radius + 25;
+        int btnBaseX = cx + caseOuterRadius - 5; // Slight overlap with case
+
+        // Define hit-test rectangles (static positions)
+        int topBtnY = cy - 60;
+        int bottomBtnY = cy + 30;
+
+
+        // Draw Top Button
+        int drawX = btnBaseX;
+        if (topBtnPressed) {
+            drawX -= 5; // Move "down" (inwards)
+        }
+        
+        res.buttonShape.setRoundRect(drawX, topBtnY, btnWidth, btnHeight, 5, 5);
+        g2.setColor(res.button);
+        g2.fill(res.buttonShape);
+        g2.setColor(res.buttonEdge);
+        g2.draw(res.buttonShape);
+
+        // Draw Bottom Button
+        drawX = btnBaseX;
+        if (bottomBtnPressed) {
+            drawX -= 5; // Move "down" (inwards)
+        }
+        
+        res.buttonShape.setRoundRect(drawX, bottomBtnY, btnWidth, btnHeight, 5, 5);
+        g2.setColor(res.button);
+        g2.fill(res.buttonShape);
+        g2.setColor(res.buttonEdge);
+        g2.draw(res.buttonShape);
+    }
+
+    void drawCase(Graphics2D g2, int cx, int cy, int radius) {
+        // Metallic Case - Brushed Steel look, or plain steel where the gradient would hardly show
+        if (detail == Detail.MINIMAL) {
+            g2.setColor(res.caseFlat);
+        } else {
+            g2.setPaint(res.metal(cx, cy, radius));
+        }
+        g2.fillOval(cx - radius - 25, cy - radius - 25, (radius + 25) * 2, (radius + 25) * 2);
+        
+        // Inner Bezel Ring
+        g2.setColor(res.bezel);
+        g2.setStroke(res.bezelStroke);
+        g2.drawOval(cx - radius, cy - radius, radius * 2, radius * 2);
+    }
+
+    void drawDial(Graphics2D g2, int cx, int cy, int radius) {
+        // Dial Face - Deep Navy/Black sunburst effect simulation (simplified to solid for Swing)
+        g2.setColor(res.dial);
+        g2.fillOval(cx - radius, cy - radius, radius * 2, radius * 2);
+
+        // Citizen Logo
+        g2.setColor(Color.LIGHT_GRAY);
+        if (detail != Detail.MINIMAL) {
+            GlyphCache.Text logo = glyphs.get(g2, res.logoFont, "CITIZEN");
+            logo.draw(g2, cx - logo.width / 2, cy - radius / 2);
+        }
+
+        // Small print, unreadable below full detail
+        if (detail == Detail.FULL) {
+            GlyphCache.Text subText = glyphs.get(g2, res.ecoDriveFont, "Eco-Drive");
+            subText.draw(g2, cx - subText.width / 2, cy - radius / 2 + 19);
+
+            GlyphCache.Text radioText = glyphs.get(g2, res.smallTextFont, "RADIO CONTROLLED");
+            radioText.draw(g2, cx - radioText.width / 2, cy - radius / 2 + 38);
+
+            // Designer Text at bottom
+            g2.setColor(res.designerText);
+            GlyphCache.Text designText = glyphs.get(g2, res.smallTextFont, "DESIGNED BY DOBROSAV VLASKOVIC");
+            designText.draw(g2, cx - designText.width / 2, cy + radius - 50);
+        }
+
+        // Draw "12" explicitly as requested, slightly inside the tick marks
+        g2.setColor(Color.WHITE);
+        GlyphCache.Text num = glyphs.get(g2, res.numeralFont, "12");
+        num.draw(g2, cx - num.width / 2, cy - radius + 75);
+
+        // Hour Markers
+        DialGeometry dial = DialGeometry.watchDial(cx, cy, radius);
+        for (int i = 0; i < dial.count; i++) {
+            if (!dial.major[i] && detail != Detail.FULL) {
+                continue; // Minute ticks would be under a pixel apart
+            }
+            if (dial.major[i]) {
+                // Steel baton indices, including the small marker above 12
+                g2.setStroke(res.indexStroke);
+                g2.setColor(res.index);
+            } else {
+                // Minute ticks
+                g2.setStroke(res.minuteTickStroke);
+                g2.setColor(res.minuteTick);
+            }
+            g2.drawLine(dial.x1[i], dial.y1[i], dial.x2[i], dial.y2[i]);
+        }
+    }
+
+    void drawZoneName(Graphics2D g2, int cx, int cy, int radius, String zoneText) {
+        // Zone Name Display - Moved up slightly
+        g2.setColor(res.zoneText);
+        GlyphCache.Text text = glyphs.get(g2, res.zoneFont, zoneText);
+        text.draw(g2, cx - text.width / 2, cy - 50);
+    }
+
+    void drawDateWindow(Graphics2D g2, int cx, int cy, int radius, int day) {
+        // Date Window at 4 o'clock position (approx angle 30 degrees)
+        double dateAngle = Math.toRadians(30); 
+        int dateDist = radius - 60; // Slightly inside
+        int dateW = 42; // Increased width (was 30)
+        int dateH = 32; // Increased height (was 23)
+        int dateX = (int)(cx + Math.cos(dateAngle) * dateDist) - dateW / 2;
+        int dateY = (int)(cy + Math.sin(dateAngle) * dateDist) - dateH / 2;
+        
+        // Rotate for 4 o'clock alignment? No, usually horizontal.
+        g2.setColor(Color.WHITE);
+        g2.fillRect(dateX, dateY, dateW, dateH);
+        g2.setColor(Color.BLACK);
+
+        GlyphCache.Text dateStr = glyphs.get(g2, res.dateFont, DAYS[day]);
+        int dateTextX = dateX + (dateW - dateStr.width) / 2;
+        int dateTextY = dateY + (dateH - dateStr.height) / 2 + dateStr.ascent;
+
+        dateStr.draw(g2, dateTextX, dateTextY);
+        g2.setColor(Color.GRAY);
+        g2.setStroke(res.hairline);
+        g2.drawRect(dateX, dateY, dateW, dateH);
+    }
+
+    void drawHands(Graphics2D g2, int cx, int cy, int radius, int hour, int minute, int second) {
+        drawHands(g2, cx, cy, radius, hour, minute, second, 0);
+    }
+
+    /** Draws the main hands {@code millis} past {@code second}, for a sweeping second hand. */
+    void drawHands(Graphics2D g2, int cx, int cy, int radius, int hour, int minute, int second, int millis) {
+        double secondAngle = secondAngle(second, millis);
+        double minuteAngle = minuteAngle(minute, second, millis);
+        double hourAngle = hourAngle(hour, minute);
+
+        AffineTransform sprites = spriteTransform(g2);
+        if (sprites != null) {
+            drawSwordSprite(g2, sprites, cx, cy, hourAngle, HOUR_SPRITE_STEPS, radius * 0.55, 8);
+            drawSwordSprite(g2, sprites, cx, cy, minuteAngle, MINUTE_SPRITE_STEPS, radius * 0.8, 5);
+        } else {
+            // Hour Hand (Sword shape)
+            g2.setColor(res.hand);
+            drawSwordHand(g2, cx, cy, hourAngle, radius * 0.55, 8);
+
+            // Minute Hand (Sword shape)
+            g2.setColor(res.hand);
+            drawSwordHand(g2, cx, cy, minuteAngle, radius * 0.8, 5);
+        }
+
+        // Second Hand (Citizen often has a simple thin needle, sometimes yellow or white)
+        g2.setColor(res.secondHand);
+        g2.setStroke(res.hairline);
+        int secLen = (int) (radius * 0.9);
+        int tailLen = 31;
+        res.line.setLine(
+            (int)(cx - Math.cos(secondAngle) * tailLen), (int)(cy - Math.sin(secondAngle) * tailLen),
+            (int)(cx + Math.cos(secondAngle) * secLen), (int)(cy + Math.sin(secondAngle) * secLen)
+        );
+        g2.draw(res.line);
+
+        // Central Pivot
+        res.pivot.setFrame(cx - 4, cy - 4, 8, 8);
+        g2.fill(res.pivot);
+    }
+
+    /**
+     * The transform of {@code g2} if hands can be drawn from sprites, which
+     * needs an atlas and a transform that only scales and translates.
+     */
+    private AffineTransform spriteTransform(Graphics2D g2) {
+        if (handAtlas == null) {
+            return null;
+        }
+        AffineTransform t = g2.getTransform();
+        int other = t.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE);
+        return other == 0 && t.getScaleX() > 0 ? t : null;
+    }
+
+    /** Blits the sword hand at the sprite angle closest to {@code angle}, with its pivot on (cx, cy). */
+    private void drawSwordSprite(Graphics2D g2, AffineTransform t, int cx, int cy, double angle, int steps,
+                                 double length, int width) {
+        double turn = 2 * Math.PI;
+        int step = (int) Math.round((angle % turn + turn) % turn / turn * steps) % steps;
+        double scale = t.getScaleX();
+        double pivotX = t.getTranslateX() + scale * cx;
+        double pivotY = t.getTranslateY() + scale * cy;
+        int x = (int) Math.floor(pivotX);
+        int y = (int) Math.floor(pivotY);
+        // Minimal faces have no lume strips, so their sprites are kept apart from the others
+        int style = detail == Detail.MINIMAL ? 1 : 0;
+        HandAtlas.Sprite sprite = handAtlas.get(length, width, style, steps, step, scale, pivotX - x, pivotY - y,
+                swordPainter);
+
+        // Sprites are in device pixels, the clip is kept in them already
+        g2.setTransform(IDENTITY);
+        sprite.draw(g2, x, y);
+        g2.setTransform(t);
+    }
+
+    private static double secondAngle(int second, int millis) {
+        return Math.toRadians(6 * (second + millis / 1000.0) - 90);
+    }
+
+    private static double minuteAngle(int minute, int second, int millis) {
+        return Math.toRadians(6 * minute + 0.1 * (second + millis / 1000.0) - 90);
+    }
+
+    private static double hourAngle(int hour, int minute) {
+        return Math.toRadians(30 * (hour % 12) + 0.5 * minute - 90);
+    }
+
+    private static double hour24Angle(int hour, int minute) {
+        double hour24 = hour + minute / 60.0;
+        return Math.toRadians(15 * hour24 - 90); // 15 degrees per hour
+    }
+
+    private static double stopwatchSecondAngle(long time) {
+        // 60 seconds per revolution
+        long totalSeconds = time / 1000;
+        long millis = time % 1000;
+        double secondsVal = totalSeconds % 60 + millis / 1000.0;
+        return Math.toRadians(6 * secondsVal - 90);
+    }
+
+    private static double stopwatchMinuteAngle(long time) {
+        long totalSeconds = time / 1000;
+        double minutesVal = totalSeconds / 60.0; // Continuous movement
+        return Math.toRadians(6 * minutesVal - 90); // 6 degrees per minute (0-60 scale)
+    }
+
+    /** Bounds of the moving parts in design space, padded for antialiasing. */
+    private static Rectangle designHandsBounds(int cx, int cy, int radius, int hour, int minute, int second,
+                                               int millis, long stopwatchTime) {
+        Rectangle r = new Rectangle(cx - 5, cy - 5, 10, 10); // Central pivot
+        addHandBounds(r, cx, cy, hourAngle(hour, minute), SWORD_TAIL, radius * 0.55, 4 + 2);
+        addHandBounds(r, cx, cy, minuteAngle(minute, second, millis), SWORD_TAIL, radius * 0.8, 3 + 2);
+        addHandBounds(r, cx, cy, secondAngle(second, millis), 31, (int) (radius * 0.9), 2);
+
+        int subRadius = radius / 4;
+        int subLen = subRadius - 5;
+        addHandBounds(r, cx, cy + radius / 2 + 10, stopwatchSecondAngle(stopwatchTime), 3, subLen, 3);
+        addHandBounds(r, cx - radius / 2 - 10, cy, hour24Angle(hour, minute), 3, subLen, 3);
+        addHandBounds(r, cx + radius / 2 + 10, cy, stopwatchMinuteAngle(stopwatchTime), 3, subLen, 3);
+        return r;
+    }
+
+    private static void addHandBounds(Rectangle r, int cx, int cy, double angle, double tail, double length, int pad) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        int x1 = (int) Math.floor(Math.min(cx - cos * tail, cx + cos * length)) - pad;
+        int y1 = (int) Math.floor(Math.min(cy - sin * tail, cy + sin * length)) - pad;
+        int x2 = (int) Math.ceil(Math.max(cx - cos * tail, cx + cos * length)) + pad;
+        int y2 = (int) Math.ceil(Math.max(cy - sin * tail, cy + sin * length)) + pad;
+        r.add(new Rectangle(x1, y1, x2 - x1, y2 - y1));
+    }
+
+
+    private void drawSwordHand(Graphics2D g2, int cx, int cy, double angle, double length, int width) {
+        // Rotate the outline ourselves instead of the graphics transform, which would copy it
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double half = width / 2.0;
+
+        Path2D.Double path = res.swordHand;
+        path.reset();
+        path.moveTo(cx + sin * half, cy - cos * half);
+        path.lineTo(cx + cos * length, cy + sin * length);
+        path.lineTo(cx - sin * half, cy + cos * half);
+        path.lineTo(cx - cos * SWORD_TAIL, cy - sin * SWORD_TAIL); // Short tail
+        path.closePath();
+
+        g2.fill(path);
+        if (detail == Detail.MINIMAL) {
+            return;
+        }
+
+        // Lume strip in the middle
+        int lumeEnd = (int) (length * 0.8);
+        g2.setColor(res.lume);
+        g2.setStroke(res.hairline);
+        res.line.setLine(cx + cos * 6, cy + sin * 6, cx + cos * lumeEnd, cy + sin * lumeEnd);
+        g2.draw(res.line);
+    }
+
+    void drawCrystalReflection(Graphics2D g2, int cx, int cy, int radius) {
+        // Subtle reflection on the glass
+        g2.setPaint(res.reflection(cx, cy, radius));
+        g2.fillOval(cx - radius, cy - radius, radius * 2, radius * 2 / 2); // Top half gloss
+    }
+}
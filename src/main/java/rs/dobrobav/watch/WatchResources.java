@@ -0,0 +1,101 @@
+package rs.dobrobav.watch;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.RoundRectangle2D;
+
+/**
+ * Paints, strokes, fonts and scratch shapes used by one {@link WatchRenderer}.
+ * Everything a frame needs is created once here, so drawing a frame does not
+ * allocate. The shapes are mutable scratch objects: they are only valid for
+ * the duration of a single draw call and must not be shared between threads.
+ */
+final class WatchResources {
+
+    // Case, crown and buttons
+    final Color caseLight = new Color(200, 200, 200);
+    final Color caseDark = new Color(100, 100, 100);
+    final Color caseFlat = new Color(150, 150, 150); // Middle of the gradient, for tiny faces
+    final Color bezel = new Color(30, 30, 30);
+    final Color crown = new Color(160, 160, 160);
+    final Color crownEdge = new Color(80, 80, 80);
+    final Color crownRib = new Color(100, 100, 100);
+    final Color button = new Color(180, 180, 180); // Metallic button
+    final Color buttonEdge = new Color(100, 100, 100);
+
+    // Dial
+    final Color dial = new Color(10, 15, 30);
+    final Color designerText = new Color(150, 150, 150);
+    final Color zoneText = new Color(200, 200, 200);
+    final Color index = new Color(220, 220, 220); // Steel indices
+    final Color minuteTick = new Color(100, 100, 100);
+    final Color subDialFace = new Color(20, 25, 40);
+    final Color subDialRim = new Color(80, 80, 80);
+    final Color stopwatchRim = new Color(100, 100, 100);
+
+    // Hands
+    final Color hand = new Color(230, 230, 230);
+    final Color lume = new Color(50, 50, 50);
+    final Color secondHand = new Color(200, 180, 50); // Gold/Yellowish accent
+    final Color chronographHand = new Color(255, 100, 100); // Red hand
+
+    final BasicStroke hairline = new BasicStroke(1);
+    final BasicStroke minuteTickStroke = new BasicStroke(1.2f);
+    final BasicStroke subDialStroke = new BasicStroke(1.5f);
+    final BasicStroke subHandStroke = new BasicStroke(2);
+    final BasicStroke bezelStroke = new BasicStroke(2.5f);
+    final BasicStroke indexStroke = new BasicStroke(5);
+
+    final Font logoFont = new Font("SansSerif", Font.BOLD, 18);
+    final Font ecoDriveFont = new Font("SansSerif", Font.PLAIN, 13);
+    final Font smallTextFont = new Font("SansSerif", Font.PLAIN, 11);
+    final Font zoneFont = new Font("SansSerif", Font.BOLD, 16);
+    final Font numeralFont = new Font("Serif", Font.BOLD, 45);
+    final Font dateFont = new Font("SansSerif", Font.BOLD, 18); // Slightly larger/bolder font
+    final Font subDialNumberFont = new Font("SansSerif", Font.PLAIN, 10);
+    final Font subDialLabelFont = new Font("SansSerif", Font.PLAIN, 9);
+
+    // Scratch shapes, refilled by each draw call
+    final Path2D.Double swordHand = new Path2D.Double();
+    final Line2D.Double line = new Line2D.Double();
+    final Ellipse2D.Double pivot = new Ellipse2D.Double();
+    final RoundRectangle2D.Double buttonShape = new RoundRectangle2D.Double();
+
+    // Gradients depend on where the face is, so they are kept with the geometry they were made for
+    private GradientPaint metal;
+    private GradientPaint reflection;
+    private int gradientCx;
+    private int gradientCy;
+    private int gradientRadius;
+
+    /** Brushed steel gradient across the case of a face centered at (cx, cy). */
+    GradientPaint metal(int cx, int cy, int radius) {
+        updateGradients(cx, cy, radius);
+        return metal;
+    }
+
+    /** Glass reflection gradient fading out towards the center (cx, cy). */
+    GradientPaint reflection(int cx, int cy, int radius) {
+        updateGradients(cx, cy, radius);
+        return reflection;
+    }
+
+    private void updateGradients(int cx, int cy, int radius) {
+        if (metal != null && cx == gradientCx && cy == gradientCy && radius == gradientRadius) {
+            return;
+        }
+        metal = new GradientPaint(
+            cx - radius, cy - radius, caseLight,
+            cx + radius, cy + radius, caseDark
+        );
+        reflection = new GradientPaint(
+            cx - radius, cy - radius, new Color(255, 255, 255, 30),
+            cx, cy, new Color(255, 255, 255, 0)
+        );
+        gradientCx = cx;
+        gradientCy = cy;
+        gradientRadius = radius;
+    }
+}
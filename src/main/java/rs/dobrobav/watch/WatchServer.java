@@ -0,0 +1,369 @@
+package rs.dobrobav.watch;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves PNGs of the DoWatch face over HTTP, for status pages that embed
+ * the watch without a desktop JVM:
+ * <pre>GET /watch.png?zone=Asia/Tokyo&amp;size=300&amp;stopwatch=83250&amp;running=true</pre>
+ * All parameters are optional. {@code zone} is a zone id (Europe/Belgrade by
+ * default), {@code size} the width and height in pixels, {@code name} the
+ * city shown (named after the zone by default), {@code stopwatch} the
+ * chronograph reading in milliseconds and {@code running} whether it counts.
+ *
+ * <p>The time is rounded down to a bucket, a minute by default, and every
+ * encoded PNG is kept in an LRU cache keyed by what it shows: zone, size,
+ * bucket and stopwatch. Any number of clients asking for the same face in
+ * the same minute share one render and encode; a client that asks while it
+ * is under way waits for that one instead of starting its own. Responses
+ * say how long they stay current with {@code Cache-Control}.
+ *
+ * <p>Requests are handled on a fixed pool of workers, each rendering with
+ * a {@link WatchRenderer} of its own, behind a bounded queue. When the
+ * queue is full the server's dispatcher thread renders the request itself,
+ * which keeps it from accepting more until it is done.
+ *
+ * <p>The JDK's server sends headers and body as two writes, so with Nagle's
+ * algorithm every response waits some 40 ms for the client's delayed ACK of
+ * the headers. Applications embedding the server should start the JVM with
+ * {@code -Dsun.net.httpserver.nodelay=true}; {@link #main} sets it itself.
+ * It is a JVM-wide setting, so the class leaves it alone otherwise.
+ */
+public final class WatchServer implements AutoCloseable {
+
+    public static final String PATH = "/watch.png";
+
+    static final int DEFAULT_CACHE_ENTRIES = 256;
+    static final long DEFAULT_BUCKET_MILLIS = 60_000;
+    static final int MAX_SIZE = 2048;
+    private static final int QUEUE_PER_THREAD = 64;
+    private static final ZoneCatalog.Entry DEFAULT_ZONE = DoWatch.FAVOURITES.get(0);
+
+    /** Read once, when the JDK's server starts for the first time. */
+    static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final ThreadLocal<WatchRenderer> renderers = ThreadLocal.withInitial(WatchRenderer::new);
+
+    // Encoded faces, least recently served first
+    private final int cacheEntries;
+    private final Map<String, CompletableFuture<byte[]>> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile long bucketMillis = DEFAULT_BUCKET_MILLIS;
+    private volatile Clock clock = Clock.systemUTC();
+
+    /** A server on {@code address} (port 0 picks a free one), rendering on {@code threads} workers. */
+    public WatchServer(InetSocketAddress address, int threads, int cacheEntries) throws IOException {
+        if (threads <= 0 || cacheEntries <= 0) {
+            throw new IllegalArgumentException("threads and cacheEntries must be positive");
+        }
+        this.cacheEntries = cacheEntries;
+        this.cache = new LinkedHashMap<String, CompletableFuture<byte[]>>(cacheEntries * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<byte[]>> eldest) {
+                boolean full = size() > WatchServer.this.cacheEntries;
+                if (full) {
+                    evictions.incrementAndGet();
+                }
+                return full;
+            }
+        };
+        AtomicInteger count = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), task -> {
+                    Thread thread = new Thread(task, "WatchServer worker " + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        server = HttpServer.create(address, 0);
+        server.setExecutor(workers);
+        server.createContext(PATH, this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Stops accepting requests, lets the ones under way finish for up to a second, and stops the workers. */
+    @Override
+    public void close() {
+        server.stop(1);
+        workers.shutdown();
+    }
+
+    /** The port the server listens on, useful after binding port 0. */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Length of the time buckets faces are cached for; each shows the time the bucket starts. */
+    public void setBucketMillis(long bucketMillis) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("bucketMillis must be positive: " + bucketMillis);
+        }
+        this.bucketMillis = bucketMillis;
+    }
+
+    /** Replaces the time source, so tests can ask for faces at fixed instants. */
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** Requests answered from the cache, including ones that waited for a render under way. */
+    public long cacheHits() {
+        return hits.get();
+    }
+
+    /** Requests that had to render and encode a face. */
+    public long cacheMisses() {
+        return misses.get();
+    }
+
+    /** Faces dropped from the cache to make room. */
+    public long cacheEvictions() {
+        return evictions.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "Only GET and HEAD are supported");
+                return;
+            }
+            if (!PATH.equals(exchange.getRequestURI().getPath())) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            Request request;
+            try {
+                request = parse(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException | DateTimeException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            long now = clock.millis();
+            long bucket = Math.floorDiv(now, bucketMillis) * bucketMillis;
+            byte[] png;
+            try {
+                png = png(request, bucket);
+            } catch (IOException | RuntimeException e) {
+                sendError(exchange, 500, "Rendering failed: " + e.getMessage());
+                return;
+            }
+
+            long maxAge = (bucket + bucketMillis - now + 999) / 1000;
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=" + maxAge);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, png.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(png);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /** The encoded face for {@code request} in the bucket starting at {@code bucket}, from the cache if it is there. */
+    byte[] png(Request request, long bucket) throws IOException {
+        String key = request.key(bucket);
+        CompletableFuture<byte[]> pending;
+        boolean render;
+        synchronized (cache) {
+            pending = cache.get(key);
+            render = pending == null;
+            if (render) {
+                pending = new CompletableFuture<>();
+                cache.put(key, pending);
+            }
+        }
+        if (render) {
+            misses.incrementAndGet();
+            try {
+                pending.complete(render(request, bucket));
+            } catch (IOException | RuntimeException e) {
+                synchronized (cache) {
+                    cache.remove(key, pending); // Let the next request try again
+                }
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a render", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Rendering failed", e.getCause());
+        }
+    }
+
+    private byte[] render(Request request, long bucket) throws IOException {
+        int flags = request.running ? WatchRenderer.STOPWATCH_RUNNING : 0;
+        BufferedImage image = new BufferedImage(request.size, request.size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            renderers.get().render(g2, request.size, request.size, bucket, request.zone, request.name,
+                    request.stopwatch, flags);
+        } finally {
+            g2.dispose();
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream(32 << 10);
+        if (!ImageIO.write(image, "png", png)) {
+            throw new IOException("No PNG writer available");
+        }
+        return png.toByteArray();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /** What a request asks to see. */
+    static final class Request {
+        final ZoneId zone;
+        final String name;
+        final int size;
+        final long stopwatch;
+        final boolean running;
+
+        Request(ZoneId zone, String name, int size, long stopwatch, boolean running) {
+            this.zone = zone;
+            this.name = name;
+            this.size = size;
+            this.stopwatch = stopwatch;
+            this.running = running;
+        }
+
+        /** Cache key of this face in the bucket starting at {@code bucket}. */
+        String key(long bucket) {
+            return zone.getId() + '|' + name + '|' + size + '|' + bucket + '|' + stopwatch + '|' + running;
+        }
+    }
+
+    /**
+     * Reads a request from a raw query string.
+     *
+     * @throws IllegalArgumentException or {@link DateTimeException} if a parameter is not valid
+     */
+    static Request parse(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery != null && !rawQuery.isEmpty()) {
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                params.put(decode(equals < 0 ? pair : pair.substring(0, equals)),
+                        equals < 0 ? "" : decode(pair.substring(equals + 1)));
+            }
+        }
+        ZoneId zone = DEFAULT_ZONE.zone();
+        String name = DEFAULT_ZONE.name();
+        if (params.containsKey("zone")) {
+            zone = ZoneId.of(params.get("zone"));
+            name = ZoneCatalog.label(zone);
+        }
+        if (params.containsKey("name")) {
+            name = params.get("name");
+        }
+        int size = params.containsKey("size") ? number("size", params.get("size")) : 300;
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SIZE + ": " + size);
+        }
+        long stopwatch = params.containsKey("stopwatch") ? number("stopwatch", params.get("stopwatch")) : 0;
+        if (stopwatch < 0) {
+            throw new IllegalArgumentException("stopwatch must not be negative: " + stopwatch);
+        }
+        boolean running = Boolean.parseBoolean(params.get("running"));
+        return new Request(zone, name, size, stopwatch, running);
+    }
+
+    private static int number(String param, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(param + " must be a whole number: " + value);
+        }
+    }
+
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // UTF-8 is always supported
+        }
+    }
+
+    /**
+     * Turns Nagle's algorithm off for the JDK's HTTP server in this JVM,
+     * unless it was configured on the command line. Only takes effect
+     * before the first server starts.
+     */
+    static void useNoDelay() {
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+    }
+
+    /** Runs a server until the JVM is stopped: {@code [--port 8080] [--threads n] [--cache entries] [--bucket seconds]}. */
+    public static void main(String[] args) throws IOException {
+        useNoDelay();
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int cacheEntries = DEFAULT_CACHE_ENTRIES;
+        long bucketSeconds = DEFAULT_BUCKET_MILLIS / 1000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--cache": cacheEntries = Integer.parseInt(args[i + 1]); break;
+                case "--bucket": bucketSeconds = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        WatchServer server = new WatchServer(new InetSocketAddress(port), threads, cacheEntries);
+        server.setBucketMillis(bucketSeconds * 1000);
+        server.start();
+        System.out.println("Serving http://localhost:" + server.getPort() + PATH + "?zone=Asia/Tokyo&size=300");
+    }
+}
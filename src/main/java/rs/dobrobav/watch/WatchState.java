@@ -0,0 +1,83 @@
+package rs.dobrobav.watch;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Everything the DoWatch face shows at one moment: the time and zone, the
+ * chronograph reading and which pushers are held down. Rendering a state
+ * never reads the wall clock, so the same state always draws the same face.
+ */
+public final class WatchState {
+
+    private final Instant instant;
+    private final ZoneId zone;
+    private final String zoneName;
+    private final long stopwatchElapsedMillis;
+    private final boolean stopwatchRunning;
+    private final boolean topButtonPressed;
+    private final boolean bottomButtonPressed;
+    private final boolean sweepSeconds;
+
+    /** A face showing the given time, with the chronograph reset and no buttons pressed. */
+    public WatchState(Instant instant, ZoneId zone, String zoneName) {
+        this(instant, zone, zoneName, 0, false, false, false);
+    }
+
+    public WatchState(Instant instant, ZoneId zone, String zoneName,
+                      long stopwatchElapsedMillis, boolean stopwatchRunning,
+                      boolean topButtonPressed, boolean bottomButtonPressed) {
+        this(instant, zone, zoneName, stopwatchElapsedMillis, stopwatchRunning,
+                topButtonPressed, bottomButtonPressed, false);
+    }
+
+    public WatchState(Instant instant, ZoneId zone, String zoneName,
+                      long stopwatchElapsedMillis, boolean stopwatchRunning,
+                      boolean topButtonPressed, boolean bottomButtonPressed, boolean sweepSeconds) {
+        if (instant == null || zone == null || zoneName == null) {
+            throw new IllegalArgumentException("instant, zone and zoneName are required");
+        }
+        this.instant = instant;
+        this.zone = zone;
+        this.zoneName = zoneName;
+        this.stopwatchElapsedMillis = stopwatchElapsedMillis;
+        this.stopwatchRunning = stopwatchRunning;
+        this.topButtonPressed = topButtonPressed;
+        this.bottomButtonPressed = bottomButtonPressed;
+        this.sweepSeconds = sweepSeconds;
+    }
+
+    public Instant getInstant() {
+        return instant;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public String getZoneName() {
+        return zoneName;
+    }
+
+    public long getStopwatchElapsedMillis() {
+        return stopwatchElapsedMillis;
+    }
+
+    /** Whether the chronograph is counting; a running chronograph changes on every frame. */
+    public boolean isStopwatchRunning() {
+        return stopwatchRunning;
+    }
+
+    public boolean isTopButtonPressed() {
+        return topButtonPressed;
+    }
+
+    public boolean isBottomButtonPressed() {
+        return bottomButtonPressed;
+    }
+
+    /** Whether the second hand sweeps between whole seconds instead of ticking. */
+    public boolean isSweepSeconds() {
+        return sweepSeconds;
+    }
+}
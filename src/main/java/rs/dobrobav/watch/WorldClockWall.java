@@ -0,0 +1,207 @@
+package rs.dobrobav.watch;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * A grid of DoWatch faces, one per time zone, in a single panel. Everything
+ * that does not move is drawn once into a backing image: all faces share
+ * the same static face layers, and each cell only adds its date and zone
+ * name. A frame is then one blit of that image plus the hour, minute,
+ * second and 24-hour hands of every face, driven by one shared tick.
+ */
+public class WorldClockWall extends JPanel {
+
+    private final ZoneId[] zones;
+    private final String[] names;
+    private final WatchRenderer renderer = new WatchRenderer();
+
+    // Layout of the grid for the current size
+    private int columns;
+    private int cellSize;
+    private int gridX;
+    private int gridY;
+
+    // All faces without their moving hands, and the date each cell shows
+    private BufferedImage dials;
+    private long[] dialDays;
+
+    private Clock clock = Clock.systemUTC();
+
+    /** A wall with every zone the JVM knows about. */
+    public WorldClockWall() {
+        this(availableZones());
+    }
+
+    public WorldClockWall(List<ZoneId> zones) {
+        this.zones = zones.toArray(new ZoneId[0]);
+        this.names = new String[this.zones.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = label(this.zones[i]);
+        }
+        setPreferredSize(new Dimension(1280, 720));
+        setBackground(new Color(20, 20, 20)); // Dark background
+        setOpaque(true);
+
+        // One tick for the whole wall: all second hands move together
+        new TickScheduler(this, now -> {
+            repaint();
+            return 1000 - Math.floorMod(clock.millis(), 1000L);
+        });
+    }
+
+    /** Every available zone id, sorted by name. */
+    public static List<ZoneId> availableZones() {
+        return ZoneCatalog.available().zones();
+    }
+
+    /** Name shown on a face: the city part of the zone id, e.g. "BUENOS AIRES". */
+    static String label(ZoneId zone) {
+        return ZoneCatalog.label(zone);
+    }
+
+    /**
+     * Sets the dial radii below which faces are drawn with less detail; see
+     * {@link WatchRenderer#setDetailThresholds}. Walls of many faces are where
+     * the lower tiers pay off most.
+     */
+    public void setDetailThresholds(double reducedBelowRadius, double minimalBelowRadius) {
+        renderer.setDetailThresholds(reducedBelowRadius, minimalBelowRadius);
+        dials = null; // Redraw every face at its new detail
+        repaint();
+    }
+
+    int getFaceCount() {
+        return zones.length;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        // One reading of the clock for every face on the wall
+        long millis = clock.millis();
+        updateDials(w, h, millis);
+        g.drawImage(dials, 0, 0, null);
+        if (cellSize <= 0) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Rectangle clip = g2.getClipBounds();
+            for (int i = 0; i < zones.length; i++) {
+                int x = cellX(i);
+                int y = cellY(i);
+                if (clip != null && !clip.intersects(x, y, cellSize, cellSize)) {
+                    continue;
+                }
+                g2.translate(x, y);
+                renderer.renderTimeHands(g2, cellSize, cellSize, millis, zones[i]);
+                g2.translate(-x, -y);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /** Rebuilds the backing image after a resize, and redraws the cells whose date has changed. */
+    private void updateDials(int w, int h, long millis) {
+        renderer.setBackground(getBackground());
+        if (dials == null || dials.getWidth() != w || dials.getHeight() != h) {
+            layout(w, h);
+            dials = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            dialDays = new long[zones.length];
+            Graphics2D g2 = dials.createGraphics();
+            try {
+                g2.setColor(getBackground());
+                g2.fillRect(0, 0, w, h);
+                for (int i = 0; i < zones.length; i++) {
+                    drawDial(g2, i, millis);
+                }
+            } finally {
+                g2.dispose();
+            }
+            return;
+        }
+
+        Graphics2D g2 = null;
+        try {
+            for (int i = 0; i < zones.length; i++) {
+                if (WatchRenderer.epochDay(millis, zones[i]) != dialDays[i]) {
+                    if (g2 == null) {
+                        g2 = dials.createGraphics();
+                    }
+                    drawDial(g2, i, millis);
+                }
+            }
+        } finally {
+            if (g2 != null) {
+                g2.dispose();
+            }
+        }
+    }
+
+    private void drawDial(Graphics2D g2, int i, long millis) {
+        if (cellSize <= 0) {
+            return;
+        }
+        int x = cellX(i);
+        int y = cellY(i);
+        g2.translate(x, y);
+        renderer.renderDial(g2, cellSize, cellSize, millis, zones[i], names[i]);
+        g2.translate(-x, -y);
+        dialDays[i] = WatchRenderer.epochDay(millis, zones[i]);
+    }
+
+    /** Picks the column count that gives the largest square cells, and centers the grid. */
+    private void layout(int w, int h) {
+        int n = Math.max(1, zones.length);
+        columns = 1;
+        cellSize = 0;
+        for (int cols = 1; cols <= n; cols++) {
+            int rows = (n + cols - 1) / cols;
+            int size = Math.min(w / cols, h / rows);
+            if (size > cellSize) {
+                cellSize = size;
+                columns = cols;
+            }
+        }
+        int rows = (n + columns - 1) / columns;
+        gridX = (w - columns * cellSize) / 2;
+        gridY = (h - rows * cellSize) / 2;
+    }
+
+    private int cellX(int i) {
+        return gridX + (i % columns) * cellSize;
+    }
+
+    private int cellY(int i) {
+        return gridY + (i / columns) * cellSize;
+    }
+
+    /** Replaces the time source, so tests and benchmarks can paint fixed instants. */
+    void setClock(Clock clock) {
+        this.clock = clock;
+        dials = null;
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("DoWatch World Clock");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.add(new WorldClockWall());
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+        });
+    }
+}
@@ -0,0 +1,288 @@
+package rs.dobrobav.watch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Time zones a watch can be set to, with the city name shown for each and a
+ * prefix index for type-to-search. A query matches a zone if it is the start
+ * of its name, of any word in its name, or of its zone id, ignoring case and
+ * with '_' read as a space: "york", "new y" and "america/new" all find New
+ * York. Looking up a prefix is a binary search over sorted keys plus a walk
+ * over the matches, a few microseconds even across every available zone.
+ *
+ * <p>Every zone's offset rules are loaded and its offset looked up when the
+ * catalog is built, so setting a watch to one of its zones never touches the
+ * tz database on the EDT. Immutable and safe to share between threads.
+ */
+public final class ZoneCatalog {
+
+    /** One zone of the catalog. */
+    public static final class Entry {
+        private final ZoneId zone;
+        private final String name;
+        private final String offsetLabel;
+
+        private Entry(ZoneId zone, String name, int offsetSeconds) {
+            this.zone = zone;
+            this.name = name;
+            this.offsetLabel = formatOffset(offsetSeconds);
+        }
+
+        public ZoneId zone() {
+            return zone;
+        }
+
+        /** City name shown on the face, e.g. "NEW YORK". */
+        public String name() {
+            return name;
+        }
+
+        /** Offset from UTC when the catalog was built, e.g. "UTC-05:00". For listings, not for telling time. */
+        public String offsetLabel() {
+            return offsetLabel;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + zone.getId() + ")";
+        }
+    }
+
+    // What a key was made from; full names rank before words and ids
+    private static final byte NAME = 0;
+    private static final byte WORD = 1;
+    private static final byte ID = 2;
+
+    private final Entry[] entries;
+    // Normalized search keys, sorted, with the entry and kind of each
+    private final String[] keys;
+    private final int[] keyEntries;
+    private final byte[] keyKinds;
+
+    private ZoneCatalog(List<Entry> entries) {
+        this.entries = entries.toArray(new Entry[0]);
+        List<Key> index = new ArrayList<>();
+        for (int i = 0; i < this.entries.length; i++) {
+            String name = normalize(this.entries[i].name);
+            index.add(new Key(name, i, NAME));
+            for (int at = name.indexOf(' '); at >= 0; at = name.indexOf(' ', at + 1)) {
+                index.add(new Key(name.substring(at + 1), i, WORD));
+            }
+            index.add(new Key(normalize(this.entries[i].zone.getId()), i, ID));
+        }
+        index.sort(Comparator.comparing((Key key) -> key.text).thenComparingInt(key -> key.kind)
+                .thenComparingInt(key -> key.entry));
+        keys = new String[index.size()];
+        keyEntries = new int[index.size()];
+        keyKinds = new byte[index.size()];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = index.get(k).text;
+            keyEntries[k] = index.get(k).entry;
+            keyKinds[k] = index.get(k).kind;
+        }
+    }
+
+    // A search key while the index is built
+    private static final class Key {
+        final String text;
+        final int entry;
+        final byte kind;
+
+        Key(String text, int entry, byte kind) {
+            this.text = text;
+            this.entry = entry;
+            this.kind = kind;
+        }
+    }
+
+    /** Every zone id the JVM knows, sorted by id, named after their city. */
+    public static ZoneCatalog available() {
+        return Available.CATALOG;
+    }
+
+    // Built on first use; the tz database does not change while the JVM runs
+    private static final class Available {
+        static final ZoneCatalog CATALOG = build(new TreeSet<>(ZoneId.getAvailableZoneIds()));
+
+        private static ZoneCatalog build(Iterable<String> ids) {
+            long now = Instant.now().getEpochSecond();
+            List<Entry> entries = new ArrayList<>();
+            for (String id : ids) {
+                ZoneId zone = ZoneId.of(id);
+                entries.add(new Entry(zone, label(zone), ZoneOffsetCache.forZone(zone).offsetSeconds(now)));
+            }
+            return new ZoneCatalog(entries);
+        }
+    }
+
+    /**
+     * Reads a catalog from lines of the form {@code Zone/Id} or
+     * {@code Zone/Id = NAME}, in the order listed. A line without a name is
+     * named after the city part of its id. Blank lines and lines starting
+     * with '#' are skipped.
+     *
+     * @throws IllegalArgumentException if a line names an unknown zone
+     */
+    public static ZoneCatalog load(Reader in) throws IOException {
+        long now = Instant.now().getEpochSecond();
+        List<Entry> entries = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(in);
+        int number = 0;
+        for (String line; (line = lines.readLine()) != null; ) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            String id = (equals < 0 ? line : line.substring(0, equals)).trim();
+            ZoneId zone;
+            try {
+                zone = ZoneId.of(id);
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Line " + number + ": unknown zone " + id, e);
+            }
+            String name = equals < 0 ? label(zone) : line.substring(equals + 1).trim();
+            entries.add(new Entry(zone, name, ZoneOffsetCache.forZone(zone).offsetSeconds(now)));
+        }
+        return new ZoneCatalog(entries);
+    }
+
+    /** A catalog of the given lines, as read by {@link #load}. */
+    public static ZoneCatalog of(String... lines) {
+        try {
+            return load(new StringReader(String.join("\n", lines)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Not thrown by a StringReader
+        }
+    }
+
+    /** Name shown on a face: the city part of the zone id, e.g. "BUENOS AIRES". */
+    static String label(ZoneId zone) {
+        String id = zone.getId();
+        return id.substring(id.lastIndexOf('/') + 1).replace('_', ' ').toUpperCase(Locale.ROOT);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public Entry get(int index) {
+        return entries[index];
+    }
+
+    /** Position of {@code entry} in this catalog, or -1 if it is not in it. */
+    public int indexOf(Entry entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** The zones, in catalog order. */
+    public List<ZoneId> zones() {
+        List<ZoneId> zones = new ArrayList<>(entries.length);
+        for (Entry entry : entries) {
+            zones.add(entry.zone);
+        }
+        return zones;
+    }
+
+    /** The names, in catalog order. */
+    public List<String> names() {
+        List<String> names = new ArrayList<>(entries.length);
+        for (Entry entry : entries) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    /**
+     * Up to {@code limit} zones matching {@code query}: zones whose name
+     * starts with it first, then those with a later word or the id starting
+     * with it, each group in key order. An empty query lists the catalog
+     * from the start.
+     */
+    public List<Entry> search(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return Collections.unmodifiableList(Arrays.asList(entries).subList(0, Math.min(limit, entries.length)));
+        }
+        int from = lowerBound(prefix);
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(prefix)) {
+            to++;
+        }
+        List<Entry> matches = new ArrayList<>(Math.min(limit, to - from));
+        for (byte kind = NAME; kind <= ID && matches.size() < limit; kind++) {
+            for (int k = from; k < to && matches.size() < limit; k++) {
+                if (keyKinds[k] == kind) {
+                    Entry entry = entries[keyEntries[k]];
+                    if (!matches.contains(entry)) {
+                        matches.add(entry);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /** Index of the first key not less than {@code prefix}. */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Upper case, '_' as a space, runs of spaces collapsed, no leading spaces. */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '_' || Character.isWhitespace(c)) {
+                c = ' ';
+            }
+            if (c == ' ' && (sb.length() == 0 || sb.charAt(sb.length() - 1) == ' ')) {
+                continue;
+            }
+            sb.append(Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+
+    private static String formatOffset(int offsetSeconds) {
+        int minutes = Math.abs(offsetSeconds) / 60;
+        StringBuilder sb = new StringBuilder("UTC").append(offsetSeconds < 0 ? '-' : '+');
+        if (minutes / 60 < 10) {
+            sb.append('0');
+        }
+        sb.append(minutes / 60).append(':');
+        if (minutes % 60 < 10) {
+            sb.append('0');
+        }
+        return sb.append(minutes % 60).toString();
+    }
+}
@@ -0,0 +1,74 @@
+package rs.dobrobav.watch;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The UTC offset of one zone, together with the span of time it stays
+ * valid. Between two transitions turning an instant into local time is a
+ * single addition; the zone rules are only consulted again once the time
+ * passes the next transition (or goes back before the previous one).
+ *
+ * <p>Instances are shared per zone and are safe to use from any thread.
+ */
+final class ZoneOffsetCache {
+
+    private static final Map<ZoneId, ZoneOffsetCache> CACHES = new ConcurrentHashMap<>();
+
+    /** An offset and the epoch seconds [from, until) it applies to. */
+    private static final class Span {
+        final int offsetSeconds;
+        final long from;
+        final long until;
+
+        Span(int offsetSeconds, long from, long until) {
+            this.offsetSeconds = offsetSeconds;
+            this.from = from;
+            this.until = until;
+        }
+    }
+
+    private final ZoneRules rules;
+    private volatile Span span = new Span(0, 0, 0); // Empty, filled in by the first lookup
+
+    private ZoneOffsetCache(ZoneId zone) {
+        this.rules = zone.getRules();
+    }
+
+    static ZoneOffsetCache forZone(ZoneId zone) {
+        return CACHES.computeIfAbsent(zone, ZoneOffsetCache::new);
+    }
+
+    /** Offset from UTC, in seconds, in effect at {@code epochSecond}. */
+    int offsetSeconds(long epochSecond) {
+        Span current = span;
+        if (epochSecond < current.from || epochSecond >= current.until) {
+            current = lookup(epochSecond);
+            span = current;
+        }
+        return current.offsetSeconds;
+    }
+
+    /** Seconds since the local epoch (1970-01-01T00:00 local time) at {@code epochSecond}. */
+    long toLocalEpochSecond(long epochSecond) {
+        return epochSecond + offsetSeconds(epochSecond);
+    }
+
+    private Span lookup(long epochSecond) {
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        int offset = rules.getOffset(instant).getTotalSeconds();
+        if (rules.isFixedOffset()) {
+            return new Span(offset, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        // A transition exactly at epochSecond already applies, so look for the previous one just after it
+        ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        return new Span(offset,
+                previous == null ? Long.MIN_VALUE : previous.toEpochSecond(),
+                next == null ? Long.MAX_VALUE : next.toEpochSecond());
+    }
+}
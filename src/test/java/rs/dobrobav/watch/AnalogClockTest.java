@@ -0,0 +1,120 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import javax.swing.SwingUtilities;
+
+class AnalogClockTest {
+
+    private static final Instant START = Instant.parse("2024-03-18T10:09:30Z");
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+
+    @Test
+    void dirtyRegionRepaintMatchesFullRepaint() throws Exception {
+        // Run on the EDT so the clock's own timer can't consume the dirty regions
+        SwingUtilities.invokeAndWait(() -> {
+            AnalogClock clock = new AnalogClock();
+            clock.setSize(600, 600);
+            long[] millis = {START.toEpochMilli()};
+            clock.setClock(clock(millis));
+
+            BufferedImage incremental = paint(clock, null);
+            clock.updateHandsRegion();
+            assertNull(clock.updateHandsRegion(), "Nothing moves within the same second");
+
+            // The next second, minute and hour, and 12 hours on, where every hand points somewhere new
+            long[] offsets = {1_000, 31_000, 3_001_000, 3_601_000, 6 * 3_600_000L + 12_345};
+            for (long offset : offsets) {
+                millis[0] = START.toEpochMilli() + offset;
+                Rectangle dirty = clock.updateHandsRegion();
+                assertNotNull(dirty, "Hands should have moved after " + offset + " ms");
+
+                paint(clock, dirty, incremental);
+                assertSamePixels(paint(clock, null), incremental, "after " + offset + " ms");
+            }
+        });
+    }
+
+    @Test
+    void sweepingHandsRepaintOnlyTheirRegion() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            AnalogClock clock = new AnalogClock();
+            clock.setSize(600, 600);
+            long[] millis = {START.toEpochMilli()};
+            clock.setClock(clock(millis));
+            clock.setSweepSeconds(true);
+
+            BufferedImage incremental = paint(clock, null);
+            clock.updateHandsRegion();
+
+            // Frames a few milliseconds apart, within and across whole seconds and minutes
+            long[] offsets = {16, 33, 500, 999, 1_017, 29_990, 30_010, 3_600_016};
+            for (long offset : offsets) {
+                millis[0] = START.toEpochMilli() + offset;
+                Rectangle dirty = clock.updateHandsRegion();
+                assertNotNull(dirty, "Second hand should have swept after " + offset + " ms");
+                assertTrue(dirty.width < 600 || dirty.height < 600, "Only the hands should be repainted");
+
+                paint(clock, dirty, incremental);
+                assertSamePixels(paint(clock, null), incremental, "after " + offset + " ms");
+            }
+        });
+    }
+
+    /** A clock in Tokyo showing whatever instant {@code millis} holds. */
+    private static Clock clock(long[] millis) {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return TOKYO;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis[0]);
+            }
+        };
+    }
+
+    private static BufferedImage paint(AnalogClock clock, Rectangle clip) {
+        BufferedImage image = new BufferedImage(clock.getWidth(), clock.getHeight(), BufferedImage.TYPE_INT_RGB);
+        paint(clock, clip, image);
+        return image;
+    }
+
+    private static void paint(AnalogClock clock, Rectangle clip, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        if (clip != null) {
+            g.setClip(clip);
+        }
+        clock.paint(g);
+        g.dispose();
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, String message) {
+        int differing = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    differing++;
+                }
+            }
+        }
+        assertEquals(0, differing, "Pixels differing from a full repaint " + message);
+    }
+}
@@ -0,0 +1,136 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class AnimationDriverTest {
+
+    private static final long MS = 1_000_000L;
+    // Ticks are driven by hand an hour ahead, where the driver's own timer will not reach them
+    private static final long T = System.nanoTime() + 3_600_000 * MS;
+
+    /** Records the time it ran at under its name. */
+    private static AnimationDriver.Entry recorder(String name, List<String> log) {
+        return new AnimationDriver.Entry() {
+            @Override
+            void run(long nowNanos) {
+                log.add(name + "@" + (nowNanos - T) / MS);
+            }
+        };
+    }
+
+    @Test
+    void runsEveryDueEntryInOneTickWithOneReading() {
+        AnimationDriver driver = new AnimationDriver();
+        List<String> log = new ArrayList<>();
+        driver.schedule(recorder("c", log), T + 3 * MS);
+        driver.schedule(recorder("a", log), T + MS);
+        driver.schedule(recorder("b", log), T + 2 * MS);
+        driver.schedule(recorder("later", log), T + 10 * MS);
+
+        driver.tick(T + 5 * MS);
+        assertEquals(Arrays.asList("a@5", "b@5", "c@5"), log);
+        assertEquals(1, driver.size());
+        assertEquals(1, driver.ticks());
+        assertEquals(3, driver.runs());
+    }
+
+    @Test
+    void rescheduledEntriesWaitForTheNextTick() {
+        AnimationDriver driver = new AnimationDriver();
+        int[] runs = new int[1];
+        AnimationDriver.Entry entry = new AnimationDriver.Entry() {
+            @Override
+            void run(long nowNanos) {
+                runs[0]++;
+                driver.schedule(this, nowNanos); // Due again at once
+            }
+        };
+        driver.schedule(entry, T);
+        driver.tick(T);
+        assertEquals(1, runs[0]);
+        assertTrue(entry.isScheduled());
+        driver.tick(T + MS);
+        assertEquals(2, runs[0]);
+    }
+
+    @Test
+    void rescheduleAndCancelReplaceTheInstant() {
+        AnimationDriver driver = new AnimationDriver();
+        List<String> log = new ArrayList<>();
+        AnimationDriver.Entry moved = recorder("moved", log);
+        AnimationDriver.Entry cancelled = recorder("cancelled", log);
+        driver.schedule(moved, T);
+        driver.schedule(moved, T + 20 * MS);
+        driver.schedule(cancelled, T);
+        driver.cancel(cancelled);
+        assertEquals(1, driver.size());
+        assertFalse(cancelled.isScheduled());
+
+        driver.tick(T + 10 * MS);
+        assertEquals(Collections.emptyList(), log);
+        driver.tick(T + 20 * MS);
+        assertEquals(Arrays.asList("moved@20"), log);
+        assertEquals(0, driver.size());
+    }
+
+    @Test
+    void aThrowingEntryDoesNotStopTheOthers() {
+        AnimationDriver driver = new AnimationDriver();
+        List<String> log = new ArrayList<>();
+        driver.schedule(new AnimationDriver.Entry() {
+            @Override
+            void run(long nowNanos) {
+                throw new IllegalStateException("broken clock");
+            }
+        }, T);
+        driver.schedule(recorder("next", log), T);
+
+        assertThrows(IllegalStateException.class, () -> driver.tick(T));
+        assertEquals(1, driver.size(), "Only the entry that threw is dropped");
+        driver.tick(T + MS);
+        assertEquals(Arrays.asList("next@1"), log);
+    }
+
+    @Test
+    void clocksThatAreNotShowingAreNotDriven() throws Exception {
+        AnimationDriver driver = new AnimationDriver();
+        AtomicBoolean ticked = new AtomicBoolean();
+        SwingUtilities.invokeAndWait(() -> {
+            // Never displayable without a screen
+            TickScheduler scheduler = new TickScheduler(new JPanel(), now -> {
+                ticked.set(true);
+                return 1;
+            }, driver);
+            scheduler.wake();
+            assertFalse(scheduler.isRunning());
+        });
+        assertEquals(0, driver.size());
+        assertFalse(ticked.get());
+    }
+
+    @Test
+    void runLaterRunsOnTheEventDispatchThread() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicBoolean onEdt = new AtomicBoolean();
+        SwingUtilities.invokeAndWait(() -> AnimationDriver.shared().runLater(20, () -> {
+            onEdt.set(SwingUtilities.isEventDispatchThread());
+            ran.countDown();
+        }));
+        assertTrue(ran.await(5, TimeUnit.SECONDS), "Should run after the delay");
+        assertTrue(onEdt.get());
+    }
+}
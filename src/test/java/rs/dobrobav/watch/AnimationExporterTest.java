@@ -0,0 +1,117 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.stream.Stream;
+
+class AnimationExporterTest {
+
+    private static final Instant START = Instant.parse("2024-03-18T10:09:58Z");
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+
+    @Test
+    void framesComeOutInOrderAndMatchTheRenderer(@TempDir Path dir) throws Exception {
+        AnimationExporter exporter = new AnimationExporter(120, 120, TOKYO, "TOKYO");
+        // More workers than queue slots, so they have to wait for the encoder
+        exporter.setThreads(3);
+        exporter.setQueueCapacity(2);
+        exporter.setSweepSeconds(true);
+        AnimationExporter.Result result = exporter.export(AnimationExporter.Format.PNG_SEQUENCE,
+                dir, START, Duration.ofSeconds(3), 4);
+
+        assertEquals(12, result.frames());
+        assertTrue(result.framesPerSecond() > 0);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(12, files.count());
+        }
+        for (int frame = 0; frame < 12; frame++) {
+            BufferedImage exported = ImageIO.read(dir.resolve(String.format("frame-%05d.png", frame)).toFile());
+            WatchState state = new WatchState(START.plusMillis(frame * 250L), TOKYO, "TOKYO",
+                    0, false, false, false, true);
+            BufferedImage expected = new WatchRenderer().render(new BufferedImage(120, 120, BufferedImage.TYPE_INT_RGB), state);
+            assertArrayEquals(expected.getRGB(0, 0, 120, 120, null, 0, 120),
+                    exported.getRGB(0, 0, 120, 120, null, 0, 120), "Frame " + frame);
+        }
+    }
+
+    @Test
+    void writesOneLoopingGif(@TempDir Path dir) throws Exception {
+        Path gif = dir.resolve("watch.gif");
+        AnimationExporter exporter = new AnimationExporter(100, 80, TOKYO, "TOKYO");
+        exporter.setStopwatchRunning(true);
+        exporter.export(AnimationExporter.Format.GIF, gif, START, Duration.ofSeconds(1), 5);
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(gif.toFile())) {
+            ImageReader reader = ImageIO.getImageReaders(in).next();
+            reader.setInput(in);
+            assertEquals(5, reader.getNumImages(true));
+            assertEquals(100, reader.getWidth(0));
+            assertEquals(80, reader.getHeight(0));
+            // Reduced to one palette of 256 colours, yet close to the renderer's frames
+            for (int frame = 0; frame < 5; frame++) {
+                WatchState state = new WatchState(START.plusMillis(frame * 200L), TOKYO, "TOKYO",
+                        frame * 200L, true, false, false);
+                BufferedImage expected = new WatchRenderer().render(
+                        new BufferedImage(100, 80, BufferedImage.TYPE_INT_RGB), state);
+                double error = meanChannelError(expected, reader.read(frame));
+                assertTrue(error < 1, String.format("Frame %d is off by %.1f levels on average", frame, error));
+            }
+            reader.dispose();
+        }
+    }
+
+    private static double meanChannelError(BufferedImage expected, BufferedImage actual) {
+        long sum = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int p = expected.getRGB(x, y);
+                int q = actual.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    sum += Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff));
+                }
+            }
+        }
+        return sum / (3.0 * expected.getWidth() * expected.getHeight());
+    }
+
+    @Test
+    void rejectsEmptyClips(@TempDir Path dir) {
+        AnimationExporter exporter = new AnimationExporter(100, 100, TOKYO, "TOKYO");
+        assertThrows(IllegalArgumentException.class, () -> exporter.export(
+                AnimationExporter.Format.GIF, dir.resolve("empty.gif"), START, Duration.ofMillis(10), 30));
+    }
+
+    @Test
+    void reportsWriteFailures(@TempDir Path dir) throws Exception {
+        // A file where the directory of frames should go
+        Path taken = Files.createFile(dir.resolve("frames"));
+        AnimationExporter exporter = new AnimationExporter(100, 100, TOKYO, "TOKYO");
+        assertThrows(IOException.class, () -> exporter.export(
+                AnimationExporter.Format.PNG_SEQUENCE, taken, START, Duration.ofSeconds(1), 2));
+    }
+
+    @Test
+    void renderingFailuresStopTheExport(@TempDir Path dir) {
+        // Without a zone name the renderer throws on the workers, the encoder must not wait forever
+        AnimationExporter exporter = new AnimationExporter(100, 100, TOKYO, null);
+        exporter.setThreads(2);
+        IOException e = assertThrows(IOException.class, () -> exporter.export(
+                AnimationExporter.Format.PNG_SEQUENCE, dir, START, Duration.ofSeconds(10), 10));
+        assertTrue(e.getCause() instanceof NullPointerException, String.valueOf(e.getCause()));
+    }
+}
@@ -0,0 +1,213 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ChronographTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void startStopAndLapAccumulateElapsedTime() {
+        long[] now = {1_000_000};
+        Chronograph chronograph = new Chronograph(() -> now[0]);
+
+        assertTrue(chronograph.start());
+        assertFalse(chronograph.start(), "Already running");
+        now[0] += 300;
+        assertEquals(300, chronograph.lap());
+        now[0] += 200;
+        assertTrue(chronograph.stop());
+        now[0] += 10_000;
+        assertEquals(500, chronograph.elapsedNanos());
+        assertEquals(-1, chronograph.lap(), "No laps while stopped");
+
+        assertTrue(chronograph.toggle());
+        now[0] += 100;
+        long snapshot = chronograph.snapshot();
+        assertTrue(Chronograph.isRunning(snapshot));
+        assertEquals(600, chronograph.elapsedNanos(snapshot));
+        assertEquals(600, chronograph.lap());
+        assertEquals(300, chronograph.laps().lap(2));
+
+        chronograph.reset();
+        assertFalse(chronograph.isRunning());
+        assertEquals(0, chronograph.elapsedNanos());
+        assertEquals(0, chronograph.laps().count());
+    }
+
+    @Test
+    void startStopAndLapAtGivenInstants() {
+        long[] now = {1_000_000};
+        Chronograph chronograph = new Chronograph(() -> now[0]);
+
+        // Input handled some time after it happened
+        assertTrue(chronograph.start(now[0] - 400));
+        now[0] += 1_000;
+        assertEquals(900, chronograph.lap(now[0] - 500));
+        assertFalse(chronograph.toggle(now[0] - 100));
+        assertEquals(1_300, chronograph.elapsedNanos());
+        assertEquals(-1, chronograph.lap(now[0]), "No laps while stopped");
+
+        // Instants before the change they follow take effect with it: time already counted stays counted once
+        now[0] += 1_000;
+        assertTrue(chronograph.toggle(now[0] - 5_000));
+        now[0] += 1_000;
+        assertTrue(chronograph.stop(now[0] - 10_000));
+        assertEquals(1_300, chronograph.elapsedNanos());
+        assertEquals(900, chronograph.laps().split(1));
+    }
+
+    @Test
+    void concurrentLapsAreNumberedInTheOrderTheyWereTimed() throws Exception {
+        // A shared clock that ticks on every read, so no two laps are timed alike
+        AtomicLong clock = new AtomicLong();
+        Chronograph chronograph = new Chronograph(clock::incrementAndGet, new LapBuffer(1 << 16));
+        chronograph.start();
+
+        int lapsPerThread = 5_000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < lapsPerThread; i++) {
+                assertTrue(chronograph.lap() > 0);
+            }
+        });
+
+        LapBuffer laps = chronograph.laps();
+        assertEquals(THREADS * lapsPerThread, laps.count(), "No lap is lost");
+        long previous = 0;
+        for (long number = 1; number <= laps.count(); number++) {
+            long split = laps.split(number);
+            assertTrue(split > previous, "Lap " + number + " was timed before the one before it");
+            assertEquals(split - previous, laps.lap(number));
+            previous = split;
+        }
+    }
+
+    @Test
+    void readersAlwaysSeeAConsistentState() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        Chronograph chronograph = new Chronograph(clock::incrementAndGet);
+        AtomicLong starts = new AtomicLong();
+        AtomicLong stops = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+
+        // A reader checks every snapshot decodes to a possible time while the others toggle and lap
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        Future<?> checks = reader.submit(() -> {
+            while (!done.get()) {
+                long elapsed = chronograph.elapsedNanos(chronograph.snapshot());
+                long now = clock.get();
+                assertTrue(elapsed >= 0 && elapsed <= now, "Elapsed " + elapsed + " at " + now);
+            }
+        });
+        try {
+            runConcurrently(thread -> {
+                for (int i = 0; i < 20_000; i++) {
+                    switch ((thread + i) % 4) {
+                        case 0:
+                            if (chronograph.start()) {
+                                starts.incrementAndGet();
+                            }
+                            break;
+                        case 1:
+                            if (chronograph.stop()) {
+                                stops.incrementAndGet();
+                            }
+                            break;
+                        case 2:
+                            if (chronograph.toggle()) {
+                                starts.incrementAndGet();
+                            } else {
+                                stops.incrementAndGet();
+                            }
+                            break;
+                        default:
+                            chronograph.lap();
+                            break;
+                    }
+                }
+            });
+        } finally {
+            done.set(true);
+            reader.shutdown();
+        }
+        checks.get(10, TimeUnit.SECONDS);
+
+        // Every successful start was followed by exactly one stop, except maybe the last
+        assertEquals(chronograph.isRunning() ? 1 : 0, starts.get() - stops.get());
+        LapBuffer laps = chronograph.laps();
+        long last = laps.count();
+        assertTrue(last > 0);
+        for (long number = laps.first(last); number <= last; number++) {
+            assertTrue(laps.split(number) >= 0, "Lap " + number);
+        }
+    }
+
+    @Test
+    void resetRacingWithLapsLeavesNoStaleLaps() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        Chronograph chronograph = new Chronograph(clock::incrementAndGet);
+        runConcurrently(thread -> {
+            for (int i = 0; i < 20_000; i++) {
+                if (thread == 0) {
+                    chronograph.reset();
+                    chronograph.start();
+                } else {
+                    chronograph.lap();
+                }
+            }
+        });
+
+        // A lap that slipped past a reset would count from an older start than the current one
+        LapBuffer laps = chronograph.laps();
+        long elapsed = chronograph.elapsedNanos();
+        for (long number = laps.first(laps.count()); number <= laps.count(); number++) {
+            long split = laps.split(number);
+            assertTrue(split >= 0 && split <= elapsed, "Lap " + number + " at " + split + " after " + elapsed);
+        }
+
+        chronograph.reset();
+        assertEquals(0, chronograph.laps().count());
+        assertEquals(0, chronograph.elapsedNanos());
+        assertEquals(-1, chronograph.lap());
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    /** Runs {@code worker} on {@link #THREADS} threads released together, and rethrows the first failure. */
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DialGeometryTest {
+
+    @Test
+    void sameSizeSharesOneGeometry() {
+        int radius = AnalogClockRenderer.radius(400, 400);
+        DialGeometry first = DialGeometry.clockDial(200, 200, radius);
+        assertSame(first, DialGeometry.clockDial(200, 200, radius));
+        assertNotSame(first, DialGeometry.clockDial(250, 250, AnalogClockRenderer.radius(500, 500)));
+    }
+
+    @Test
+    void ticksMatchTheDialAngles() {
+        DialGeometry dial = DialGeometry.clockDial(200, 200, 180);
+        assertEquals(60, dial.count);
+        for (int i = 0; i < 60; i++) {
+            double angle = Math.toRadians(6 * i - 90);
+            int startR = i % 5 == 0 ? 160 : 170;
+            assertEquals(i % 5 == 0, dial.major[i]);
+            assertEquals((int) (200 + Math.cos(angle) * startR), dial.x1[i]);
+            assertEquals((int) (200 + Math.sin(angle) * startR), dial.y1[i]);
+            assertEquals((int) (200 + Math.cos(angle) * 175), dial.x2[i]);
+            assertEquals((int) (200 + Math.sin(angle) * 175), dial.y2[i]);
+        }
+    }
+
+    @Test
+    void subDialNumeralsFollowTheScale() {
+        DialGeometry hours = DialGeometry.subDial(100, 100, 80, 24, true);
+        assertEquals("24", hours.numerals[0]);
+        assertEquals("6", hours.numerals[3]);
+        assertEquals("12", hours.numerals[6]);
+        assertEquals("18", hours.numerals[9]);
+        assertNull(hours.numerals[1]);
+
+        DialGeometry minutes = DialGeometry.subDial(100, 100, 80, 60, true);
+        assertEquals("60", minutes.numerals[0]);
+        assertEquals("45", minutes.numerals[9]);
+        assertNull(DialGeometry.subDial(100, 100, 80, 60, false).numerals[0]);
+    }
+}
@@ -1,7 +1,24 @@
 package rs.dobrobav.watch;
 
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
 
 import rs.dobrobav.watch.DoWatch;
 
@@ -12,4 +29,259 @@ class DoWatchTest {
         DoWatch watch = new rs.dobrobav.watch.DoWatch();
         assertNotNull(watch, "DoWatch instance should not be null.");
     }
+
+    @Test
+    void tiledRenderingNeedsTheExactRasterizer() throws Exception {
+        assumeFalse(TiledRenderer.isExact(), "Only without -D" + TiledRenderer.PATH_CLIPPING_PROPERTY + "=false");
+        SwingUtilities.invokeAndWait(() -> {
+            DoWatch watch = new DoWatch();
+            assertThrows(IllegalStateException.class, () -> watch.setTiledRendering(true));
+            assertFalse(watch.isTiledRendering());
+        });
+    }
+
+    @Test
+    void dirtyRegionRepaintMatchesFullRepaint() throws Exception {
+        // Run on the EDT so the watch's own timer can't consume the dirty regions
+        SwingUtilities.invokeAndWait(() -> {
+            Instant start = Instant.parse("2024-03-18T10:09:30Z");
+            DoWatch watch = new DoWatch();
+            watch.setSize(750, 750);
+            watch.setClock(Clock.fixed(start, ZoneOffset.UTC));
+            long[] nanos = {0};
+            watch.setNanoTime(() -> nanos[0]);
+
+            BufferedImage incremental = paint(watch, null);
+
+            // Start the stopwatch with a click on the top button
+            click(watch, 730, 335);
+
+            long[] offsets = {1000, 1050, 2500, 61_000, 3_601_000, 3_601_000 + 86_400_000L};
+            for (long offset : offsets) {
+                watch.setClock(Clock.fixed(start.plusMillis(offset), ZoneOffset.UTC));
+                nanos[0] = offset * 1_000_000L;
+                Rectangle dirty = watch.updateHandsRegion();
+                assertNotNull(dirty, "Hands should have moved after " + offset + " ms");
+
+                paint(watch, dirty, incremental);
+                BufferedImage full = paint(watch, null);
+                assertSamePixels(full, incremental, "after " + offset + " ms");
+            }
+        });
+    }
+
+    @Test
+    void sweepingHandsRepaintOnlyTheirRegion() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            Instant start = Instant.parse("2024-03-18T10:09:30Z");
+            DoWatch watch = new DoWatch();
+            watch.setSize(750, 750);
+            watch.setClock(Clock.fixed(start, ZoneOffset.UTC));
+            watch.setSweepSeconds(true);
+
+            BufferedImage incremental = paint(watch, null);
+            watch.updateHandsRegion();
+
+            // Frames a few milliseconds apart, within and across whole seconds
+            long[] offsets = {16, 33, 500, 999, 1_017, 59_990, 60_010};
+            for (long offset : offsets) {
+                watch.setClock(Clock.fixed(start.plusMillis(offset), ZoneOffset.UTC));
+                Rectangle dirty = watch.updateHandsRegion();
+                assertNotNull(dirty, "Second hand should have swept after " + offset + " ms");
+                assertTrue(dirty.width < 750 || dirty.height < 750, "Only the hands should be repainted");
+
+                paint(watch, dirty, incremental);
+                BufferedImage full = paint(watch, null);
+                assertSamePixels(full, incremental, "after " + offset + " ms");
+            }
+        });
+    }
+
+    @Test
+    void resizingPreviewsUntilTheFaceIsRebuilt() throws Exception {
+        Clock clock = Clock.fixed(Instant.parse("2024-03-18T10:09:30Z"), ZoneOffset.UTC);
+        DoWatch watch = new DoWatch();
+        BufferedImage[] preview = new BufferedImage[1];
+        SwingUtilities.invokeAndWait(() -> {
+            watch.setSize(750, 750);
+            watch.setClock(clock);
+            paint(watch, null);
+            assertFalse(watch.isResizing());
+
+            watch.setSize(500, 600);
+            preview[0] = paint(watch, null);
+            assertTrue(watch.isResizing(), "The face is only rebuilt once the size settles");
+        });
+
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Void>[] rebuilt = new CompletableFuture[1];
+        SwingUtilities.invokeAndWait(() -> rebuilt[0] = watch.rebuildForSize());
+        rebuilt[0].get(10, TimeUnit.SECONDS);
+
+        SwingUtilities.invokeAndWait(() -> {
+            assertFalse(watch.isResizing());
+            BufferedImage settled = paint(watch, null);
+
+            DoWatch fresh = new DoWatch();
+            fresh.setSize(500, 600);
+            fresh.setClock(clock);
+            assertSamePixels(paint(fresh, null), settled, "after the resize settled");
+            // The scaled preview is rough, but shows the same face in the same place
+            assertTrue(meanDifference(settled, preview[0]) < 8, "Preview too far from the final face");
+        });
+    }
+
+    @Test
+    void searchShowsMatchesLiveAndEscapeGoesBack() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            DoWatch watch = new DoWatch();
+            watch.setSize(750, 750);
+            ZoneCatalog.Entry start = watch.getZone();
+            assertEquals(ZoneId.of("Europe/Belgrade"), start.zone());
+
+            watch.startSearch();
+            watch.search("kath");
+            assertEquals(ZoneId.of("Asia/Kathmandu"), watch.getZone().zone(), "Best match is shown while typing");
+            watch.endSearch(false);
+            assertFalse(watch.isSearching());
+            assertEquals(start, watch.getZone(), "ESC goes back to the zone before the search");
+
+            watch.startSearch();
+            watch.search("tokyo");
+            watch.endSearch(true);
+            assertEquals("TOKYO", watch.getZone().name());
+        });
+    }
+
+    @Test
+    void lapsAreTakenFromNanoTimeWhileRunning() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            DoWatch watch = new DoWatch();
+            watch.setSize(750, 750);
+            // Clicks arrive as soon as they happen, so they are timed when they are handled
+            watch.setClock(Clock.fixed(Instant.parse("2024-03-18T10:09:30Z"), ZoneOffset.UTC));
+            long[] nanos = {5_000};
+            watch.setNanoTime(() -> nanos[0]);
+
+            watch.lap();
+            assertEquals(0, watch.getChronograph().laps().count(), "No laps while stopped");
+
+            click(watch, 730, 335); // Start
+            nanos[0] += 1_250;
+            watch.lap();
+            nanos[0] += 700;
+            watch.lap();
+            click(watch, 730, 335); // Stop
+            nanos[0] += 1_000_000;
+            click(watch, 730, 335); // Start again, the split keeps counting from 1950
+            nanos[0] += 50;
+            watch.lap();
+
+            LapBuffer laps = watch.getChronograph().laps();
+            assertEquals(3, laps.count());
+            assertEquals(1_250, laps.split(1));
+            assertEquals(700, laps.lap(2));
+            assertEquals(2_000, laps.split(3));
+            assertEquals(50, laps.lap(3));
+
+            // The lap list is painted over the corner of the panel
+            BufferedImage withLaps = paint(watch, null);
+            assertTrue(differsFromBackground(withLaps, watch.getBackground().getRGB()), "Lap list should be drawn");
+        });
+    }
+
+    @Test
+    void stopwatchKeepsTheInstantsOfTheClicks() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            Instant start = Instant.parse("2024-03-18T10:09:30Z");
+            DoWatch watch = new DoWatch();
+            watch.setSize(750, 750);
+            watch.setClock(Clock.fixed(start, ZoneOffset.UTC));
+            long[] nanos = {10_000_000_000L};
+            watch.setNanoTime(() -> nanos[0]);
+
+            // Handled 40 ms after the button was released
+            click(watch, 730, 335, start.toEpochMilli() - 40);
+            nanos[0] += 1_000_000_000L;
+            watch.setClock(Clock.fixed(start.plusSeconds(1), ZoneOffset.UTC));
+            watch.lap(start.toEpochMilli() + 1000 - 500); // Pressed half a second ago
+            // Stopped by a release 200 ms old: the stopwatch shows 840 ms, not the 1040 ms it took to get here
+            click(watch, 730, 335, start.toEpochMilli() + 1000 - 200);
+            assertFalse(watch.getChronograph().isRunning());
+            assertEquals(840_000_000L, watch.getChronograph().elapsedNanos());
+            assertEquals(540_000_000L, watch.getChronograph().laps().split(1));
+
+            // A timestamp from a wall clock that stepped counts as at most a second old
+            nanos[0] += 5_000_000_000L;
+            click(watch, 730, 335, start.toEpochMilli() - 3_600_000);
+            assertEquals(1_840_000_000L, watch.getChronograph().elapsedNanos());
+
+            // The paint that shows the clicks closes their latency
+            FrameMetrics metrics = watch.getFrameMetrics();
+            long before = metrics.getInputCount();
+            paint(watch, null);
+            assertEquals(before + 1, metrics.getInputCount());
+        });
+    }
+
+    private static double meanDifference(BufferedImage a, BufferedImage b) {
+        long sum = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y);
+                int q = b.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    sum += Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff));
+                }
+            }
+        }
+        return sum / (3.0 * a.getWidth() * a.getHeight());
+    }
+
+    private static boolean differsFromBackground(BufferedImage image, int background) {
+        for (int y = 8; y < 70; y++) {
+            for (int x = 8; x < 150; x++) {
+                if (image.getRGB(x, y) != background) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void click(DoWatch watch, int x, int y) {
+        click(watch, x, y, System.currentTimeMillis());
+    }
+
+    private static void click(DoWatch watch, int x, int y, long when) {
+        watch.dispatchEvent(new MouseEvent(watch, MouseEvent.MOUSE_PRESSED, when, 0, x, y, 1, false, MouseEvent.BUTTON1));
+        watch.dispatchEvent(new MouseEvent(watch, MouseEvent.MOUSE_RELEASED, when, 0, x, y, 1, false, MouseEvent.BUTTON1));
+    }
+
+    private static BufferedImage paint(DoWatch watch, Rectangle clip) {
+        BufferedImage image = new BufferedImage(watch.getWidth(), watch.getHeight(), BufferedImage.TYPE_INT_RGB);
+        paint(watch, clip, image);
+        return image;
+    }
+
+    private static void paint(DoWatch watch, Rectangle clip, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        if (clip != null) {
+            g.setClip(clip);
+        }
+        watch.paint(g);
+        g.dispose();
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, String message) {
+        int differing = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    differing++;
+                }
+            }
+        }
+        assertEquals(0, differing, "Pixels differing from a full repaint " + message);
+    }
 }
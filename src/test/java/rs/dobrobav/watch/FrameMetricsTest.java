@@ -0,0 +1,126 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.ZoneId;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+class FrameMetricsTest {
+
+    @Test
+    void bucketsCoverEveryDuration() {
+        for (long micros = 0; micros < 100_000; micros++) {
+            int bucket = FrameMetrics.bucket(micros);
+            assertTrue(FrameMetrics.lowerBoundMicros(bucket) <= micros, "Bucket of " + micros);
+            assertTrue(micros < FrameMetrics.lowerBoundMicros(bucket + 1), "Bucket of " + micros);
+        }
+    }
+
+    @Test
+    void countsLateAndMissedTicks() {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.tick(500_000, 50_000_000);     // On time
+        metrics.tick(5_000_000, 50_000_000);   // Late
+        metrics.tick(120_000_000, 50_000_000); // Two frames skipped
+
+        assertEquals(3, metrics.getTicks());
+        assertEquals(2, metrics.getLateTimerFires());
+        assertEquals(2, metrics.getMissedFrames());
+        assertEquals(120.0, metrics.getMaxTimerLatenessMillis(), 1e-9);
+
+        metrics.reset();
+        assertEquals(0, metrics.getTicks());
+        assertEquals(0, metrics.getMissedFrames());
+    }
+
+    @Test
+    void timesFramesAndStagesOfTheRenderer() {
+        FrameMetrics metrics = new FrameMetrics();
+        WatchRenderer renderer = new WatchRenderer();
+        renderer.setMetrics(metrics);
+        BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            long start = Instant.parse("2024-03-18T10:09:30Z").toEpochMilli();
+            for (int i = 0; i < 20; i++) {
+                long frame = metrics.frameStarted();
+                renderer.render(g, 300, 300, start + i * 50L, ZoneId.of("Asia/Tokyo"), "TOKYO",
+                        i * 50L, WatchRenderer.STOPWATCH_RUNNING);
+                metrics.frameFinished(frame);
+            }
+        } finally {
+            g.dispose();
+        }
+
+        assertEquals(20, metrics.getFrameCount());
+        for (FrameMetrics.Stage stage : FrameMetrics.Stage.values()) {
+            assertTrue(metrics.stageMillis(stage) > 0, stage + " should have been timed");
+        }
+        assertTrue(metrics.getFrameMillisP50() <= metrics.getFrameMillisP99());
+        assertTrue(metrics.getMaxFrameMillis() >= metrics.getMeanFrameMillis());
+        long frames = 0;
+        for (long count : metrics.getFrameTimeHistogram()) {
+            frames += count;
+        }
+        assertEquals(20, frames);
+    }
+
+    @Test
+    void measuresInputLatency() {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.inputPainted(4_000_000);
+        metrics.inputPainted(12_000_000);
+        metrics.inputPainted(-1); // A clock that went backwards counts as no wait
+
+        assertEquals(3, metrics.getInputCount());
+        assertEquals(16.0 / 3, metrics.getMeanInputLatencyMillis(), 1e-9);
+        assertEquals(12.0, metrics.getMaxInputLatencyMillis(), 1e-9);
+        assertTrue(metrics.getInputLatencyMillisP99() >= 4.0);
+        assertTrue(metrics.getInputLatencyMillisP99() <= 12.0);
+        assertEquals(0, metrics.getFrameCount(), "Input latency is not a frame time");
+
+        metrics.reset();
+        assertEquals(0, metrics.getInputCount());
+        assertEquals(0.0, metrics.getMaxInputLatencyMillis(), 1e-9);
+    }
+
+    @Test
+    void publishesOverJmx() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.repaintRequested();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("FrameMetricsTest");
+        try {
+            assertEquals(1L, server.getAttribute(name, "RepaintRequests"));
+            assertEquals(1L, server.getAttribute(name, "CoalescedRepaints"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, server.getAttribute(name, "RepaintRequests"));
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    void numbersFacesRegisteredUnderTheSameName() throws Exception {
+        FrameMetrics first = new FrameMetrics();
+        FrameMetrics second = new FrameMetrics();
+        try {
+            ObjectName firstName = first.registerNumbered("FrameMetricsTest-numbered");
+            ObjectName secondName = second.registerNumbered("FrameMetricsTest-numbered");
+            assertEquals("FrameMetricsTest-numbered", ObjectName.unquote(firstName.getKeyProperty("name")));
+            assertEquals("FrameMetricsTest-numbered-2", ObjectName.unquote(secondName.getKeyProperty("name")));
+        } finally {
+            first.unregister();
+            second.unregister();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FramePacerTest {
+
+    private static final long PERIOD = 16_666_667L; // 60 fps
+
+    @Test
+    void lateFramesDoNotPushTheGridBack() {
+        FramePacer pacer = new FramePacer(PERIOD);
+        assertFalse(pacer.isPacing());
+        assertEquals(17, pacer.frame(0));
+        assertTrue(pacer.isPacing());
+        assertEquals(PERIOD, pacer.deadline());
+
+        // Three milliseconds late: the next frame waits that much less
+        assertEquals(14, pacer.frame(PERIOD + 3_000_000L));
+        // On time again, the deadlines stay on multiples of the period
+        assertEquals(17, pacer.frame(2 * PERIOD));
+        assertEquals(3 * PERIOD, pacer.deadline());
+    }
+
+    @Test
+    void framesMoreThanAPeriodLateSkipTheMissedDeadlines() {
+        FramePacer pacer = new FramePacer(PERIOD);
+        pacer.frame(0);
+
+        // Stalled until 2.5 periods: this late frame stands in for the first
+        // deadline, the second has passed as well and is skipped
+        long now = 5 * PERIOD / 2;
+        assertEquals((3 * PERIOD - now + 999_999) / 1_000_000, pacer.frame(now));
+        assertEquals(3 * PERIOD, pacer.deadline());
+    }
+
+    @Test
+    void neverAsksForLessThanAMillisecond() {
+        FramePacer pacer = new FramePacer(PERIOD);
+        pacer.frame(0);
+        assertEquals(1, pacer.frame(2 * PERIOD - 100));
+    }
+
+    @Test
+    void resetAndNewPeriodStartANewGrid() {
+        FramePacer pacer = new FramePacer(PERIOD);
+        pacer.frame(0);
+        pacer.reset();
+        assertFalse(pacer.isPacing());
+        // Long after the old grid, yet no deadlines are skipped: the new grid starts here
+        assertEquals(17, pacer.frame(100 * PERIOD));
+        assertEquals(101 * PERIOD, pacer.deadline());
+
+        pacer.setPeriod(50_000_000L);
+        assertEquals(50, pacer.frame(101 * PERIOD + 7_000_000L));
+        assertEquals(50_000_000L, pacer.getPeriod());
+        assertEquals(101 * PERIOD + 57_000_000L, pacer.deadline());
+    }
+}
@@ -0,0 +1,48 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+class GlyphCacheTest {
+
+    private static final Font FONT = new Font("SansSerif", Font.BOLD, 16);
+
+    @Test
+    void reusesLayoutForSameTextFontAndScale() {
+        GlyphCache cache = new GlyphCache();
+        Graphics2D g2 = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB).createGraphics();
+        try {
+            GlyphCache.Text first = cache.get(g2, FONT, "TOKYO");
+            assertSame(first, cache.get(g2, FONT, "TOKYO"));
+            assertEquals(g2.getFontMetrics(FONT).stringWidth("TOKYO"), first.width);
+
+            g2.scale(2, 2);
+            assertNotSame(first, cache.get(g2, FONT, "TOKYO"), "A new scale needs its own layout");
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    @Test
+    void preloadedTextIsNotLaidOutAgain() {
+        GlyphCache cache = new GlyphCache();
+        Graphics2D g2 = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB).createGraphics();
+        try {
+            cache.preload(g2, FONT, Arrays.asList("BELGRADE", "LONDON", "TOKYO"));
+            assertEquals(3, cache.size());
+
+            cache.get(g2, FONT, "LONDON");
+            cache.get(g2, FONT, "TOKYO");
+            assertEquals(3, cache.size());
+        } finally {
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.function.BiConsumer;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+/**
+ * Paints {@code DoWatch} and {@code AnalogClock} at fixed instants, zones and
+ * stopwatch states and compares them with the PNGs in
+ * {@code src/test/resources/golden}. Every faster way of drawing the same
+ * face, uncached or with hand sprites, is held to the same images; tiles
+ * are, in {@code TiledRendererTest}, which needs a JVM of its own.
+ * The images are drawn with the rasterizer settings users get.
+ *
+ * <p>Fonts and antialiasing differ a little between JDKs and platforms, so a
+ * few pixels may be off by more than a few levels. After an intended change
+ * of the picture, write new images with {@code mvn test -Dgolden.update=true}
+ * and check them in. A failed comparison leaves the actual image and a diff
+ * in {@code target/golden}.
+ */
+class GoldenImageTest {
+
+    // A pixel differs when any channel is further off than this
+    private static final int CHANNEL_TOLERANCE = 16;
+    // Share of differing pixels an image may have, e.g. around text
+    private static final double MAX_DIFFERING = 0.002;
+
+    private static final boolean UPDATE = Boolean.getBoolean("golden.update");
+    private static final File SOURCE_DIR = new File(System.getProperty("basedir", "."), "src/test/resources/golden");
+    private static final File OUTPUT_DIR = new File(System.getProperty("basedir", "."), "target/golden");
+
+    private static final Instant INSTANT = Instant.parse("2024-03-18T10:09:30Z");
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void watchAtRest() throws Exception {
+        BufferedImage image = paintWatch(750, INSTANT, (watch, nanos) -> { });
+        assertMatchesGolden("dowatch-rest", image);
+        assertAlsoMatchesGolden("dowatch-rest", direct(750, new WatchState(INSTANT, TOKYO, "TOKYO")));
+    }
+
+    @Test
+    void watchWithRunningStopwatchAndSweep() throws Exception {
+        Instant instant = INSTANT.plusMillis(750);
+        BufferedImage image = paintWatch(750, instant, (watch, nanos) -> {
+            watch.setSweepSeconds(true);
+            watch.getChronograph().start();
+            nanos[0] += 83_250 * MS;
+        });
+        assertMatchesGolden("dowatch-running", image);
+        assertAlsoMatchesGolden("dowatch-running",
+                direct(750, new WatchState(instant, TOKYO, "TOKYO", 83_250, true, false, false, true)));
+    }
+
+    @Test
+    void watchWithLapsInAnotherZoneOnTheNextDay() throws Exception {
+        BufferedImage image = paintWatch(750, INSTANT.plusSeconds(86_400), (watch, nanos) -> {
+            watch.setZone(DoWatch.FAVOURITES.get(2)); // New York
+            Chronograph chronograph = watch.getChronograph();
+            chronograph.start();
+            nanos[0] += 4_500 * MS;
+            chronograph.lap();
+            nanos[0] += 7_500 * MS;
+            chronograph.lap();
+            chronograph.stop();
+        });
+        assertMatchesGolden("dowatch-laps", image);
+    }
+
+    @Test
+    void smallWatchesAtLowerDetail() throws Exception {
+        WatchState state = new WatchState(INSTANT, TOKYO, "TOKYO", 12_000, false, false, false);
+        BiConsumer<DoWatch, long[]> stopwatch = (watch, nanos) -> {
+            watch.getChronograph().start();
+            nanos[0] += 12_000 * MS;
+            watch.getChronograph().stop();
+        };
+        // Reduced, then minimal detail
+        for (int size : new int[] {250, 120}) {
+            assertMatchesGolden("dowatch-" + size, paintWatch(size, INSTANT, stopwatch));
+            assertAlsoMatchesGolden("dowatch-" + size, direct(size, state));
+        }
+    }
+
+    @Test
+    void handSpritesDrawTheSameFace() throws Exception {
+        assertAlsoMatchesGolden("dowatch-rest", paintWatch(750, INSTANT, (watch, nanos) -> watch.setHandSprites(true)));
+    }
+
+    @Test
+    void analogClock() throws Exception {
+        assertMatchesGolden("analog", paintClock(INSTANT, false));
+        // Between whole seconds, which only the sweeping hand shows
+        assertMatchesGolden("analog-sweep", paintClock(INSTANT.plusMillis(500), true));
+    }
+
+    /**
+     * Paints a fresh watch of {@code size} at {@code instant}, in Tokyo unless
+     * {@code setUp} changes it. {@code setUp} also gets the stopwatch's time
+     * source, to move it on.
+     */
+    static BufferedImage paintWatch(int size, Instant instant, BiConsumer<DoWatch, long[]> setUp)
+            throws Exception {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        SwingUtilities.invokeAndWait(() -> {
+            DoWatch watch = new DoWatch();
+            watch.setSize(size, size);
+            watch.setClock(Clock.fixed(instant, ZoneOffset.UTC));
+            long[] nanos = {0};
+            watch.setNanoTime(() -> nanos[0]);
+            watch.setZone(DoWatch.FAVOURITES.get(3)); // Tokyo
+            setUp.accept(watch, nanos);
+            Graphics2D g = image.createGraphics();
+            watch.paint(g);
+            g.dispose();
+        });
+        return image;
+    }
+
+    /** {@code state} drawn without any caching, on the watch's background. */
+    private static BufferedImage direct(int size, WatchState state) throws Exception {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        WatchRenderer renderer = new WatchRenderer();
+        SwingUtilities.invokeAndWait(() -> renderer.setBackground(new DoWatch().getBackground()));
+        Graphics2D g = image.createGraphics();
+        renderer.renderDirect(g, size, size, state);
+        g.dispose();
+        return image;
+    }
+
+    private static BufferedImage paintClock(Instant instant, boolean sweep) throws Exception {
+        BufferedImage image = new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB);
+        SwingUtilities.invokeAndWait(() -> {
+            AnalogClock clock = new AnalogClock();
+            clock.setSize(600, 600);
+            clock.setClock(Clock.fixed(instant, TOKYO));
+            clock.setSweepSeconds(sweep);
+            Graphics2D g = image.createGraphics();
+            clock.paint(g);
+            g.dispose();
+        });
+        return image;
+    }
+
+    /** Compares {@code actual} with the golden image {@code name}, or writes it there when updating. */
+    private static void assertMatchesGolden(String name, BufferedImage actual) throws IOException {
+        if (UPDATE) {
+            // Images of the default rasterizer only, not of the exact one tiles need
+            if (!TiledRenderer.isExact()) {
+                SOURCE_DIR.mkdirs();
+                ImageIO.write(actual, "png", new File(SOURCE_DIR, name + ".png"));
+            }
+            return;
+        }
+        compare(name, actual);
+    }
+
+    /** Compares another way of drawing with the golden image {@code name}; never written, not even when updating. */
+    static void assertAlsoMatchesGolden(String name, BufferedImage actual) throws IOException {
+        if (!UPDATE) {
+            compare(name, actual);
+        }
+    }
+
+    private static void compare(String name, BufferedImage actual) throws IOException {
+        BufferedImage golden;
+        try (InputStream in = GoldenImageTest.class.getResourceAsStream("/golden/" + name + ".png")) {
+            assertNotNull(in, "No golden image " + name + ".png; write it with -Dgolden.update=true");
+            golden = ImageIO.read(in);
+        }
+        assertTrue(golden.getWidth() == actual.getWidth() && golden.getHeight() == actual.getHeight(),
+                name + " is " + actual.getWidth() + "x" + actual.getHeight() + ", the golden image "
+                        + golden.getWidth() + "x" + golden.getHeight());
+
+        BufferedImage diff = new BufferedImage(actual.getWidth(), actual.getHeight(), BufferedImage.TYPE_INT_RGB);
+        int differing = 0;
+        int worst = 0;
+        for (int y = 0; y < actual.getHeight(); y++) {
+            for (int x = 0; x < actual.getWidth(); x++) {
+                int d = channelDifference(golden.getRGB(x, y), actual.getRGB(x, y));
+                worst = Math.max(worst, d);
+                if (d > CHANNEL_TOLERANCE) {
+                    differing++;
+                    diff.setRGB(x, y, 0xFF0000);
+                } else {
+                    // Matching pixels dimmed, so the differing ones stand out
+                    diff.setRGB(x, y, (actual.getRGB(x, y) >> 2) & 0x3F3F3F);
+                }
+            }
+        }
+        double share = differing / (double) (actual.getWidth() * actual.getHeight());
+        if (share > MAX_DIFFERING) {
+            OUTPUT_DIR.mkdirs();
+            ImageIO.write(actual, "png", new File(OUTPUT_DIR, name + "-actual.png"));
+            ImageIO.write(diff, "png", new File(OUTPUT_DIR, name + "-diff.png"));
+        }
+        assertTrue(share <= MAX_DIFFERING, String.format("%s: %d pixels (%.3f%%) differ from the golden image,"
+                + " by up to %d levels; see %s", name, differing, share * 100, worst, OUTPUT_DIR));
+    }
+
+    private static int channelDifference(int p, int q) {
+        int max = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            max = Math.max(max, Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff)));
+        }
+        return max;
+    }
+}
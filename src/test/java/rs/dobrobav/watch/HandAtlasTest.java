@@ -0,0 +1,112 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.ZoneId;
+
+class HandAtlasTest {
+
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+    private static final long START = Instant.parse("2024-03-18T10:09:30Z").toEpochMilli();
+
+    private static final HandAtlas.HandPainter BAR = (g2, angle, length, width) ->
+            g2.fillRect(0, -width / 2, (int) length, width);
+
+    @Test
+    void spritesAreSharedAndEvictedByBytes() {
+        HandAtlas atlas = new HandAtlas(1_000_000);
+        HandAtlas.Sprite sprite = atlas.get(100, 8, 720, 90, 1.0, 0.5, 0.25, BAR);
+        assertSame(sprite, atlas.get(100, 8, 720, 90, 1.0, 0.5, 0.25, BAR), "Same hand, angle, scale and offset");
+        assertEquals(1, atlas.size());
+
+        // A different size or sub-pixel offset is another sprite
+        atlas.get(100, 8, 720, 90, 2.0, 0.5, 0.25, BAR);
+        atlas.get(100, 8, 720, 90, 1.0, 0.0, 0.25, BAR);
+        assertEquals(3, atlas.size());
+
+        for (int step = 0; step < 720; step += 10) {
+            atlas.get(100, 8, 720, step, 3.0, 0, 0, BAR);
+            assertTrue(atlas.bytes() <= 1_000_000, "Over the limit after step " + step);
+        }
+        assertTrue(atlas.evictions() > 0);
+    }
+
+    @Test
+    void tickingHandsMatchTheirOutlines() {
+        HandAtlas atlas = new HandAtlas(HandAtlas.DEFAULT_MAX_BYTES);
+        for (int size : new int[] {300, 750, 1280}) {
+            for (int i = 0; i < 12; i++) {
+                // Whole seconds land exactly on a sprite angle
+                long millis = START + i * 317_000L;
+                BufferedImage outlines = render(null, size, millis, WatchRenderer.STOPWATCH_RUNNING);
+                BufferedImage sprites = render(atlas, size, millis, WatchRenderer.STOPWATCH_RUNNING);
+                assertTrue(WatchRendererTest.maxChannelDifference(outlines, sprites) <= 2, "At size " + size);
+            }
+        }
+    }
+
+    @Test
+    void sweepingHandsAreOffByNoMoreThanHalfASpriteStep() {
+        HandAtlas atlas = new HandAtlas(HandAtlas.DEFAULT_MAX_BYTES);
+        for (int size : new int[] {300, 750}) {
+            // Between sprite angles the minute hand is drawn up to half a step (0.05 degrees) off,
+            // which moves its tip this many pixels and any point of its edges less
+            double tipShift = WatchRenderer.R * WatchRenderer.scale(size, size) * 0.8
+                    * Math.PI / WatchRenderer.MINUTE_SPRITE_STEPS;
+            // An edge moved by d pixels changes the pixels it crosses by at most d of full contrast on
+            // average, and by much less near the pivot
+            double bound = 255 * tipShift;
+            for (int i = 0; i < 12; i++) {
+                long millis = START + i * 17_317L + 1;
+                BufferedImage outlines = render(null, size, millis, WatchRenderer.SWEEP_SECONDS);
+                BufferedImage sprites = render(atlas, size, millis, WatchRenderer.SWEEP_SECONDS);
+                double mean = meanDifference(outlines, sprites);
+                assertTrue(mean <= bound, String.format("At size %d the differing pixels are off by %.1f levels"
+                        + " on average, more than the %.1f a shift of %.2f px explains", size, mean, bound, tipShift));
+            }
+        }
+    }
+
+    private static BufferedImage render(HandAtlas atlas, int size, long millis, int flags) {
+        WatchRenderer renderer = new WatchRenderer();
+        renderer.setHandAtlas(atlas);
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            renderer.render(g, size, size, millis, TOKYO, "TOKYO", 83_250, flags);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /** Mean of the largest channel difference over the pixels that differ, 0 if none do. */
+    private static double meanDifference(BufferedImage expected, BufferedImage actual) {
+        long sum = 0;
+        int differing = 0;
+        for (int y = 0; y < actual.getHeight(); y++) {
+            for (int x = 0; x < actual.getWidth(); x++) {
+                int d = channelDifference(expected.getRGB(x, y), actual.getRGB(x, y));
+                if (d > 0) {
+                    sum += d;
+                    differing++;
+                }
+            }
+        }
+        return differing == 0 ? 0 : sum / (double) differing;
+    }
+
+    private static int channelDifference(int a, int b) {
+        int max = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            max = Math.max(max, Math.abs(((a >> shift) & 0xff) - ((b >> shift) & 0xff)));
+        }
+        return max;
+    }
+}
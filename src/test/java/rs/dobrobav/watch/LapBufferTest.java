@@ -0,0 +1,113 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class LapBufferTest {
+
+    @Test
+    void keepsSplitsAndLapDurations() {
+        LapBuffer laps = new LapBuffer(8);
+        laps.record(1_000);
+        laps.record(3_500);
+        laps.record(4_000);
+
+        assertEquals(3, laps.count());
+        assertEquals(1, laps.first(laps.count()));
+        assertEquals(1_000, laps.lap(1));
+        assertEquals(3_500, laps.split(2));
+        assertEquals(2_500, laps.lap(2));
+        assertEquals(500, laps.lap(3));
+        assertEquals(-1, laps.split(4), "Not recorded yet");
+    }
+
+    @Test
+    void overwritesTheOldestLapsOnceFull() {
+        LapBuffer laps = new LapBuffer(5);
+        for (int i = 1; i <= 20; i++) {
+            laps.record(i * 100L);
+        }
+
+        assertEquals(20, laps.count());
+        assertEquals(16, laps.first(laps.count()));
+        assertEquals(1_600, laps.split(16));
+        assertEquals(100, laps.lap(16), "The oldest lap held still knows its duration");
+        assertEquals(2_000, laps.split(20));
+        assertEquals(-1, laps.split(3), "Overwritten");
+
+        laps.clear();
+        assertEquals(0, laps.count());
+        assertEquals(-1, laps.split(20));
+        laps.record(50);
+        assertEquals(50, laps.lap(1));
+    }
+
+    @Test
+    void readersNeverSeeTheSplitOfTheLapOverwritingTheirs() throws Exception {
+        LapBuffer laps = new LapBuffer(2);
+        AtomicBoolean done = new AtomicBoolean();
+        // Lap n is recorded at n microseconds, so a split read for the wrong lap shows
+        Thread writer = new Thread(() -> {
+            for (long n = 1; !done.get(); n++) {
+                laps.record(n * 1_000);
+            }
+        });
+        writer.start();
+        try {
+            long end = System.nanoTime() + 200_000_000L;
+            long reads = 0;
+            while (System.nanoTime() < end || reads < 100_000) {
+                long count = laps.count();
+                for (long number = Math.max(1, count - 3); number <= count; number++) {
+                    long split = laps.split(number);
+                    assertTrue(split == -1 || split == number * 1_000, "Lap " + number + " read as " + split);
+                    reads++;
+                }
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    void writesCsvOldestFirst() throws IOException {
+        LapBuffer laps = new LapBuffer(2);
+        laps.record(1_000);
+        laps.record(3_000);
+        laps.record(3_250);
+
+        StringBuilder csv = new StringBuilder();
+        laps.writeCsv(csv);
+        assertEquals("lap,split_nanos,lap_nanos\n2,3000,2000\n3,3250,250\n", csv.toString());
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Needs per-thread allocation counters");
+
+        LapBuffer laps = new LapBuffer();
+        recordLaps(laps, 100_000); // Let the JIT settle
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        recordLaps(laps, 1_000_000);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Far less than a single byte per lap; what is left is the allocation counter itself
+        assertTrue(allocated < 1024, "Allocated " + allocated + " bytes for a million laps");
+    }
+
+    private static void recordLaps(LapBuffer laps, int count) {
+        for (int i = 0; i < count; i++) {
+            laps.record(System.nanoTime());
+        }
+    }
+}
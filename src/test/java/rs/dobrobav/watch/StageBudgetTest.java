@@ -0,0 +1,187 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Time budgets for each stage of a 750 px frame, which fail the build when
+ * a stage gets much slower. The budgets are several times what the stages
+ * take on a slow single-core machine, so they catch a regression of that
+ * order, not noise; {@code benchmarks/} has the precise numbers. Also checks
+ * that each faster way of drawing the face, which {@code GoldenImageTest}
+ * holds to the same pixels, still pays for itself: the cached frame against
+ * drawing everything again, hand sprites against filled outlines, and tiles
+ * against one thread.
+ */
+class StageBudgetTest {
+
+    private static final int SIZE = 750;
+    private static final int FRAMES = 200;
+    private static final long START = Instant.parse("2024-03-18T10:09:30Z").toEpochMilli();
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+    private static final int FLAGS = WatchRenderer.STOPWATCH_RUNNING | WatchRenderer.SWEEP_SECONDS;
+
+    // Milliseconds per frame with nothing cached; about 3.5, 1.1, 1.1, 0.3 and 2.0 on a slow single core
+    private static final Map<FrameMetrics.Stage, Double> DIRECT_BUDGETS = new EnumMap<>(FrameMetrics.Stage.class);
+
+    static {
+        DIRECT_BUDGETS.put(FrameMetrics.Stage.CASE, 20.0);
+        DIRECT_BUDGETS.put(FrameMetrics.Stage.DIAL, 6.0);
+        DIRECT_BUDGETS.put(FrameMetrics.Stage.SUB_DIALS, 6.0);
+        DIRECT_BUDGETS.put(FrameMetrics.Stage.HANDS, 2.0);
+        DIRECT_BUDGETS.put(FrameMetrics.Stage.REFLECTION, 10.0);
+    }
+
+    // Milliseconds for a steady frame from the cached layers (about 2.2), and share of a direct frame it may take
+    private static final double CACHED_FRAME_BUDGET = 12.0;
+    private static final double CACHED_SHARE_OF_DIRECT = 0.5;
+
+    // Sprites measure within noise of filled outlines once warm (about 0.20 against 0.24 ms of
+    // HANDS per frame), so they are only held to not costing noticeably more
+    private static final double SPRITES_SHARE_OF_OUTLINES = 1.25;
+
+    // Tiles walk all of the face's geometry once each, which one core pays for in full
+    // (about 1.2 to 1.8 times a single-threaded frame); with four cores or more they must win
+    private static final int TILED_SIZE = 2000;
+    private static final int TILED_FRAMES = 10;
+    private static final double TILED_SHARE_ON_ONE_CORE = 3.0;
+    private static final int TILED_MIN_CORES_TO_WIN = 4;
+
+    // Timings compared with each other take the fastest of a few rounds, which noise can only slow down
+    private static final int ROUNDS = 3;
+
+    @Test
+    void everyStageStaysWithinItsBudget() {
+        FrameMetrics metrics = new FrameMetrics();
+        measureDirect(metrics); // Warm up
+        metrics.reset();
+        measureDirect(metrics);
+
+        StringBuilder over = new StringBuilder();
+        for (Map.Entry<FrameMetrics.Stage, Double> budget : DIRECT_BUDGETS.entrySet()) {
+            double millis = metrics.stageMillis(budget.getKey());
+            if (millis > budget.getValue()) {
+                over.append(String.format(" %s %.2f ms (budget %.1f ms)", budget.getKey(), millis, budget.getValue()));
+            }
+        }
+        assertTrue(over.length() == 0, "Stages over budget:" + over);
+    }
+
+    @Test
+    void cachedFramesAreMuchCheaperThanDrawingEverything() {
+        measureDirect(new FrameMetrics());
+        measureCached(new FrameMetrics());
+
+        FrameMetrics direct = new FrameMetrics();
+        measureDirect(direct);
+        FrameMetrics cached = new FrameMetrics();
+        measureCached(cached);
+
+        double cachedMillis = cached.getMeanFrameMillis();
+        double directMillis = direct.getMeanFrameMillis();
+        assertTrue(cachedMillis < CACHED_FRAME_BUDGET,
+                String.format("Cached frame took %.2f ms (budget %.1f ms)", cachedMillis, CACHED_FRAME_BUDGET));
+        assertTrue(cachedMillis < directMillis * CACHED_SHARE_OF_DIRECT,
+                String.format("Cached frame took %.2f ms, a direct one %.2f ms", cachedMillis, directMillis));
+    }
+
+    @Test
+    void handSpritesCostNoMoreThanOutlines() {
+        double outlines = Double.MAX_VALUE;
+        double sprites = Double.MAX_VALUE;
+        for (int round = 0; round <= ROUNDS; round++) {
+            FrameMetrics filled = new FrameMetrics();
+            measureCached(filled, false);
+            FrameMetrics blitted = new FrameMetrics();
+            measureCached(blitted, true);
+            if (round > 0) { // The first round warms up
+                outlines = Math.min(outlines, filled.stageMillis(FrameMetrics.Stage.HANDS));
+                sprites = Math.min(sprites, blitted.stageMillis(FrameMetrics.Stage.HANDS));
+            }
+        }
+        assertTrue(sprites < outlines * SPRITES_SHARE_OF_OUTLINES,
+                String.format("Hands took %.3f ms per frame from sprites, %.3f ms filled", sprites, outlines));
+    }
+
+    @Test
+    void tilesPayOffWithEnoughCores() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        BufferedImage image = new BufferedImage(TILED_SIZE, TILED_SIZE, BufferedImage.TYPE_INT_RGB);
+        WatchRenderer single = new WatchRenderer();
+        double tiledMillis = Double.MAX_VALUE;
+        double singleMillis = Double.MAX_VALUE;
+        try (TiledRenderer tiled = new TiledRenderer(cores)) {
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < TILED_FRAMES; i++) {
+                    tiled.render(image, state(i));
+                }
+                long middle = System.nanoTime();
+                Graphics2D g = image.createGraphics();
+                for (int i = 0; i < TILED_FRAMES; i++) {
+                    single.renderDirect(g, TILED_SIZE, TILED_SIZE, state(i));
+                }
+                g.dispose();
+                long end = System.nanoTime();
+                if (round > 0) {
+                    tiledMillis = Math.min(tiledMillis, (middle - start) / 1e6 / TILED_FRAMES);
+                    singleMillis = Math.min(singleMillis, (end - middle) / 1e6 / TILED_FRAMES);
+                }
+            }
+        }
+        String message = String.format("A %d px frame took %.1f ms in tiles on %d cores, %.1f ms on one thread",
+                TILED_SIZE, tiledMillis, cores, singleMillis);
+        if (cores >= TILED_MIN_CORES_TO_WIN) {
+            assertTrue(tiledMillis < singleMillis, message);
+        } else {
+            assertTrue(tiledMillis < singleMillis * TILED_SHARE_ON_ONE_CORE, message);
+        }
+    }
+
+    private static WatchState state(int frame) {
+        return new WatchState(Instant.ofEpochMilli(START + frame * 16L), TOKYO, "TOKYO", frame * 16L,
+                true, false, false, true);
+    }
+
+    private static void measureDirect(FrameMetrics metrics) {
+        WatchRenderer renderer = new WatchRenderer();
+        renderer.setMetrics(metrics);
+        render(metrics, (g, i) -> renderer.renderDirect(g, SIZE, SIZE, state(i)));
+    }
+
+    private static void measureCached(FrameMetrics metrics) {
+        measureCached(metrics, false);
+    }
+
+    private static void measureCached(FrameMetrics metrics, boolean handSprites) {
+        WatchRenderer renderer = new WatchRenderer();
+        renderer.setHandSprites(handSprites);
+        renderer.setMetrics(metrics);
+        render(metrics, (g, i) -> renderer.render(g, SIZE, SIZE, START + i * 16L, TOKYO, "TOKYO", i * 16L, FLAGS));
+    }
+
+    private interface Frame {
+        void draw(Graphics2D g, int index);
+    }
+
+    private static void render(FrameMetrics metrics, Frame frame) {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            for (int i = 0; i < FRAMES; i++) {
+                long start = metrics.frameStarted();
+                frame.draw(g, i);
+                metrics.frameFinished(start);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs in a JVM of its own, started without Marlin's path clipping (see the
+ * surefire configuration), which is what makes tiles join exactly.
+ */
+class TiledRendererTest {
+
+    @BeforeEach
+    void needsExactRasterizer() {
+        assumeTrue(TiledRenderer.isExact(), "Run with -D" + TiledRenderer.PATH_CLIPPING_PROPERTY + "=false");
+    }
+
+    private static final WatchState STATE = new WatchState(Instant.parse("2024-03-18T10:09:30.250Z"),
+            ZoneId.of("Asia/Tokyo"), "TOKYO", 83_250, true, true, false);
+
+    @Test
+    void tiledRenderIsPixelIdenticalToSingleThreaded() {
+        BufferedImage expected = renderDirect(1100, 900);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // A tile size that does not divide the image leaves partial tiles at the edges
+            TiledRenderer tiled = new TiledRenderer(pool, 128);
+            BufferedImage actual = tiled.render(new BufferedImage(1100, 900, BufferedImage.TYPE_INT_RGB), STATE);
+            assertEquals(0, WatchRendererTest.maxChannelDifference(expected, actual));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rendersOnlyTilesUnderTheArea() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_RGB);
+            new TiledRenderer(pool, 256).render(image, STATE, new Rectangle(300, 300, 10, 10));
+
+            BufferedImage expected = renderDirect(512, 512);
+            assertEquals(0xff000000, image.getRGB(10, 10), "Tiles outside of the area stay untouched");
+            for (int y = 256; y < 512; y++) {
+                for (int x = 256; x < 512; x++) {
+                    assertEquals(expected.getRGB(x, y), image.getRGB(x, y));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void tiledWatchMatchesTheGoldenImage() throws Exception {
+        GoldenImageTest.assertAlsoMatchesGolden("dowatch-rest", GoldenImageTest.paintWatch(750,
+                Instant.parse("2024-03-18T10:09:30Z"), (watch, nanos) -> watch.setTiledRendering(true)));
+    }
+
+    private static BufferedImage renderDirect(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        new WatchRenderer().renderDirect(g, width, height, STATE);
+        g.dispose();
+        return image;
+    }
+}
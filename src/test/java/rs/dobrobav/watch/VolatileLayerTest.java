@@ -0,0 +1,73 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+class VolatileLayerTest {
+
+    // Headless, so the images live in software surfaces of an offscreen configuration
+    private static GraphicsConfiguration offscreenConfig() {
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+        try {
+            return g.getDeviceConfiguration();
+        } finally {
+            g.dispose();
+        }
+    }
+
+    @Test
+    void repaintsOnlyWhenSizeOrStampChanges() {
+        GraphicsConfiguration config = offscreenConfig();
+        VolatileLayer layer = new VolatileLayer(Transparency.OPAQUE);
+        int[] paints = {0};
+        CachedLayer.Painter painter = g2 -> {
+            paints[0]++;
+            g2.setColor(Color.RED);
+            g2.fillRect(0, 0, 40, 40);
+        };
+
+        VolatileImage first = layer.get(config, 40, 40, 1, 0, painter);
+        assertSame(first, layer.get(config, 40, 40, 1, 0, painter));
+        assertEquals(1, paints[0]);
+        assertFalse(layer.contentsLost());
+        assertEquals(Color.RED.getRGB(), first.getSnapshot().getRGB(20, 20));
+
+        layer.get(config, 40, 40, 2, 0, painter);
+        assertEquals(2, paints[0], "New stamp");
+        assertNotSame(first, layer.get(config, 60, 40, 2, 0, painter));
+        assertEquals(3, paints[0], "New size");
+
+        layer.flush();
+        layer.get(config, 60, 40, 2, 0, painter);
+        assertEquals(4, paints[0], "Flushed");
+        assertEquals(0, layer.restored());
+    }
+
+    @Test
+    void translucentLayersStartClear() {
+        GraphicsConfiguration config = offscreenConfig();
+        VolatileLayer layer = new VolatileLayer(Transparency.TRANSLUCENT);
+        long[] stamp = {0};
+        CachedLayer.Painter painter = g2 -> {
+            g2.setColor(new Color(255, 255, 255, 128));
+            g2.fillRect(0, 0, 10 + (int) stamp[0] * 10, 10);
+        };
+        layer.get(config, 40, 40, stamp[0], 0, painter);
+        stamp[0] = 1;
+        BufferedImage pixels = layer.get(config, 40, 40, stamp[0], 0, painter).getSnapshot();
+
+        // Repainted from scratch, not blended over the previous pixels
+        assertEquals(pixels.getRGB(15, 5), pixels.getRGB(5, 5));
+        assertEquals(0, pixels.getRGB(30, 30) >>> 24, "Outside the painted area stays transparent");
+    }
+}
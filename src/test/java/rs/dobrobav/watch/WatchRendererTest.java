@@ -0,0 +1,220 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+class WatchRendererTest {
+
+    private static final Instant INSTANT = Instant.parse("2024-03-18T10:09:30Z");
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+
+    @Test
+    void rendersWithoutDisplay() {
+        assertTrue(GraphicsEnvironment.isHeadless(), "Tests are expected to run headless");
+
+        WatchRenderer renderer = new WatchRenderer();
+        int[][] sizes = {{200, 200}, {750, 750}, {2000, 2000}, {900, 400}};
+        for (int[] size : sizes) {
+            BufferedImage image = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_RGB);
+            renderer.render(image, new WatchState(INSTANT, TOKYO, "TOKYO"));
+
+            int background = renderer.getBackground().getRGB();
+            assertEquals(background, image.getRGB(0, 0), "Corner should show the background");
+            assertNotEquals(background, image.getRGB(size[0] / 2 + 5, size[1] / 2 + 5), "Dial should be drawn");
+        }
+    }
+
+    @Test
+    void cachedRenderMatchesDirectRender() {
+        WatchState[] states = {
+            new WatchState(INSTANT, TOKYO, "TOKYO"),
+            new WatchState(INSTANT, TOKYO, "TOKYO", 83_250, true, true, false),
+            new WatchState(INSTANT.plusSeconds(86_400), ZoneId.of("UTC"), "UTC", 12_000, false, false, true),
+            new WatchState(INSTANT.plusMillis(750), TOKYO, "TOKYO", 0, false, false, false, true)
+        };
+        WatchRenderer cached = new WatchRenderer();
+        for (WatchState state : states) {
+            BufferedImage expected = new BufferedImage(750, 750, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = expected.createGraphics();
+            new WatchRenderer().renderDirect(g, 750, 750, state);
+            g.dispose();
+
+            BufferedImage actual = cached.render(new BufferedImage(750, 750, BufferedImage.TYPE_INT_RGB), state);
+            // Layers are blended separately, which can round differently by a level or two
+            assertTrue(maxChannelDifference(expected, actual) <= 2, "Cached layers should match direct drawing");
+        }
+    }
+
+    @Test
+    void compositingTheLayersMatchesRender() {
+        long millis = INSTANT.toEpochMilli() + 750;
+        int flags = WatchRenderer.STOPWATCH_RUNNING | WatchRenderer.SWEEP_SECONDS;
+        WatchRenderer renderer = new WatchRenderer();
+        BufferedImage expected = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = expected.createGraphics();
+        renderer.render(g, 500, 500, millis, TOKYO, "TOKYO", 83_250, flags);
+        g.dispose();
+
+        // What an active rendering host does with the same layers
+        BufferedImage actual = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+        g = actual.createGraphics();
+        g.drawImage(renderer.base(500, 500, millis, TOKYO, "TOKYO", 83_250, flags), 0, 0, null);
+        renderer.drawFrameHands(g);
+        g.drawImage(renderer.reflection(), 0, 0, null);
+        g.dispose();
+        assertEquals(0, maxChannelDifference(expected, actual));
+
+        // The layers are only repainted when they change
+        long baseVersion = renderer.baseVersion();
+        renderer.base(500, 500, millis + 1000, TOKYO, "TOKYO", 84_250, flags);
+        assertEquals(baseVersion, renderer.baseVersion());
+        renderer.base(500, 500, millis, TOKYO, "TOKYO", 83_250, flags | WatchRenderer.TOP_PRESSED);
+        assertNotEquals(baseVersion, renderer.baseVersion());
+    }
+
+    @Test
+    void sameStateRendersSameImage() throws Exception {
+        WatchState state = new WatchState(INSTANT, TOKYO, "TOKYO", 5_000, false, false, false);
+        BufferedImage first = new WatchRenderer().render(new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB), state);
+        Thread.sleep(1100); // The wall clock must not leak into the picture
+        BufferedImage second = new WatchRenderer().render(new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB), state);
+        assertEquals(0, maxChannelDifference(first, second));
+    }
+
+    @Test
+    void steadyStateFramesStayWithinAllocationBudget() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Needs per-thread allocation counters");
+
+        WatchRenderer renderer = new WatchRenderer();
+        BufferedImage image = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        long start = INSTANT.toEpochMilli();
+        int frames = 1000;
+        try {
+            // Warm up: build the layers and let the JIT settle
+            renderRunningFrames(renderer, g, start, frames);
+
+            long threadId = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            renderRunningFrames(renderer, g, start + frames * 50L, frames);
+            long perFrame = (threads.getThreadAllocatedBytes(threadId) - before) / frames;
+
+            // The renderer itself allocates nothing; what is left are Java2D's own per-primitive objects
+            assertTrue(perFrame < 1024, "Allocated " + perFrame + " bytes per frame");
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static void renderRunningFrames(WatchRenderer renderer, Graphics2D g, long startMillis, int frames) {
+        for (int i = 0; i < frames; i++) {
+            long offset = i * 50L;
+            renderer.render(g, 400, 400, startMillis + offset, TOKYO, "TOKYO", offset, WatchRenderer.STOPWATCH_RUNNING);
+        }
+    }
+
+    @Test
+    void detailFollowsDialRadius() {
+        WatchRenderer renderer = new WatchRenderer();
+        assertEquals(WatchRenderer.Detail.FULL, renderer.detail(750, 750));
+        assertEquals(WatchRenderer.Detail.FULL, renderer.detail(277, 900), "The smaller side sets the radius");
+        assertEquals(WatchRenderer.Detail.REDUCED, renderer.detail(276, 276));
+        assertEquals(WatchRenderer.Detail.REDUCED, renderer.detail(139, 139));
+        assertEquals(WatchRenderer.Detail.MINIMAL, renderer.detail(138, 138));
+
+        renderer.setDetailThresholds(0, 0);
+        assertEquals(WatchRenderer.Detail.FULL, renderer.detail(20, 20));
+        renderer.setDetailThresholds(Double.POSITIVE_INFINITY, 0);
+        assertEquals(WatchRenderer.Detail.REDUCED, renderer.detail(2000, 2000));
+        assertThrows(IllegalArgumentException.class, () -> renderer.setDetailThresholds(50, 100));
+        assertThrows(IllegalArgumentException.class, () -> renderer.setDetailThresholds(Double.NaN, 0));
+    }
+
+    @Test
+    void lowerDetailDropsFineParts() {
+        WatchState state = new WatchState(INSTANT, TOKYO, "TOKYO", 83_250, false, false, false);
+        WatchRenderer renderer = new WatchRenderer();
+        renderer.setDetailThresholds(0, 0);
+        BufferedImage full = renderer.render(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB), state);
+        // Raising the thresholds applies to the very next frame, without a resize
+        renderer.setDetailThresholds(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+        BufferedImage minimal = renderer.render(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB), state);
+        renderer.setDetailThresholds(0, 0);
+        BufferedImage fullAgain = renderer.render(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB), state);
+        WatchRenderer reducedRenderer = new WatchRenderer();
+        reducedRenderer.setDetailThresholds(Double.POSITIVE_INFINITY, 0);
+        BufferedImage reduced = reducedRenderer.render(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB), state);
+
+        assertEquals(0, maxChannelDifference(full, fullAgain));
+        assertTrue(maxChannelDifference(full, reduced) > 0, "Reduced detail should leave parts out");
+        assertTrue(maxChannelDifference(reduced, minimal) > 0, "Minimal detail should leave out more");
+        // What every tier keeps: the background, and the white date window at 4 o'clock
+        Rectangle date = WatchRenderer.dateWindowBounds(200, 200);
+        for (BufferedImage image : new BufferedImage[] {full, reduced, minimal}) {
+            assertEquals(renderer.getBackground().getRGB(), image.getRGB(0, 0));
+            assertEquals(0xFFFFFFFF, image.getRGB(date.x + 3, (int) date.getCenterY() + 1));
+        }
+    }
+
+    @Test
+    void cachedRenderMatchesDirectRenderAtEveryDetail() {
+        WatchState[] states = {
+            new WatchState(INSTANT, TOKYO, "TOKYO", 83_250, false, false, false),
+            new WatchState(INSTANT.plusMillis(750), TOKYO, "TOKYO", 12_000, true, false, false, true)
+        };
+        for (int size : new int[] {250, 120}) {
+            for (WatchState state : states) {
+                BufferedImage expected = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = expected.createGraphics();
+                new WatchRenderer().renderDirect(g, size, size, state);
+                g.dispose();
+
+                BufferedImage actual = new WatchRenderer().render(new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB), state);
+                assertTrue(maxChannelDifference(expected, actual) <= 2,
+                        "Cached layers should match direct drawing at " + new WatchRenderer().detail(size, size));
+            }
+        }
+    }
+
+    @Test
+    void analogClockRendersWithoutDisplay() {
+        AnalogClockRenderer renderer = new AnalogClockRenderer();
+        LocalTime time = LocalTime.of(10, 9, 30);
+        BufferedImage first = renderer.render(new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB), time);
+        BufferedImage second = renderer.render(new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB), time);
+
+        assertEquals(renderer.getBackground().getRGB(), first.getRGB(0, 0));
+        assertNotEquals(renderer.getBackground().getRGB(), first.getRGB(150, 150));
+        assertEquals(0, maxChannelDifference(first, second));
+    }
+
+    static int maxChannelDifference(BufferedImage a, BufferedImage b) {
+        assertEquals(a.getWidth(), b.getWidth());
+        assertEquals(a.getHeight(), b.getHeight());
+        int max = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y);
+                int q = b.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    max = Math.max(max, Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff)));
+                }
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,148 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class WatchServerTest {
+
+    private static final Instant INSTANT = Instant.parse("2024-03-18T10:09:30Z");
+
+    private WatchServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new WatchServer(new InetSocketAddress("127.0.0.1", 0), 2, 2);
+        server.setClock(Clock.fixed(INSTANT, ZoneOffset.UTC));
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void servesTheFaceAtTheStartOfTheMinute() throws Exception {
+        HttpURLConnection connection = open("?zone=Asia/Tokyo&size=120&stopwatch=83250");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("image/png", connection.getContentType());
+        assertEquals("public, max-age=30", connection.getHeaderField("Cache-Control"));
+        BufferedImage served = ImageIO.read(new ByteArrayInputStream(read(connection)));
+
+        WatchState state = new WatchState(Instant.parse("2024-03-18T10:09:00Z"), ZoneId.of("Asia/Tokyo"), "TOKYO",
+                83_250, false, false, false);
+        BufferedImage expected = new WatchRenderer().render(new BufferedImage(120, 120, BufferedImage.TYPE_INT_RGB), state);
+        assertArrayEquals(expected.getRGB(0, 0, 120, 120, null, 0, 120), served.getRGB(0, 0, 120, 120, null, 0, 120));
+    }
+
+    @Test
+    void sameFaceInTheSameBucketIsEncodedOnce() throws Exception {
+        byte[] first = read(open("?zone=Asia/Tokyo&size=100"));
+        server.setClock(Clock.fixed(INSTANT.plusSeconds(20), ZoneOffset.UTC)); // Still 10:09
+        byte[] second = read(open("?zone=Asia/Tokyo&size=100"));
+        assertArrayEquals(first, second);
+        assertEquals(1, server.cacheMisses());
+        assertEquals(1, server.cacheHits());
+
+        server.setClock(Clock.fixed(INSTANT.plusSeconds(40), ZoneOffset.UTC)); // 10:10, a new bucket
+        read(open("?zone=Asia/Tokyo&size=100"));
+        assertEquals(2, server.cacheMisses());
+    }
+
+    @Test
+    void concurrentRequestsShareOneRender() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> responses = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                responses.add(clients.submit(() -> read(open("?zone=Europe/London&size=200"))));
+            }
+            byte[] first = responses.get(0).get();
+            for (Future<byte[]> response : responses) {
+                assertArrayEquals(first, response.get());
+            }
+        } finally {
+            clients.shutdown();
+        }
+        assertEquals(1, server.cacheMisses());
+        assertEquals(15, server.cacheHits());
+    }
+
+    @Test
+    void leastRecentlyServedFacesAreEvicted() throws Exception {
+        read(open("?size=50"));
+        read(open("?size=60"));
+        read(open("?size=50")); // 60 is now the eldest
+        read(open("?size=70"));
+        assertEquals(1, server.cacheEvictions());
+        read(open("?size=50"));
+        assertEquals(3, server.cacheMisses());
+        read(open("?size=60"));
+        assertEquals(4, server.cacheMisses());
+    }
+
+    @Test
+    void rejectsBadRequests() throws Exception {
+        assertEquals(400, open("?zone=Mars/Olympus_Mons").getResponseCode());
+        assertEquals(400, open("?size=0").getResponseCode());
+        assertEquals(400, open("?size=big").getResponseCode());
+        HttpURLConnection post = open("");
+        post.setRequestMethod("POST");
+        assertEquals(405, post.getResponseCode());
+        assertEquals(0, server.cacheMisses());
+    }
+
+    @Test
+    void parsesDefaultsAndNames() {
+        WatchServer.Request defaults = WatchServer.parse(null);
+        assertEquals(ZoneId.of("Europe/Belgrade"), defaults.zone);
+        assertEquals("BELGRADE", defaults.name);
+        assertEquals(300, defaults.size);
+
+        WatchServer.Request named = WatchServer.parse("zone=America%2FNew_York&name=HQ+EAST&running=true");
+        assertEquals(ZoneId.of("America/New_York"), named.zone);
+        assertEquals("HQ EAST", named.name);
+        assertEquals(true, named.running);
+        assertThrows(IllegalArgumentException.class, () -> WatchServer.parse("stopwatch=-1"));
+    }
+
+    private HttpURLConnection open(String query) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + WatchServer.PATH + query);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private static byte[] read(HttpURLConnection connection) throws IOException {
+        assertEquals(200, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+class WorldClockWallTest {
+
+    private static final Instant INSTANT = Instant.parse("2024-03-18T10:09:30Z");
+
+    @Test
+    void labelsAreTheCityPartOfTheZoneId() {
+        assertEquals("BUENOS AIRES", WorldClockWall.label(ZoneId.of("America/Argentina/Buenos_Aires")));
+        assertEquals("UTC", WorldClockWall.label(ZoneId.of("UTC")));
+    }
+
+    @Test
+    void defaultWallShowsEveryAvailableZone() {
+        assertEquals(ZoneId.getAvailableZoneIds().size(), new WorldClockWall().getFaceCount());
+    }
+
+    @Test
+    void paintsOneFacePerZone() {
+        List<ZoneId> zones = Arrays.asList(ZoneId.of("Europe/Belgrade"), ZoneId.of("Asia/Tokyo"),
+                ZoneId.of("America/New_York"), ZoneId.of("Australia/Sydney"));
+        WorldClockWall wall = new WorldClockWall(zones);
+        wall.setSize(400, 400);
+        wall.setClock(Clock.fixed(INSTANT, ZoneOffset.UTC));
+
+        BufferedImage first = paint(wall);
+        int background = wall.getBackground().getRGB();
+        // A 2x2 grid of 200px faces
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 2; x++) {
+                assertEquals(background, first.getRGB(x * 200 + 1, y * 200 + 1), "Cell corner should show the background");
+                assertNotEquals(background, first.getRGB(x * 200 + 105, y * 200 + 105), "Face should be drawn");
+            }
+        }
+
+        // The hands differ between the zones, so the faces must too
+        assertTrue(differs(first, 0, 0, 200, 0), "Belgrade and Tokyo should not look the same");
+
+        // The next frame reuses the backing image and must look the same
+        assertEquals(0, WatchRendererTest.maxChannelDifference(first, paint(wall)));
+    }
+
+    private static BufferedImage paint(WorldClockWall wall) {
+        BufferedImage image = new BufferedImage(wall.getWidth(), wall.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        wall.paint(g);
+        g.dispose();
+        return image;
+    }
+
+    private static boolean differs(BufferedImage image, int ax, int ay, int bx, int by) {
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 200; x++) {
+                if (image.getRGB(ax + x, ay + y) != image.getRGB(bx + x, by + y)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class ZoneCatalogTest {
+
+    @Test
+    void availableCatalogHasEveryZoneNamedAfterItsCity() {
+        ZoneCatalog catalog = ZoneCatalog.available();
+        assertEquals(ZoneId.getAvailableZoneIds().size(), catalog.size());
+        ZoneCatalog.Entry buenosAires = catalog.search("america/argentina/buenos", 1).get(0);
+        assertEquals("BUENOS AIRES", buenosAires.name());
+        assertEquals(ZoneId.of("America/Argentina/Buenos_Aires"), buenosAires.zone());
+    }
+
+    @Test
+    void findsZonesByNameWordOrId() {
+        ZoneCatalog catalog = ZoneCatalog.available();
+        ZoneId newYork = ZoneId.of("America/New_York");
+        assertEquals(newYork, catalog.search("new y", 5).get(0).zone());
+        assertEquals(newYork, catalog.search("New_York", 5).get(0).zone());
+        assertEquals(newYork, catalog.search("america/new_y", 5).get(0).zone());
+        assertTrue(catalog.search("york", 5).stream().anyMatch(e -> e.zone().equals(newYork)));
+        assertTrue(catalog.search("xyzzy", 5).isEmpty());
+    }
+
+    @Test
+    void namesMatchBeforeLaterWordsAndIds() {
+        ZoneCatalog catalog = ZoneCatalog.of("America/Los_Angeles", "Europe/Belgrade",
+                "Asia/Ho_Chi_Minh=SAIGON", "Asia/Aden");
+        // ADEN by name, LOS ANGELES by its second word, SAIGON only by its id
+        assertEquals(Arrays.asList("ADEN", "LOS ANGELES", "SAIGON"),
+                catalog.search("a", 10).stream().map(ZoneCatalog.Entry::name).collect(Collectors.toList()));
+        assertEquals(1, catalog.search("b", 10).size());
+    }
+
+    @Test
+    void eachZoneIsListedOnce() {
+        List<ZoneCatalog.Entry> matches = ZoneCatalog.of("Asia/Tokyo=TOKYO TOKYO").search("tokyo", 10);
+        assertEquals(1, matches.size());
+    }
+
+    @Test
+    void emptyQueryListsTheCatalogInOrder() {
+        ZoneCatalog catalog = ZoneCatalog.of("Asia/Tokyo", "Europe/London", "UTC");
+        List<ZoneCatalog.Entry> first = catalog.search("", 2);
+        assertEquals(2, first.size());
+        assertEquals("TOKYO", first.get(0).name());
+        assertEquals("LONDON", first.get(1).name());
+    }
+
+    @Test
+    void loadsNamesAndSkipsComments() throws Exception {
+        ZoneCatalog catalog = ZoneCatalog.load(new StringReader(
+                "# Offices\n\nEurope/Belgrade = HQ\n  America/New_York\nUTC\n"));
+        assertEquals(3, catalog.size());
+        assertEquals("HQ", catalog.get(0).name());
+        assertEquals("NEW YORK", catalog.get(1).name());
+        assertEquals("UTC+00:00", catalog.get(2).offsetLabel());
+        assertEquals(catalog.get(0), catalog.search("hq", 1).get(0));
+    }
+
+    @Test
+    void rejectsUnknownZones() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ZoneCatalog.of("Europe/Belgrade", "Mars/Olympus_Mons"));
+        assertTrue(e.getMessage().startsWith("Line 2"), e.getMessage());
+    }
+
+    @Test
+    void offsetsAreLabelledWithSignAndMinutes() {
+        ZoneCatalog catalog = ZoneCatalog.of("Asia/Kolkata", "Etc/GMT+5");
+        assertEquals("UTC+05:30", catalog.get(0).offsetLabel());
+        assertEquals("UTC-05:00", catalog.get(1).offsetLabel());
+    }
+
+    @Test
+    void lookupsAcrossEveryZoneAreSubMillisecond() {
+        ZoneCatalog catalog = ZoneCatalog.available();
+        // Every prefix of one to four letters of every zone's name, as typed
+        int lookups = 0;
+        for (int round = 0; round < 3; round++) { // The first rounds warm up the JIT
+            lookups = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < catalog.size(); i++) {
+                String name = catalog.get(i).name();
+                for (int length = 1; length <= Math.min(4, name.length()); length++) {
+                    assertFalse(catalog.search(name.substring(0, length), 6).isEmpty());
+                    lookups++;
+                }
+            }
+            long perLookup = (System.nanoTime() - start) / lookups;
+            if (round == 2) {
+                assertTrue(perLookup < 1_000_000, "Mean lookup took " + perLookup + " ns");
+            }
+        }
+        assertTrue(lookups > 1000);
+    }
+}
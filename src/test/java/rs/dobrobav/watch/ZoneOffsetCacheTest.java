@@ -0,0 +1,49 @@
+package rs.dobrobav.watch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+class ZoneOffsetCacheTest {
+
+    private static final ZoneId BELGRADE = ZoneId.of("Europe/Belgrade");
+
+    @Test
+    void followsDaylightSavingTransitions() {
+        ZoneOffsetCache cache = ZoneOffsetCache.forZone(BELGRADE);
+        ZoneRules rules = BELGRADE.getRules();
+        ZoneOffsetTransition spring = rules.nextTransition(Instant.parse("2024-01-01T00:00:00Z"));
+        ZoneOffsetTransition autumn = rules.nextTransition(spring.getInstant());
+
+        // Walk across both transitions, then jump back before the first one
+        long[] seconds = {
+            spring.toEpochSecond() - 1, spring.toEpochSecond(), spring.toEpochSecond() + 1,
+            autumn.toEpochSecond() - 1, autumn.toEpochSecond(), autumn.toEpochSecond() + 3600,
+            spring.toEpochSecond() - 86_400, autumn.toEpochSecond() - 1
+        };
+        for (long second : seconds) {
+            int expected = rules.getOffset(Instant.ofEpochSecond(second)).getTotalSeconds();
+            assertEquals(expected, cache.offsetSeconds(second), "Offset at " + Instant.ofEpochSecond(second));
+        }
+        assertEquals(3600, cache.offsetSeconds(spring.toEpochSecond() - 1));
+        assertEquals(7200, cache.offsetSeconds(spring.toEpochSecond()));
+    }
+
+    @Test
+    void fixedOffsetZonesNeverChange() {
+        ZoneOffsetCache cache = ZoneOffsetCache.forZone(ZoneOffset.ofHours(9));
+        assertEquals(9 * 3600, cache.offsetSeconds(0));
+        assertEquals(9 * 3600 + 1_000_000L, cache.toLocalEpochSecond(1_000_000L));
+    }
+
+    @Test
+    void sharedPerZone() {
+        assertSame(ZoneOffsetCache.forZone(BELGRADE), ZoneOffsetCache.forZone(ZoneId.of("Europe/Belgrade")));
+    }
+}